@@ -0,0 +1,32 @@
+package org.example.price_comparator.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+// The data source of read-only connections: the replica while it keeps up, the primary otherwise.
+// Decided per physical connection, so a transaction stays on the database it started on.
+public class ReplicaFallbackDataSource extends AbstractRoutingDataSource {
+
+    private enum Target {
+        PRIMARY,
+        REPLICA
+    }
+
+    private final ReplicaLagMonitor replicaLagMonitor;
+
+    public ReplicaFallbackDataSource(DataSource primaryDataSource, DataSource replicaDataSource,
+                                     ReplicaLagMonitor replicaLagMonitor) {
+        this.replicaLagMonitor = replicaLagMonitor;
+        setTargetDataSources(Map.of(Target.PRIMARY, primaryDataSource, Target.REPLICA, replicaDataSource));
+        setDefaultTargetDataSource(primaryDataSource);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return replicaLagMonitor.isReplicaUsable() ? Target.REPLICA : Target.PRIMARY;
+    }
+}
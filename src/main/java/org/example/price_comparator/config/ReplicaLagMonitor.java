@@ -0,0 +1,85 @@
+package org.example.price_comparator.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongConsumer;
+
+// Polls how far the replica is behind the primary. Read-only transactions go to the primary while the replica
+// is more than max-lag-ms behind or cannot be reached, and return to the replica once it has caught up.
+// Until the first check succeeds the replica is not used.
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private static final String PRIMARY_LSN_SQL = "select pg_current_wal_lsn()::text";
+
+    // Whether the replica has replayed everything the primary had written when it was asked (always so on a database
+    // that is not a standby), and the time since its last replayed transaction, null if there was none.
+    // The position has to come from the primary: a standby whose WAL receiver has disconnected has replayed all
+    // it received and looks up to date on its own.
+    private static final String REPLICA_STATE_SQL =
+            "select coalesce(not pg_is_in_recovery() or pg_last_wal_replay_lsn() >= cast(? as pg_lsn), false), " +
+            "cast(extract(epoch from now() - pg_last_xact_replay_timestamp()) * 1000 as float8)";
+
+    private record ReplicaState(boolean caughtUp, Double millisSinceLastReplay) {
+    }
+
+    private final JdbcTemplate primaryJdbcTemplate;
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final long maxLagMillis;
+    private final List<LongConsumer> caughtUpListeners = new CopyOnWriteArrayList<>();
+    private volatile boolean replicaUsable;
+
+    public ReplicaLagMonitor(DataSource primaryDataSource, DataSource replicaDataSource, long maxLagMillis) {
+        this.primaryJdbcTemplate = new JdbcTemplate(primaryDataSource);
+        this.replicaJdbcTemplate = new JdbcTemplate(replicaDataSource);
+        this.maxLagMillis = maxLagMillis;
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replica.lag-check-ms:1000}")
+    public void check() {
+        boolean usable;
+        boolean caughtUp = false;
+        long positionReadAt = System.nanoTime();
+        try {
+            String primaryLsn = primaryJdbcTemplate.queryForObject(PRIMARY_LSN_SQL, String.class);
+            ReplicaState state = replicaJdbcTemplate.queryForObject(REPLICA_STATE_SQL, (rs, rowNum) ->
+                    new ReplicaState(rs.getBoolean(1), rs.getObject(2, Double.class)), primaryLsn);
+            caughtUp = state != null && state.caughtUp();
+            Double lagMillis = caughtUp ? Double.valueOf(0) : state == null ? null : state.millisSinceLastReplay();
+            usable = lagMillis != null && lagMillis <= maxLagMillis;
+            if (!usable && replicaUsable) {
+                log.warn("Replica is {} ms behind, reading from the primary", lagMillis);
+            }
+        } catch (DataAccessException e) {
+            usable = false;
+            if (replicaUsable) {
+                log.warn("Replica lag could not be checked, reading from the primary", e);
+            }
+        }
+        if (usable && !replicaUsable) {
+            log.info("Replica is up to date, reading from the replica");
+        }
+        replicaUsable = usable;
+        if (caughtUp) {
+            for (LongConsumer listener : caughtUpListeners) {
+                listener.accept(positionReadAt);
+            }
+        }
+    }
+
+    // Called after each check that found the replica caught up, with the System.nanoTime() taken just before the
+    // primary's position was read: everything the primary had committed by then can be read from the replica
+    public void addCaughtUpListener(LongConsumer listener) {
+        caughtUpListeners.add(listener);
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.price_comparator.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.price_comparator.dto.CacheRegionStatsDto;
+import org.example.price_comparator.service.DimensionCacheService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/cache")
+@Slf4j
+public class CacheController {
+
+    private final DimensionCacheService dimensionCacheService;
+
+    public CacheController(DimensionCacheService dimensionCacheService) {
+        this.dimensionCacheService = dimensionCacheService;
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<List<CacheRegionStatsDto>> getCacheStats() {
+        return ResponseEntity.ok(dimensionCacheService.getStatistics());
+    }
+
+    @PostMapping("/evict")
+    public ResponseEntity<Void> evictCache() {
+        log.info("Evicting the product and store cache");
+        dimensionCacheService.evictAll();
+        return ResponseEntity.noContent().build();
+    }
+}
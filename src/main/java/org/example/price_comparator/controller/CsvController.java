@@ -1,14 +1,30 @@
 package org.example.price_comparator.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
-import org.example.price_comparator.exceptions.CsvFolderNotFoundException;
-import org.example.price_comparator.exceptions.CsvProcessingException;
-import org.example.price_comparator.service.CsvService;
+import org.apache.commons.fileupload2.core.DiskFileItem;
+import org.apache.commons.fileupload2.core.DiskFileItemFactory;
+import org.apache.commons.fileupload2.core.FileItemInput;
+import org.apache.commons.fileupload2.core.FileItemInputIterator;
+import org.apache.commons.fileupload2.jakarta.servlet6.JakartaServletFileUpload;
+import org.example.price_comparator.dto.ImportJobDto;
+import org.example.price_comparator.dto.PipelineStageDto;
+import org.example.price_comparator.service.ImportJobService;
+import org.example.price_comparator.service.IngestionPipelineMetrics;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
 
 
 @RestController
@@ -16,22 +32,91 @@ import org.springframework.web.bind.annotation.RestController;
 @Slf4j
 public class CsvController {
 
-    private final CsvService csvService;
+    private static final long NO_TIMEOUT = -1;
+
+    private final ImportJobService importJobService;
+    private final IngestionPipelineMetrics pipelineMetrics;
+    private final AsyncTaskExecutor uploadExecutor = new VirtualThreadTaskExecutor("csv-upload-");
 
-    public CsvController(CsvService csvService) {
-        this.csvService = csvService;
+    public CsvController(ImportJobService importJobService, IngestionPipelineMetrics pipelineMetrics) {
+        this.importJobService = importJobService;
+        this.pipelineMetrics = pipelineMetrics;
     }
 
+    // Imports run as background jobs; poll /jobs/{jobId} for progress
     @PostMapping("/import-all")
-    public ResponseEntity<String> processAllCsvFiles() throws CsvFolderNotFoundException, CsvProcessingException {
-        csvService.processAllCsvFiles();
-        return ResponseEntity.ok("All CSV files imported!");
+    public ResponseEntity<ImportJobDto> processAllCsvFiles() {
+        log.info("Submitting import of all CSV files");
+        ImportJobDto job = importJobService.startImportAll();
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
     }
 
     @PostMapping("/import")
-    public ResponseEntity<String> processCsvFile(@RequestParam String fileName) throws CsvProcessingException {
-        csvService.processCsvFile(fileName);
-        return ResponseEntity.ok("CSV file imported: " + fileName);
+    public ResponseEntity<ImportJobDto> processCsvFile(@RequestParam String fileName) {
+        log.info("Submitting import of CSV file: {}", fileName);
+        ImportJobDto job = importJobService.startImport(fileName);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+
+    // Streams a feed from the raw request body, e.g. curl --data-binary @lidl_2025-05-08.csv.gz.
+    // The file name supplies the store, date and compression just like files in the CSV folder.
+    // The body is imported as it arrives, off the servlet thread, and the response carries the final job state.
+    @PostMapping(value = "/upload", consumes = {MediaType.APPLICATION_OCTET_STREAM_VALUE, "text/csv", MediaType.TEXT_PLAIN_VALUE})
+    public WebAsyncTask<ResponseEntity<ImportJobDto>> uploadCsvFile(@RequestParam String fileName, HttpServletRequest request) {
+        log.info("Importing uploaded CSV file: {}", fileName);
+        return uploadTask(() -> ResponseEntity.ok(importJobService.importStream(fileName, request.getInputStream())));
+    }
+
+    // Multipart parts are read one at a time straight off the request stream instead of being spooled to disk,
+    // which is why spring.servlet.multipart is disabled
+    @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public WebAsyncTask<ResponseEntity<List<ImportJobDto>>> uploadCsvFiles(HttpServletRequest request) {
+        return uploadTask(() -> ResponseEntity.ok(importParts(request)));
+    }
+
+    private List<ImportJobDto> importParts(HttpServletRequest request) throws IOException {
+        JakartaServletFileUpload<DiskFileItem, DiskFileItemFactory> upload = new JakartaServletFileUpload<>();
+        FileItemInputIterator items = upload.getItemIterator(request);
+        List<ImportJobDto> jobs = new ArrayList<>();
+        while (items.hasNext()) {
+            FileItemInput item = items.next();
+            if (item.isFormField() || item.getName() == null || item.getName().isBlank()) {
+                continue;
+            }
+            String fileName = Path.of(item.getName()).getFileName().toString();
+            log.info("Importing uploaded CSV file: {}", fileName);
+            try (InputStream in = item.getInputStream()) {
+                jobs.add(importJobService.importStream(fileName, in));
+            }
+        }
+        return jobs;
+    }
+
+    // Each upload gets a virtual thread of its own rather than a slot in the shared MVC async pool, and no
+    // timeout: the import reads the body for as long as the client keeps sending it
+    private <T> WebAsyncTask<T> uploadTask(Callable<T> upload) {
+        return new WebAsyncTask<>(NO_TIMEOUT, uploadExecutor, upload);
+    }
+
+    @GetMapping("/jobs")
+    public ResponseEntity<List<ImportJobDto>> getJobs() {
+        return ResponseEntity.ok(importJobService.getJobs());
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<ImportJobDto> getJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(importJobService.getJob(jobId));
+    }
+
+    @PostMapping("/jobs/{jobId}/cancel")
+    public ResponseEntity<ImportJobDto> cancelJob(@PathVariable String jobId) {
+        log.info("Cancelling import job: {}", jobId);
+        return ResponseEntity.ok(importJobService.cancelJob(jobId));
+    }
+
+    @GetMapping("/pipeline")
+    public ResponseEntity<List<PipelineStageDto>> getPipelineStats() {
+        return ResponseEntity.ok(pipelineMetrics.getStageStats());
     }
 }
 
@@ -29,6 +29,13 @@ public class PriceAlertController {
         return ResponseEntity.status(HttpStatus.CREATED).body(alert);
     }
 
+    @PostMapping("/add/bulk")
+    public ResponseEntity<List<PriceAlertResponseDto>> createAlerts(@RequestBody List<PriceAlertRequestDto> alertRequests) {
+        log.info("Creating {} price alerts", alertRequests.size());
+        List<PriceAlertResponseDto> alerts = alertService.createAlerts(alertRequests);
+        return ResponseEntity.status(HttpStatus.CREATED).body(alerts);
+    }
+
     @GetMapping("/user/{email}")
     public ResponseEntity<List<PriceAlertResponseDto>> getUserAlerts(@PathVariable String email) {
         log.info("Getting price alerts for user: {}", email);
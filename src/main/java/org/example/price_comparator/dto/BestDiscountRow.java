@@ -0,0 +1,19 @@
+package org.example.price_comparator.dto;
+
+import java.time.LocalDate;
+
+// A discount with its product, store and the latest price before it, in stored units and dictionary keys; mapped to BestDiscountsDto
+public record BestDiscountRow(
+        String productId,
+        String productName,
+        int categoryId,
+        int brandId,
+        Double packageQuantity,
+        int unitId,
+        String storeName,
+        int discountBasisPoints,
+        long priceMinor,
+        int currencyId,
+        LocalDate startDate,
+        LocalDate endDate) {
+}
@@ -0,0 +1,16 @@
+package org.example.price_comparator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheRegionStatsDto {
+    private String region;
+    private Long hitCount;
+    private Long missCount;
+    private Long putCount;
+    private Double hitRatio;
+}
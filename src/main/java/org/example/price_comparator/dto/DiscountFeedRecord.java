@@ -0,0 +1,21 @@
+package org.example.price_comparator.dto;
+
+// One row of a discount feed, independent of the parser that produced it. Dates are epoch days.
+public record DiscountFeedRecord(
+        String productId,
+        String productName,
+        String brand,
+        double packageQuantity,
+        String packageUnit,
+        String productCategory,
+        int fromEpochDay,
+        int toEpochDay,
+        double percentageOfDiscount) {
+
+    public static DiscountFeedRecord from(DiscountCsvDto dto) {
+        return new DiscountFeedRecord(dto.getProduct_id(), dto.getProduct_name(), dto.getBrand(),
+                dto.getPackage_quantity(), dto.getPackage_unit(), dto.getProduct_category(),
+                (int) dto.getFrom_date().toEpochDay(), (int) dto.getTo_date().toEpochDay(),
+                dto.getPercentage_of_discount());
+    }
+}
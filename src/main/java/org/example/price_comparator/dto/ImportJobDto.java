@@ -0,0 +1,26 @@
+package org.example.price_comparator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportJobDto {
+    private String jobId;
+    private String description;
+    private String status;
+    private LocalDateTime submittedAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private Integer filesTotal;
+    private Integer filesDone;
+    private Long rowsParsed;
+    private Long rowsWritten;
+    private Long rowsPerSecond;
+    private List<String> errors;
+}
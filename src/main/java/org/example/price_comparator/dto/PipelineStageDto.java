@@ -0,0 +1,18 @@
+package org.example.price_comparator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PipelineStageDto {
+    private String stage;
+    private Integer activeThreads;
+    private Integer queuedChunks;
+    private Integer queueCapacity;
+    private Long rowsProcessed;
+    private Long busyMillis;
+    private Long rowsPerBusySecond;
+}
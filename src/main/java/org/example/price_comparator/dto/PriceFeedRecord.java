@@ -0,0 +1,18 @@
+package org.example.price_comparator.dto;
+
+// One row of a price feed, independent of the parser that produced it
+public record PriceFeedRecord(
+        String productId,
+        String productName,
+        String productCategory,
+        String brand,
+        double packageQuantity,
+        String packageUnit,
+        double price,
+        String currency) {
+
+    public static PriceFeedRecord from(PriceCsvDto dto) {
+        return new PriceFeedRecord(dto.getProduct_id(), dto.getProduct_name(), dto.getProduct_category(),
+                dto.getBrand(), dto.getPackage_quantity(), dto.getPackage_unit(), dto.getPrice(), dto.getCurrency());
+    }
+}
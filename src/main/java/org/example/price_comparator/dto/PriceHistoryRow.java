@@ -0,0 +1,12 @@
+package org.example.price_comparator.dto;
+
+import java.time.LocalDate;
+
+// One price of the history with the discount active on its date, if any
+public record PriceHistoryRow(
+        LocalDate date,
+        Long storeId,
+        long priceMinor,
+        int currencyId,
+        Integer discountBasisPoints) {
+}
@@ -17,4 +17,8 @@ public class OptimizedShoppingPlanDto {
     private String currency;
     private Integer totalStores;
     private Integer totalItems;
+    // Visit cost times the number of stores, not included in totalCost
+    private Double totalVisitCost;
+    // False when the store-limited search ran out of time and returned the best plan found so far
+    private Boolean optimal;
 }
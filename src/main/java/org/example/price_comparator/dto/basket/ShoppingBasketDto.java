@@ -11,4 +11,8 @@ import java.util.List;
 @AllArgsConstructor
 public class ShoppingBasketDto {
     private List<BasketItemDto> items;
+    // Optional: buy everything in at most this many stores
+    private Integer maxStores;
+    // Optional: fixed cost of visiting a store, weighed against the price differences
+    private Double storeVisitCost;
 }
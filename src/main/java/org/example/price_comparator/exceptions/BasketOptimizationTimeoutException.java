@@ -0,0 +1,10 @@
+package org.example.price_comparator.exceptions;
+
+// The store-limited search ran out of time before finding any plan; unlike an infeasible basket, the request
+// itself may be fine
+public class BasketOptimizationTimeoutException extends BasketOptimizationException {
+
+  public BasketOptimizationTimeoutException(String message) {
+    super(message);
+  }
+}
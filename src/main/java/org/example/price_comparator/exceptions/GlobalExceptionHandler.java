@@ -52,10 +52,28 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Error optimizing shopping basket: " + ex.getMessage());
     }
 
+    @ExceptionHandler(BasketOptimizationTimeoutException.class)
+    public ResponseEntity<String> handleBasketOptimizationTimeoutException(BasketOptimizationTimeoutException ex) {
+        log.error("Basket Optimization Timeout Exception: ", ex);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Error optimizing shopping basket: " + ex.getMessage());
+    }
+
     @ExceptionHandler(PriceAlertException.class)
     public ResponseEntity<String> handlePriceAlertException(PriceAlertException ex) {
         log.error("Price Alert Exception: ", ex);
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Error with price alert: " + ex.getMessage());
     }
 
+    @ExceptionHandler(InvalidFeedFileNameException.class)
+    public ResponseEntity<String> handleInvalidFeedFileNameException(InvalidFeedFileNameException ex) {
+        log.error("Invalid Feed File Name Exception: ", ex);
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid feed file. " + ex.getMessage());
+    }
+
+    @ExceptionHandler(ImportJobNotFoundException.class)
+    public ResponseEntity<String> handleImportJobNotFoundException(ImportJobNotFoundException ex) {
+        log.error("Import Job Not Found Exception: ", ex);
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Import job not found. " + ex.getMessage());
+    }
+
 }
@@ -0,0 +1,8 @@
+package org.example.price_comparator.exceptions;
+
+public class ImportCancelledException extends RuntimeException {
+
+    public ImportCancelledException(String message) {
+        super(message);
+    }
+}
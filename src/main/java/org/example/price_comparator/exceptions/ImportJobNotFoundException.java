@@ -0,0 +1,8 @@
+package org.example.price_comparator.exceptions;
+
+public class ImportJobNotFoundException extends RuntimeException {
+
+    public ImportJobNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package org.example.price_comparator.exceptions;
+
+public class InvalidFeedFileNameException extends RuntimeException {
+
+    public InvalidFeedFileNameException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.price_comparator.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+// Latest price and latest discount of a product in a store, kept up to date by the CSV import.
+// A row can exist with only a discount when the discount feed arrives before the price feed.
+@Entity
+@Table(name = "current_prices")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CurrentPrice {
+
+    @EmbeddedId
+    private CurrentPriceId id;
+
+    @MapsId("productId")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id", nullable = false)
+    private Product product;
+
+    @MapsId("storeId")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "store_id", nullable = false)
+    private Store store;
+
+    private Long priceMinor;
+
+    private Integer currencyId;
+
+    private LocalDate priceDate;
+
+    private Integer discountBasisPoints;
+
+    private LocalDate discountStartDate;
+
+    private LocalDate discountEndDate;
+
+    // Price with the discount applied, only meaningful between the discount dates
+    private Long discountedPriceMinor;
+
+    // The row answers a query for the given date when no newer price or discount has replaced what applied then.
+    // Discounts of a product in a store do not overlap, so an older discount cannot still be active on the date.
+    public boolean covers(LocalDate date) {
+        return priceMinor != null && !priceDate.isAfter(date)
+                && (discountStartDate == null || !discountStartDate.isAfter(date));
+    }
+
+    public boolean isDiscountActive(LocalDate date) {
+        return discountBasisPoints != null && !discountStartDate.isAfter(date) && !discountEndDate.isBefore(date);
+    }
+
+    public long effectivePriceMinor(LocalDate date) {
+        return isDiscountActive(date) ? discountedPriceMinor : priceMinor;
+    }
+}
@@ -0,0 +1,17 @@
+package org.example.price_comparator.model;
+
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+import java.io.Serializable;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CurrentPriceId implements Serializable {
+
+    private String productId;
+
+    private Long storeId;
+}
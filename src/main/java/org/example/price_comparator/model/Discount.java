@@ -12,19 +12,21 @@ import java.time.LocalDate;
 @AllArgsConstructor
 public class Discount {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "discounts_id_seq")
+    @SequenceGenerator(name = "discounts_id_seq", sequenceName = "discounts_id_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id", nullable = false)
     private Product product;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "store_id", nullable = false)
     private Store store;
 
     @Column(nullable = false)
-    private Double percentageOfDiscount;
+    // 1% = 100 basis points
+    private int discountBasisPoints;
 
     @Column(nullable = false)
     private LocalDate startDate;
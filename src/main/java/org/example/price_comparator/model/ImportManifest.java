@@ -0,0 +1,30 @@
+package org.example.price_comparator.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "import_manifest")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportManifest {
+
+    @Id
+    private String fileName;
+
+    @Column(nullable = false)
+    private Long fileSize;
+
+    // SHA-256 of the file contents, hex encoded
+    @Column(nullable = false)
+    private String checksum;
+
+    @Column(nullable = false)
+    private Integer rowCount;
+
+    @Column(nullable = false)
+    private LocalDateTime importedAt;
+}
@@ -13,22 +13,25 @@ import java.time.LocalDate;
 public class Price {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "prices_id_seq")
+    @SequenceGenerator(name = "prices_id_seq", sequenceName = "prices_id_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id", nullable = false)
     private Product product;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "store_id", nullable = false)
     private Store store;
 
     @Column(nullable = false)
-    private Double price;
+    // Minor units (bani, cents), see util/Money
+    private long priceMinor;
 
+    // Key into currencies, see DictionaryService
     @Column(nullable = false)
-    private String currency;
+    private int currencyId;
 
     @Column(nullable = false)
     private LocalDate date;
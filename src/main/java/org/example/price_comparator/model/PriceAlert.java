@@ -15,25 +15,26 @@ import java.time.LocalDate;
 public class PriceAlert {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "price_alerts_id_seq")
+    @SequenceGenerator(name = "price_alerts_id_seq", sequenceName = "price_alerts_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
     private String userEmail;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id", nullable = false)
     private Product product;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "store_id")
     private Store store;
 
     @Column(nullable = false)
-    private Double targetPrice;
+    private long targetPriceMinor;
 
     @Column(nullable = false)
-    private String currency;
+    private int currencyId;
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
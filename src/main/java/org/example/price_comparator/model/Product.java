@@ -2,9 +2,13 @@ package org.example.price_comparator.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name = "products")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "products")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -16,15 +20,16 @@ public class Product {
     @Column(nullable = false)
     private String productName;
 
+    // Keys into categories and brands, see DictionaryService
     @Column(nullable = false)
-    private String productCategory;
+    private int categoryId;
 
     @Column(nullable = false)
-    private String brand;
+    private int brandId;
 
     @Column(nullable = false)
     private Double packageQuantity;
 
     @Column(nullable = false)
-    private String packageUnit;
+    private int unitId;
 }
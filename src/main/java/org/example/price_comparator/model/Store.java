@@ -2,16 +2,21 @@ package org.example.price_comparator.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name = "stores")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "stores")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Store {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stores_id_seq")
+    @SequenceGenerator(name = "stores_id_seq", sequenceName = "stores_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -0,0 +1,13 @@
+package org.example.price_comparator.repository;
+
+import org.example.price_comparator.model.Discount;
+import org.example.price_comparator.model.Price;
+
+import java.util.List;
+
+public interface CurrentPriceBulkRepository {
+
+    void upsertPrices(List<Price> prices);
+    void upsertDiscounts(List<Discount> discounts);
+    void rebuild();
+}
@@ -0,0 +1,125 @@
+package org.example.price_comparator.repository;
+
+import org.example.price_comparator.model.CurrentPriceId;
+import org.example.price_comparator.model.Discount;
+import org.example.price_comparator.model.Price;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Plain JDBC upserts, picked up by Spring Data as a fragment of CurrentPriceRepository.
+// A row only moves forward: older prices or discounts (e.g. a re-imported old feed) never replace newer ones,
+// so chunks and files can be applied in any order.
+public class CurrentPriceBulkRepositoryImpl implements CurrentPriceBulkRepository {
+
+    private static final String PRICE_COLUMNS =
+            "insert into current_prices as cp (product_id, store_id, price_minor, currency_id, price_date) ";
+
+    private static final String PRICE_CONFLICT =
+            "on conflict (product_id, store_id) do update " +
+            "set price_minor = excluded.price_minor, currency_id = excluded.currency_id, price_date = excluded.price_date, " +
+            "discounted_price_minor = " + discounted("excluded.price_minor", "cp.discount_basis_points") + " " +
+            "where cp.price_date is null or cp.price_date <= excluded.price_date";
+
+    private static final String DISCOUNT_COLUMNS =
+            "insert into current_prices as cp (product_id, store_id, discount_basis_points, discount_start_date, discount_end_date) ";
+
+    private static final String DISCOUNT_CONFLICT =
+            "on conflict (product_id, store_id) do update " +
+            "set discount_basis_points = excluded.discount_basis_points, " +
+            "discount_start_date = excluded.discount_start_date, discount_end_date = excluded.discount_end_date, " +
+            "discounted_price_minor = " + discounted("cp.price_minor", "excluded.discount_basis_points") + " " +
+            "where cp.discount_start_date is null or cp.discount_start_date <= excluded.discount_start_date";
+
+    private static final String UPSERT_PRICES_SQL = PRICE_COLUMNS + "select * from unnest(?, ?, ?, ?, ?) " + PRICE_CONFLICT;
+
+    private static final String UPSERT_DISCOUNTS_SQL = DISCOUNT_COLUMNS + "select * from unnest(?, ?, ?, ?, ?) " + DISCOUNT_CONFLICT;
+
+    private static final String REBUILD_PRICES_SQL = PRICE_COLUMNS +
+            "select distinct on (product_id, store_id) product_id, store_id, price_minor, currency_id, date from prices " +
+            "order by product_id, store_id, date desc, id desc " + PRICE_CONFLICT;
+
+    private static final String REBUILD_DISCOUNTS_SQL = DISCOUNT_COLUMNS +
+            "select distinct on (product_id, store_id) product_id, store_id, discount_basis_points, start_date, end_date from discounts " +
+            "order by product_id, store_id, start_date desc, id desc " + DISCOUNT_CONFLICT;
+
+    // Rows are upserted in key order so concurrent chunks lock them in the same order
+    private static final Comparator<CurrentPriceId> KEY_ORDER =
+            Comparator.comparing(CurrentPriceId::getProductId).thenComparing(CurrentPriceId::getStoreId);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CurrentPriceBulkRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // One statement per chunk; a key may only appear once in it, so the newest row of each product and store wins
+    @Override
+    public void upsertPrices(List<Price> prices) {
+        Map<CurrentPriceId, Price> latest = new TreeMap<>(KEY_ORDER);
+        for (Price price : prices) {
+            latest.merge(new CurrentPriceId(price.getProduct().getId(), price.getStore().getId()), price,
+                    (current, candidate) -> candidate.getDate().isBefore(current.getDate()) ? current : candidate);
+        }
+        if (latest.isEmpty()) {
+            return;
+        }
+        Object[] productIds = latest.keySet().stream().map(CurrentPriceId::getProductId).toArray();
+        Object[] storeIds = latest.keySet().stream().map(CurrentPriceId::getStoreId).toArray();
+        Object[] amounts = latest.values().stream().map(Price::getPriceMinor).toArray();
+        Object[] currencies = latest.values().stream().map(Price::getCurrencyId).toArray();
+        Object[] dates = latest.values().stream().map(price -> Date.valueOf(price.getDate())).toArray();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(UPSERT_PRICES_SQL);
+            ps.setArray(1, connection.createArrayOf("varchar", productIds));
+            ps.setArray(2, connection.createArrayOf("bigint", storeIds));
+            ps.setArray(3, connection.createArrayOf("int8", amounts));
+            ps.setArray(4, connection.createArrayOf("int2", currencies));
+            ps.setArray(5, connection.createArrayOf("date", dates));
+            return ps;
+        });
+    }
+
+    @Override
+    public void upsertDiscounts(List<Discount> discounts) {
+        Map<CurrentPriceId, Discount> latest = new TreeMap<>(KEY_ORDER);
+        for (Discount discount : discounts) {
+            latest.merge(new CurrentPriceId(discount.getProduct().getId(), discount.getStore().getId()), discount,
+                    (current, candidate) -> candidate.getStartDate().isBefore(current.getStartDate()) ? current : candidate);
+        }
+        if (latest.isEmpty()) {
+            return;
+        }
+        Object[] productIds = latest.keySet().stream().map(CurrentPriceId::getProductId).toArray();
+        Object[] storeIds = latest.keySet().stream().map(CurrentPriceId::getStoreId).toArray();
+        Object[] basisPoints = latest.values().stream().map(Discount::getDiscountBasisPoints).toArray();
+        Object[] startDates = latest.values().stream().map(discount -> Date.valueOf(discount.getStartDate())).toArray();
+        Object[] endDates = latest.values().stream().map(discount -> Date.valueOf(discount.getEndDate())).toArray();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(UPSERT_DISCOUNTS_SQL);
+            ps.setArray(1, connection.createArrayOf("varchar", productIds));
+            ps.setArray(2, connection.createArrayOf("bigint", storeIds));
+            ps.setArray(3, connection.createArrayOf("int4", basisPoints));
+            ps.setArray(4, connection.createArrayOf("date", startDates));
+            ps.setArray(5, connection.createArrayOf("date", endDates));
+            return ps;
+        });
+    }
+
+    // Derives the table from the full history, for data imported before it existed
+    @Override
+    public void rebuild() {
+        jdbcTemplate.update(REBUILD_PRICES_SQL);
+        jdbcTemplate.update(REBUILD_DISCOUNTS_SQL);
+    }
+
+    // Integer arithmetic with the rounding of Money.applyDiscount; null while the row lacks the price or the discount
+    private static String discounted(String priceMinor, String basisPoints) {
+        return "(" + priceMinor + " * (10000 - " + basisPoints + ") + 5000) / 10000";
+    }
+}
@@ -0,0 +1,19 @@
+package org.example.price_comparator.repository;
+
+import org.example.price_comparator.model.CurrentPrice;
+import org.example.price_comparator.model.CurrentPriceId;
+import org.example.price_comparator.model.Product;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface CurrentPriceRepository extends JpaRepository<CurrentPrice, CurrentPriceId>, CurrentPriceBulkRepository {
+
+    @EntityGraph(attributePaths = "store")
+    List<CurrentPrice> findByProduct(Product product);
+
+    @EntityGraph(attributePaths = "store")
+    List<CurrentPrice> findByProductIn(Collection<Product> products);
+}
@@ -0,0 +1,34 @@
+package org.example.price_comparator.repository;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface DictionaryRepository {
+
+    // Lookup tables of the dictionary-encoded columns (V5 migration)
+    enum Dictionary {
+        CURRENCIES("currencies", "code"),
+        UNITS("units", "name"),
+        CATEGORIES("categories", "name"),
+        BRANDS("brands", "name");
+
+        private final String table;
+        private final String valueColumn;
+
+        Dictionary(String table, String valueColumn) {
+            this.table = table;
+            this.valueColumn = valueColumn;
+        }
+
+        public String table() {
+            return table;
+        }
+
+        public String valueColumn() {
+            return valueColumn;
+        }
+    }
+
+    Map<String, Integer> findAll(Dictionary dictionary);
+    Map<String, Integer> findOrCreate(Dictionary dictionary, Collection<String> values);
+}
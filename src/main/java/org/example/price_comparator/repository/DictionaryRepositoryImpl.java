@@ -0,0 +1,63 @@
+package org.example.price_comparator.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+// Plain JDBC access to the lookup tables; new values are added the same way as stores (StoreBulkRepositoryImpl),
+// so concurrent imports adding the same value both succeed and see the same key
+@Repository
+public class DictionaryRepositoryImpl implements DictionaryRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DictionaryRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Always on the primary: a key added by another instance may not have reached the replica yet
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public Map<String, Integer> findAll(Dictionary dictionary) {
+        Map<String, Integer> ids = new HashMap<>();
+        jdbcTemplate.query("select id, " + dictionary.valueColumn() + " from " + dictionary.table(),
+                rs -> {
+                    ids.put(rs.getString(2), rs.getInt(1));
+                });
+        return ids;
+    }
+
+    // In a transaction of its own: keys cached by DictionaryService must not disappear with a caller's rollback
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public Map<String, Integer> findOrCreate(Dictionary dictionary, Collection<String> values) {
+        Map<String, Integer> ids = new HashMap<>();
+        if (values.isEmpty()) {
+            return ids;
+        }
+        Object[] valueArray = values.stream().distinct().toArray();
+        String insertSql = "insert into " + dictionary.table() + " (" + dictionary.valueColumn() + ") " +
+                "select unnest(?) on conflict (" + dictionary.valueColumn() + ") do nothing";
+        String selectSql = "select id, " + dictionary.valueColumn() + " from " + dictionary.table() +
+                " where " + dictionary.valueColumn() + " = any (?)";
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(insertSql);
+            ps.setArray(1, connection.createArrayOf("varchar", valueArray));
+            return ps;
+        });
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(selectSql);
+            ps.setArray(1, connection.createArrayOf("varchar", valueArray));
+            return ps;
+        }, rs -> {
+            ids.put(rs.getString(2), rs.getInt(1));
+        });
+        return ids;
+    }
+}
@@ -0,0 +1,17 @@
+package org.example.price_comparator.repository;
+
+import org.example.price_comparator.model.Discount;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DiscountBulkRepository {
+
+    int batchInsert(List<Discount> discounts);
+    int batchUpdate(List<Discount> discounts);
+    List<ExistingDiscount> findExisting(List<Discount> discounts);
+
+    record ExistingDiscount(long id, String productId, long storeId, LocalDate startDate, LocalDate endDate,
+                            int discountBasisPoints) {
+    }
+}
@@ -0,0 +1,84 @@
+package org.example.price_comparator.repository;
+
+import org.example.price_comparator.model.Discount;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.util.List;
+
+// Plain JDBC batch statements, picked up by Spring Data as a fragment of DiscountRepository.
+public class DiscountBulkRepositoryImpl implements DiscountBulkRepository {
+
+    private static final String INSERT_SQL =
+            "insert into discounts (id, product_id, store_id, discount_basis_points, start_date, end_date) values (?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_SQL =
+            "update discounts set discount_basis_points = ? where id = ?";
+    private static final String SELECT_EXISTING_SQL =
+            "select id, product_id, store_id, start_date, end_date, discount_basis_points from discounts " +
+            "where product_id = any (?) and store_id = any (?) and start_date = any (?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SequenceIdAllocator idAllocator;
+
+    public DiscountBulkRepositoryImpl(JdbcTemplate jdbcTemplate, SequenceIdAllocator idAllocator) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idAllocator = idAllocator;
+    }
+
+    @Override
+    public int batchInsert(List<Discount> discounts) {
+        if (discounts.isEmpty()) {
+            return 0;
+        }
+        long[] ids = idAllocator.nextIds("discounts_id_seq", discounts.size());
+        for (int i = 0; i < ids.length; i++) {
+            discounts.get(i).setId(ids[i]);
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, discounts, discounts.size(), (ps, discount) -> {
+            ps.setLong(1, discount.getId());
+            ps.setString(2, discount.getProduct().getId());
+            ps.setLong(3, discount.getStore().getId());
+            ps.setInt(4, discount.getDiscountBasisPoints());
+            ps.setDate(5, Date.valueOf(discount.getStartDate()));
+            ps.setDate(6, Date.valueOf(discount.getEndDate()));
+        });
+        return discounts.size();
+    }
+
+    @Override
+    public int batchUpdate(List<Discount> discounts) {
+        if (discounts.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(UPDATE_SQL, discounts, discounts.size(), (ps, discount) -> {
+            ps.setInt(1, discount.getDiscountBasisPoints());
+            ps.setLong(2, discount.getId());
+        });
+        return discounts.size();
+    }
+
+    // One round trip for the whole chunk; the caller matches rows on (product, store, start date, end date)
+    @Override
+    public List<ExistingDiscount> findExisting(List<Discount> discounts) {
+        if (discounts.isEmpty()) {
+            return List.of();
+        }
+        Object[] productIds = discounts.stream().map(discount -> discount.getProduct().getId()).distinct().toArray();
+        Object[] storeIds = discounts.stream().map(discount -> discount.getStore().getId()).distinct().toArray();
+        Object[] startDates = discounts.stream().map(discount -> Date.valueOf(discount.getStartDate())).distinct().toArray();
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SELECT_EXISTING_SQL);
+            ps.setArray(1, connection.createArrayOf("varchar", productIds));
+            ps.setArray(2, connection.createArrayOf("bigint", storeIds));
+            ps.setArray(3, connection.createArrayOf("date", startDates));
+            return ps;
+        }, (rs, rowNum) -> new ExistingDiscount(
+                rs.getLong("id"),
+                rs.getString("product_id"),
+                rs.getLong("store_id"),
+                rs.getDate("start_date").toLocalDate(),
+                rs.getDate("end_date").toLocalDate(),
+                rs.getInt("discount_basis_points")));
+    }
+}
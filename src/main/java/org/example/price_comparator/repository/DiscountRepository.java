@@ -1,21 +1,40 @@
 package org.example.price_comparator.repository;
 
+import org.example.price_comparator.dto.BestDiscountRow;
 import org.example.price_comparator.model.Discount;
 import org.example.price_comparator.model.Product;
 import org.example.price_comparator.model.Store;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
 
-public interface DiscountRepository extends JpaRepository<Discount, Long> {
+public interface DiscountRepository extends JpaRepository<Discount, Long>, DiscountBulkRepository {
+
+    // Only the columns of BestDiscountsDto, priced with the latest price on or before :priceDate;
+    // discounts without such a price are left out. Of two prices on that date the later row wins, as in current_prices.
+    String BEST_DISCOUNT_SELECT =
+            "select new org.example.price_comparator.dto.BestDiscountRow(pr.id, pr.productName, pr.categoryId, pr.brandId, " +
+            "pr.packageQuantity, pr.unitId, s.name, d.discountBasisPoints, p.priceMinor, p.currencyId, d.startDate, d.endDate) " +
+            "from Discount d join d.product pr join d.store s " +
+            "join Price p on p.product = pr and p.store = s and p.date = " +
+            "(select max(p2.date) from Price p2 where p2.product = pr and p2.store = s and p2.date <= :priceDate) " +
+            "and not exists (select 1 from Price p3 where p3.product = pr and p3.store = s and p3.date = p.date and p3.id > p.id) ";
+
+    @Query(BEST_DISCOUNT_SELECT + "where d.startDate <= :date and d.endDate >= :date order by d.discountBasisPoints desc")
+    List<BestDiscountRow> findBestActiveOn(LocalDate date, LocalDate priceDate, Limit limit);
+
+    @Query(BEST_DISCOUNT_SELECT + "where d.startDate >= :date order by d.startDate desc")
+    List<BestDiscountRow> findBestStartingFrom(LocalDate date, LocalDate priceDate);
+
+    @Query(BEST_DISCOUNT_SELECT + "where d.startDate between :startDate and :endDate order by d.startDate desc")
+    List<BestDiscountRow> findBestStartingBetween(LocalDate startDate, LocalDate endDate, LocalDate priceDate);
 
-    List<Discount> findByStartDateLessThanEqualAndEndDateGreaterThanEqual(LocalDate startDate, LocalDate endDate);
-    List<Discount> findByStartDateGreaterThanEqualOrderByStartDateDesc(LocalDate date);
-    List<Discount> findByStartDateBetweenOrderByStartDateDesc(LocalDate startDate, LocalDate endDate);
     Optional<Discount> findByProductAndStoreAndStartDateLessThanEqualAndEndDateGreaterThanEqual(Product product, Store store, LocalDate startDate, LocalDate endDate);
+    boolean existsByStore(Store store);
 
 }
-
@@ -0,0 +1,7 @@
+package org.example.price_comparator.repository;
+
+import org.example.price_comparator.model.ImportManifest;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ImportManifestRepository extends JpaRepository<ImportManifest, String> {
+}
@@ -3,6 +3,7 @@ package org.example.price_comparator.repository;
 import org.example.price_comparator.model.PriceAlert;
 import org.example.price_comparator.model.Product;
 import org.example.price_comparator.model.Store;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.List;
@@ -10,6 +11,18 @@ import java.util.Optional;
 
 public interface PriceAlertRepository extends JpaRepository<PriceAlert, Long> {
 
+    // Alerts are mapped to DTOs with their product and store, so both are fetched with the alert
+    @Override
+    @EntityGraph(attributePaths = {"product", "store"})
+    List<PriceAlert> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = {"product", "store"})
+    Optional<PriceAlert> findById(Long id);
+
+    @EntityGraph(attributePaths = {"product", "store"})
     List<PriceAlert> findByUserEmail(String userEmail);
+
+    @EntityGraph(attributePaths = {"product", "store"})
     Optional<PriceAlert> findByUserEmailAndProductAndStore(String userEmail, Product product, Store store);
 }
@@ -0,0 +1,27 @@
+package org.example.price_comparator.repository;
+
+import org.example.price_comparator.model.Price;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface PriceBulkRepository {
+
+    int batchInsert(List<Price> prices);
+    int batchUpdate(List<Price> prices);
+    List<ExistingPrice> findExisting(List<Price> prices);
+    List<LatestPrice> findLatestPrices(Collection<String> productIds, LocalDate date);
+    boolean isPartitioned();
+    List<String> findPartitionNames();
+    void createPartition(String name, LocalDate from, LocalDate to);
+    String detachPartition(String name);
+
+    record ExistingPrice(long id, String productId, long storeId, LocalDate date, long priceMinor, int currencyId) {
+    }
+
+    // Latest price of a product in a store on or before a date, with the discount active on that date if any
+    record LatestPrice(String productId, long storeId, String storeName, long priceMinor, int currencyId, LocalDate date,
+                       Integer discountBasisPoints) {
+    }
+}
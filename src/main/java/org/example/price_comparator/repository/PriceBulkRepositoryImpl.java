@@ -0,0 +1,164 @@
+package org.example.price_comparator.repository;
+
+import org.example.price_comparator.model.Price;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.List;
+
+// Plain JDBC batch statements, picked up by Spring Data as a fragment of PriceRepository.
+// With reWriteBatchedInserts the driver turns each batch into multi-row INSERT statements.
+public class PriceBulkRepositoryImpl implements PriceBulkRepository {
+
+    private static final String INSERT_SQL =
+            "insert into prices (id, product_id, store_id, price_minor, currency_id, date) values (?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_SQL =
+            "update prices set price_minor = ?, currency_id = ? where id = ? and date = ?";
+    private static final String SELECT_EXISTING_SQL =
+            "select id, product_id, store_id, date, price_minor, currency_id from prices " +
+            "where product_id = any (?) and store_id = any (?) and date = any (?)";
+    // Every requested product against every store: each lateral subquery is a single probe of
+    // idx_prices_product_store_date or idx_discounts_product_store_dates, so the cost grows with products x stores
+    // index lookups inside one statement instead of one round trip each
+    private static final String SELECT_LATEST_SQL =
+            "select basket.product_id, s.id as store_id, s.name as store_name, p.price_minor, p.currency_id, p.date, " +
+            "d.discount_basis_points " +
+            "from unnest(?::varchar[]) as basket(product_id) cross join stores s " +
+            "join lateral (select pr.price_minor, pr.currency_id, pr.date from prices pr " +
+            "where pr.product_id = basket.product_id and pr.store_id = s.id and pr.date <= ? " +
+            "order by pr.date desc, pr.id desc limit 1) p on true " +
+            "left join lateral (select dc.discount_basis_points from discounts dc " +
+            "where dc.product_id = basket.product_id and dc.store_id = s.id and dc.start_date <= ? and dc.end_date >= ? " +
+            "order by dc.start_date desc limit 1) d on true";
+
+    private static final String IS_PARTITIONED_SQL =
+            "select exists (select 1 from pg_partitioned_table pt join pg_class c on c.oid = pt.partrelid " +
+            "where c.relname = 'prices' and pg_table_is_visible(c.oid))";
+    private static final String PARTITION_NAMES_SQL =
+            "select c.relname from pg_inherits i join pg_class c on c.oid = i.inhrelid " +
+            "join pg_class p on p.oid = i.inhparent where p.relname = 'prices' and pg_table_is_visible(p.oid) order by c.relname";
+
+    private static final DateTimeFormatter DETACHED_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SequenceIdAllocator idAllocator;
+
+    public PriceBulkRepositoryImpl(JdbcTemplate jdbcTemplate, SequenceIdAllocator idAllocator) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idAllocator = idAllocator;
+    }
+
+    @Override
+    public int batchInsert(List<Price> prices) {
+        if (prices.isEmpty()) {
+            return 0;
+        }
+        long[] ids = idAllocator.nextIds("prices_id_seq", prices.size());
+        for (int i = 0; i < ids.length; i++) {
+            prices.get(i).setId(ids[i]);
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, prices, prices.size(), (ps, price) -> {
+            ps.setLong(1, price.getId());
+            ps.setString(2, price.getProduct().getId());
+            ps.setLong(3, price.getStore().getId());
+            ps.setLong(4, price.getPriceMinor());
+            ps.setShort(5, (short) price.getCurrencyId());
+            ps.setDate(6, Date.valueOf(price.getDate()));
+        });
+        return prices.size();
+    }
+
+    @Override
+    public int batchUpdate(List<Price> prices) {
+        if (prices.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(UPDATE_SQL, prices, prices.size(), (ps, price) -> {
+            ps.setLong(1, price.getPriceMinor());
+            ps.setShort(2, (short) price.getCurrencyId());
+            ps.setLong(3, price.getId());
+            ps.setDate(4, Date.valueOf(price.getDate()));
+        });
+        return prices.size();
+    }
+
+    // One round trip for the whole chunk; the caller matches rows on (product, store, date)
+    @Override
+    public List<ExistingPrice> findExisting(List<Price> prices) {
+        if (prices.isEmpty()) {
+            return List.of();
+        }
+        Object[] productIds = prices.stream().map(price -> price.getProduct().getId()).distinct().toArray();
+        Object[] storeIds = prices.stream().map(price -> price.getStore().getId()).distinct().toArray();
+        Object[] dates = prices.stream().map(price -> Date.valueOf(price.getDate())).distinct().toArray();
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SELECT_EXISTING_SQL);
+            ps.setArray(1, connection.createArrayOf("varchar", productIds));
+            ps.setArray(2, connection.createArrayOf("bigint", storeIds));
+            ps.setArray(3, connection.createArrayOf("date", dates));
+            return ps;
+        }, (rs, rowNum) -> new ExistingPrice(
+                rs.getLong("id"),
+                rs.getString("product_id"),
+                rs.getLong("store_id"),
+                rs.getDate("date").toLocalDate(),
+                rs.getLong("price_minor"),
+                rs.getInt("currency_id")));
+    }
+
+    @Override
+    public List<LatestPrice> findLatestPrices(Collection<String> productIds, LocalDate date) {
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        Date sqlDate = Date.valueOf(date);
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SELECT_LATEST_SQL);
+            ps.setArray(1, connection.createArrayOf("varchar", productIds.toArray()));
+            ps.setDate(2, sqlDate);
+            ps.setDate(3, sqlDate);
+            ps.setDate(4, sqlDate);
+            return ps;
+        }, (rs, rowNum) -> new LatestPrice(
+                rs.getString("product_id"),
+                rs.getLong("store_id"),
+                rs.getString("store_name"),
+                rs.getLong("price_minor"),
+                rs.getInt("currency_id"),
+                rs.getDate("date").toLocalDate(),
+                rs.getObject("discount_basis_points", Integer.class)));
+    }
+
+    @Override
+    public boolean isPartitioned() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(IS_PARTITIONED_SQL, Boolean.class));
+    }
+
+    @Override
+    public List<String> findPartitionNames() {
+        return jdbcTemplate.queryForList(PARTITION_NAMES_SQL, String.class);
+    }
+
+    // DDL cannot take bind parameters; the name and bounds come from PricePartitionService, never from input
+    @Override
+    public void createPartition(String name, LocalDate from, LocalDate to) {
+        jdbcTemplate.execute("create table if not exists " + name + " partition of prices " +
+                "for values from ('" + from + "') to ('" + to + "')");
+    }
+
+    // The partition becomes a standalone <name>_detached_<time> table that can be archived or dropped without
+    // touching prices. The rename frees the name in case a late feed for that month needs a new partition, and the
+    // detach time keeps that partition's own detach from colliding with the earlier table.
+    @Override
+    public String detachPartition(String name) {
+        String detachedName = name + "_detached_" + DETACHED_SUFFIX.format(LocalDateTime.now());
+        jdbcTemplate.execute("alter table prices detach partition " + name);
+        jdbcTemplate.execute("alter table " + name + " rename to " + detachedName);
+        return detachedName;
+    }
+}
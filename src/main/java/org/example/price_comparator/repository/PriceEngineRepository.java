@@ -0,0 +1,26 @@
+package org.example.price_comparator.repository;
+
+public interface PriceEngineRepository {
+
+    // Receives every row of the snapshot: all products, then stores by id,
+    // then prices and discounts each sorted by product, store and date
+    interface SnapshotRowHandler {
+        void product(String id, String name, int categoryId, int brandId, double packageQuantity, int unitId);
+        void store(long id, String name);
+        void price(String productId, long storeId, int epochDay, long priceMinor, int currencyId);
+        void discount(String productId, long storeId, int startEpochDay, int endEpochDay, int basisPoints);
+    }
+
+    // The data_version counter (V6 migration), incremented by every transaction that writes prices or discounts
+    // or detaches a partition, so two equal versions mean the same committed rows
+    record DataVersion(long version) {
+    }
+
+    // Returns the data version of the same committed state as the rows
+    DataVersion loadSnapshot(SnapshotRowHandler handler);
+
+    DataVersion currentDataVersion();
+
+    // Must run in the transaction that made the change, so the new version commits together with the rows
+    void incrementDataVersion();
+}
@@ -0,0 +1,75 @@
+package org.example.price_comparator.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+// Streams the tables behind the in-memory price engine. All queries run in one repeatable read transaction,
+// so they see the same committed state, and rows are fetched in batches instead of being buffered by the driver.
+@Repository
+public class PriceEngineRepositoryImpl implements PriceEngineRepository {
+
+    private static final int FETCH_SIZE = 10_000;
+
+    private static final String PRODUCTS_SQL =
+            "select id, product_name, category_id, brand_id, package_quantity, unit_id from products";
+    private static final String STORES_SQL = "select id, name from stores order by id";
+    // Rows of the same date keep their insertion order, so the last one wins like in current_prices
+    private static final String PRICES_SQL =
+            "select product_id, store_id, date, price_minor, currency_id from prices order by product_id, store_id, date, id";
+    private static final String DISCOUNTS_SQL =
+            "select product_id, store_id, start_date, end_date, discount_basis_points from discounts " +
+            "order by product_id, store_id, start_date, id";
+
+    private static final String DATA_VERSION_SQL = "select version from data_version";
+    private static final String INCREMENT_DATA_VERSION_SQL = "update data_version set version = version + 1";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PriceEngineRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    @Override
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public DataVersion loadSnapshot(SnapshotRowHandler handler) {
+        // The first query fixes the transaction's view, so the version matches the rows read after it
+        DataVersion dataVersion = currentDataVersion();
+        jdbcTemplate.query(PRODUCTS_SQL, rs -> {
+            handler.product(rs.getString(1), rs.getString(2), rs.getInt(3), rs.getInt(4), rs.getDouble(5), rs.getInt(6));
+        });
+        jdbcTemplate.query(STORES_SQL, rs -> {
+            handler.store(rs.getLong(1), rs.getString(2));
+        });
+        jdbcTemplate.query(PRICES_SQL, rs -> {
+            handler.price(rs.getString(1), rs.getLong(2), epochDay(rs.getObject(3, LocalDate.class)), rs.getLong(4), rs.getInt(5));
+        });
+        jdbcTemplate.query(DISCOUNTS_SQL, rs -> {
+            handler.discount(rs.getString(1), rs.getLong(2), epochDay(rs.getObject(3, LocalDate.class)),
+                    epochDay(rs.getObject(4, LocalDate.class)), rs.getInt(5));
+        });
+        return dataVersion;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public DataVersion currentDataVersion() {
+        return jdbcTemplate.queryForObject(DATA_VERSION_SQL, (rs, rowNum) -> new DataVersion(rs.getLong(1)));
+    }
+
+    // Takes the row lock until the caller commits, so concurrent writers only wait for each other's commit
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void incrementDataVersion() {
+        jdbcTemplate.update(INCREMENT_DATA_VERSION_SQL);
+    }
+
+    private static int epochDay(LocalDate date) {
+        return (int) date.toEpochDay();
+    }
+}
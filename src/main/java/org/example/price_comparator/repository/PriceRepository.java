@@ -1,22 +1,41 @@
 package org.example.price_comparator.repository;
 
+import org.example.price_comparator.dto.PriceHistoryRow;
 import org.example.price_comparator.model.Price;
 import org.example.price_comparator.model.Product;
 import org.example.price_comparator.model.Store;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.time.LocalDate;
 import java.util.Optional;
 import java.util.List;
 
 
-public interface PriceRepository extends JpaRepository<Price, Long> {
+public interface PriceRepository extends JpaRepository<Price, Long>, PriceBulkRepository {
+
+    // Only the columns of the history, with the discount active on each date joined in the same query
+    String PRICE_HISTORY_SELECT =
+            "select new org.example.price_comparator.dto.PriceHistoryRow(p.date, p.store.id, p.priceMinor, p.currencyId, d.discountBasisPoints) " +
+            "from Price p left join Discount d on d.product = p.product and d.store = p.store " +
+            "and d.startDate <= p.date and d.endDate >= p.date ";
 
     Optional<Price> findTopByProductAndStoreAndDateLessThanEqualOrderByDateDesc(Product product, Store store, LocalDate date);
+
+    @EntityGraph(attributePaths = "store")
     List<Price> findByProductAndDateLessThanEqualOrderByDateDesc(Product product, LocalDate date);
-    List<Price> findByProductAndDateBetweenOrderByDateAsc(Product product, LocalDate startDate, LocalDate endDate);
-    List<Price> findByProductAndStoreAndDateBetweenOrderByDateAsc(Product product, Store store, LocalDate startDate, LocalDate endDate);
+
+    @Query(PRICE_HISTORY_SELECT + "where p.product = :product and p.date between :startDate and :endDate order by p.date")
+    List<PriceHistoryRow> findHistoryByProduct(Product product, LocalDate startDate, LocalDate endDate);
+
+    @Query(PRICE_HISTORY_SELECT + "where p.product = :product and p.store = :store and p.date between :startDate and :endDate order by p.date")
+    List<PriceHistoryRow> findHistoryByProductAndStore(Product product, Store store, LocalDate startDate, LocalDate endDate);
+
     Optional<Price> findTopByProductAndStoreOrderByDateDesc(Product product, Store store);
+
+    @EntityGraph(attributePaths = "store")
     List<Price> findByProductOrderByDateDesc(Product product);
-}
 
+    boolean existsByStoreAndDate(Store store, LocalDate date);
+}
@@ -0,0 +1,10 @@
+package org.example.price_comparator.repository;
+
+import org.example.price_comparator.model.Product;
+
+import java.util.List;
+
+public interface ProductBulkRepository {
+
+    int insertMissing(List<Product> products);
+}
@@ -0,0 +1,47 @@
+package org.example.price_comparator.repository;
+
+import org.example.price_comparator.model.Product;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+
+// Plain JDBC bulk insert, picked up by Spring Data as a fragment of ProductRepository.
+public class ProductBulkRepositoryImpl implements ProductBulkRepository {
+
+    // The whole chunk is sent as column arrays in one statement; ids that already exist, including ones
+    // inserted concurrently by another import, are skipped instead of failing on pk_products
+    private static final String INSERT_MISSING_SQL =
+            "insert into products (id, product_name, category_id, brand_id, package_quantity, unit_id) " +
+            "select * from unnest(?, ?, ?, ?, ?, ?) " +
+            "on conflict (id) do nothing";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProductBulkRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public int insertMissing(List<Product> products) {
+        if (products.isEmpty()) {
+            return 0;
+        }
+        Object[] ids = products.stream().map(Product::getId).toArray();
+        Object[] names = products.stream().map(Product::getProductName).toArray();
+        Object[] categories = products.stream().map(Product::getCategoryId).toArray();
+        Object[] brands = products.stream().map(Product::getBrandId).toArray();
+        Object[] quantities = products.stream().map(Product::getPackageQuantity).toArray();
+        Object[] units = products.stream().map(Product::getUnitId).toArray();
+        return jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_MISSING_SQL);
+            ps.setArray(1, connection.createArrayOf("varchar", ids));
+            ps.setArray(2, connection.createArrayOf("varchar", names));
+            ps.setArray(3, connection.createArrayOf("int4", categories));
+            ps.setArray(4, connection.createArrayOf("int4", brands));
+            ps.setArray(5, connection.createArrayOf("float8", quantities));
+            ps.setArray(6, connection.createArrayOf("int2", units));
+            return ps;
+        });
+    }
+}
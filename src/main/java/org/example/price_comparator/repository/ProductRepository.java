@@ -1,13 +1,29 @@
 package org.example.price_comparator.repository;
 
+import jakarta.persistence.QueryHint;
 import org.example.price_comparator.model.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.util.Collection;
 import java.util.List;
 
-public interface ProductRepository extends JpaRepository<Product, String> {
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
 
-    List<Product> findByProductCategoryIgnoreCase(String category);
-    List<Product> findByProductCategoryAndProductNameContainingIgnoreCase(String category, String productName);
-    List<Product> findByBrandIgnoreCase(String brand);
+public interface ProductRepository extends JpaRepository<Product, String>, ProductBulkRepository {
+
+    // Case-insensitive names are resolved to keys by DictionaryService, so these compare integers.
+    // Query cache; cleared by DimensionCacheService when an import adds products
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Product> findByCategoryIdIn(Collection<Integer> categoryIds);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Product> findByCategoryIdAndProductNameContainingIgnoreCase(int categoryId, String productName);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Product> findByBrandIdIn(Collection<Integer> brandIds);
+
+    @Query("select p.id from Product p")
+    List<String> findAllIds();
 }
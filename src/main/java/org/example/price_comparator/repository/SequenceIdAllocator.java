@@ -0,0 +1,37 @@
+package org.example.price_comparator.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Reserves ids for the JDBC bulk writers the way Hibernate's pooled-lo optimizer does for entities:
+// every nextval of an id sequence reserves the block value .. value + BLOCK_SIZE - 1,
+// so a chunk of any size costs one round trip and never collides with ids handed out by JPA.
+@Component
+public class SequenceIdAllocator {
+
+    // Must match the sequence increments (V3 migration) and the allocationSize of the entities
+    public static final int BLOCK_SIZE = 50;
+
+    private static final String NEXT_BLOCKS_SQL = "select nextval(?::regclass) from generate_series(1, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SequenceIdAllocator(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public long[] nextIds(String sequence, int count) {
+        long[] ids = new long[count];
+        if (count == 0) {
+            return ids;
+        }
+        int blocks = (count + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        List<Long> blockStarts = jdbcTemplate.queryForList(NEXT_BLOCKS_SQL, Long.class, sequence, blocks);
+        for (int i = 0; i < count; i++) {
+            ids[i] = blockStarts.get(i / BLOCK_SIZE) + i % BLOCK_SIZE;
+        }
+        return ids;
+    }
+}
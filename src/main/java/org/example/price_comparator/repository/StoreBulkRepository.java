@@ -0,0 +1,11 @@
+package org.example.price_comparator.repository;
+
+import org.example.price_comparator.model.Store;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface StoreBulkRepository {
+
+    List<Store> findOrCreateByNames(Collection<String> names);
+}
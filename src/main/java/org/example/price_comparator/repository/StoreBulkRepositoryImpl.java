@@ -0,0 +1,44 @@
+package org.example.price_comparator.repository;
+
+import org.example.price_comparator.model.Store;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.List;
+
+// Plain JDBC bulk upsert, picked up by Spring Data as a fragment of StoreRepository.
+public class StoreBulkRepositoryImpl implements StoreBulkRepository {
+
+    private static final String INSERT_MISSING_SQL =
+            "insert into stores (name) select unnest(?) on conflict (name) do nothing";
+
+    private static final String SELECT_SQL =
+            "select id, name from stores where name = any (?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public StoreBulkRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Two statements rather than insert ... returning: rows skipped by the conflict clause are not returned,
+    // and the separate select also sees stores committed by a concurrent import after the insert started
+    @Override
+    public List<Store> findOrCreateByNames(Collection<String> names) {
+        if (names.isEmpty()) {
+            return List.of();
+        }
+        Object[] nameArray = names.stream().distinct().toArray();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_MISSING_SQL);
+            ps.setArray(1, connection.createArrayOf("varchar", nameArray));
+            return ps;
+        });
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SELECT_SQL);
+            ps.setArray(1, connection.createArrayOf("varchar", nameArray));
+            return ps;
+        }, (rs, rowNum) -> new Store(rs.getLong("id"), rs.getString("name")));
+    }
+}
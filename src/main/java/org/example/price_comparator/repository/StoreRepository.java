@@ -1,11 +1,18 @@
 package org.example.price_comparator.repository;
 
 import org.example.price_comparator.model.Store;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
 import java.util.Optional;
 
-public interface StoreRepository extends JpaRepository<Store, Long> {
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+
+public interface StoreRepository extends JpaRepository<Store, Long>, StoreBulkRepository {
 
+    // Query cache; cleared by DimensionCacheService when an import adds stores
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<Store> findByName(String name);
 }
 
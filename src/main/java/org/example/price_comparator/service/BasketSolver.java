@@ -0,0 +1,326 @@
+package org.example.price_comparator.service;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+
+// Chooses at most maxStores stores and the store each basket item is bought in, minimizing the cost of the items
+// plus a fixed cost per visited store. Every item has to be bought, so only store sets that carry all items qualify.
+// A greedy pick improved by adding, dropping and swapping stores gives the first plan; branch and bound over the
+// stores then either proves it optimal or finds a better one. Greedy only stops at the deadline once its stores
+// carry every item, the later phases stop at it regardless, and a search cut short returns the best plan found so
+// far, marked as not optimal.
+// Costs are per item line (price times quantity) in minor units, indexed [store][item].
+public final class BasketSolver {
+
+    public static final long UNAVAILABLE = Long.MAX_VALUE;
+
+    private static final int DEADLINE_CHECK_INTERVAL = 1024;
+
+    // The store index each item is bought in, the stores visited and the two parts of the cost
+    public record Solution(int[] storeOfItem, int[] stores, long itemsCost, long visitsCost, boolean optimal) {
+
+        public long totalCost() {
+            return itemsCost + visitsCost;
+        }
+    }
+
+    private final long[][] costs;
+    private final int storeCount;
+    private final int itemCount;
+    private final long visitCost;
+    private final int maxStores;
+
+    private long deadline;
+    private boolean timedOut;
+    private long nodes;
+
+    // Best plan so far: its stores and total cost
+    private int[] bestStores;
+    private long bestTotal = UNAVAILABLE;
+
+    // Set by evaluate()
+    private int uncovered;
+    private long evaluatedCost;
+
+    public BasketSolver(long[][] costs, int itemCount, long visitCost, int maxStores) {
+        if (maxStores < 1) {
+            throw new IllegalArgumentException("maxStores must be at least 1");
+        }
+        if (visitCost < 0) {
+            throw new IllegalArgumentException("visitCost must not be negative");
+        }
+        this.costs = costs;
+        this.storeCount = costs.length;
+        this.itemCount = itemCount;
+        this.visitCost = visitCost;
+        this.maxStores = Math.min(maxStores, costs.length);
+    }
+
+    // Empty when no set of at most maxStores stores carries every item. If timedOut() then holds, none was found
+    // before the deadline, which does not mean there is none.
+    public Optional<Solution> solve(Duration timeLimit) {
+        deadline = System.nanoTime() + timeLimit.toNanos();
+        if (itemCount == 0) {
+            return Optional.of(new Solution(new int[0], new int[0], 0, 0, true));
+        }
+        int[] heuristic = localSearch(greedy());
+        if (uncovered == 0) {
+            record(heuristic, evaluatedCost + visitCost * heuristic.length);
+        }
+        if (!timedOut) {
+            branchAndBound(heuristic);
+        }
+        return bestStores == null ? Optional.empty() : Optional.of(toSolution(bestStores, !timedOut));
+    }
+
+    public long nodesExplored() {
+        return nodes;
+    }
+
+    public boolean timedOut() {
+        return timedOut;
+    }
+
+    // Adds the store that improves the plan most until no store does or maxStores is reached. At most maxStores
+    // rounds, so it may run past the deadline while items are uncovered, leaving a plan to return where there is one.
+    private int[] greedy() {
+        int[] stores = new int[0];
+        int bestUncovered = itemCount;
+        long bestCost = 0;
+        while (stores.length < maxStores && (bestUncovered > 0 || !pastDeadline())) {
+            int bestStore = -1;
+            int[] candidate = Arrays.copyOf(stores, stores.length + 1);
+            for (int store = 0; store < storeCount; store++) {
+                if (contains(stores, store)) {
+                    continue;
+                }
+                candidate[stores.length] = store;
+                evaluate(candidate);
+                long cost = evaluatedCost + visitCost * candidate.length;
+                if (better(uncovered, cost, bestUncovered, bestCost)) {
+                    bestStore = store;
+                    bestUncovered = uncovered;
+                    bestCost = cost;
+                }
+            }
+            if (bestStore < 0) {
+                break;
+            }
+            candidate[stores.length] = bestStore;
+            stores = candidate;
+        }
+        return stores;
+    }
+
+    // First improvement over dropping, adding and swapping one store; leaves the result evaluated
+    private int[] localSearch(int[] start) {
+        int[] stores = start;
+        evaluate(stores);
+        int currentUncovered = uncovered;
+        long currentCost = evaluatedCost + visitCost * stores.length;
+        boolean improved = true;
+        while (improved && !pastDeadline()) {
+            improved = false;
+            for (int[] neighbour : neighbours(stores)) {
+                if (pastDeadline()) {
+                    break;
+                }
+                evaluate(neighbour);
+                long cost = evaluatedCost + visitCost * neighbour.length;
+                if (better(uncovered, cost, currentUncovered, currentCost)) {
+                    stores = neighbour;
+                    currentUncovered = uncovered;
+                    currentCost = cost;
+                    improved = true;
+                    break;
+                }
+            }
+        }
+        evaluate(stores);
+        return stores;
+    }
+
+    private int[][] neighbours(int[] stores) {
+        int outside = storeCount - stores.length;
+        int[][] neighbours = new int[stores.length + (stores.length < maxStores ? outside : 0) + stores.length * outside][];
+        int next = 0;
+        for (int i = 0; i < stores.length; i++) {
+            int[] dropped = new int[stores.length - 1];
+            System.arraycopy(stores, 0, dropped, 0, i);
+            System.arraycopy(stores, i + 1, dropped, i, stores.length - i - 1);
+            neighbours[next++] = dropped;
+        }
+        for (int store = 0; store < storeCount; store++) {
+            if (contains(stores, store)) {
+                continue;
+            }
+            if (stores.length < maxStores) {
+                int[] added = Arrays.copyOf(stores, stores.length + 1);
+                added[stores.length] = store;
+                neighbours[next++] = added;
+            }
+            for (int i = 0; i < stores.length; i++) {
+                int[] swapped = stores.clone();
+                swapped[i] = store;
+                neighbours[next++] = swapped;
+            }
+        }
+        return neighbours;
+    }
+
+    // Stores are tried best first: those of the heuristic plan, then by how many items they sell cheapest.
+    // suffixMin[t][item] is the cheapest cost of the item among the stores from position t on, so the cost of any
+    // plan extending the current stores with stores from t on is at least the sum of the cheaper of the two per item.
+    private void branchAndBound(int[] heuristic) {
+        int[] order = storeOrder(heuristic);
+        long[][] suffixMin = new long[storeCount + 1][itemCount];
+        Arrays.fill(suffixMin[storeCount], UNAVAILABLE);
+        for (int t = storeCount - 1; t >= 0; t--) {
+            long[] storeCosts = costs[order[t]];
+            for (int item = 0; item < itemCount; item++) {
+                suffixMin[t][item] = Math.min(storeCosts[item], suffixMin[t + 1][item]);
+            }
+        }
+        long[][] current = new long[maxStores + 1][itemCount];
+        Arrays.fill(current[0], UNAVAILABLE);
+        search(order, suffixMin, current, new int[maxStores], 0, 0);
+    }
+
+    private void search(int[] order, long[][] suffixMin, long[][] current, int[] chosen, int from, int count) {
+        if (count == maxStores) {
+            return;
+        }
+        long[] itemCosts = current[count];
+        long[] nextCosts = current[count + 1];
+        for (int t = from; t < storeCount; t++) {
+            if (++nodes % DEADLINE_CHECK_INTERVAL == 0 && pastDeadline()) {
+                return;
+            }
+            // Later positions only see fewer stores, so once the bound fails it fails for every later t
+            long bound = lowerBound(itemCosts, suffixMin[t], visitCost * (count + 1));
+            if (bound >= bestTotal) {
+                return;
+            }
+            long[] storeCosts = costs[order[t]];
+            long total = visitCost * (count + 1);
+            for (int item = 0; item < itemCount; item++) {
+                long cost = Math.min(itemCosts[item], storeCosts[item]);
+                nextCosts[item] = cost;
+                total = cost == UNAVAILABLE || total == UNAVAILABLE ? UNAVAILABLE : total + cost;
+            }
+            chosen[count] = order[t];
+            if (total < bestTotal) {
+                record(Arrays.copyOf(chosen, count + 1), total);
+            }
+            search(order, suffixMin, current, chosen, t + 1, count + 1);
+            if (timedOut) {
+                return;
+            }
+        }
+    }
+
+    private long lowerBound(long[] itemCosts, long[] remainingMin, long visits) {
+        long bound = visits;
+        for (int item = 0; item < itemCount; item++) {
+            long cost = Math.min(itemCosts[item], remainingMin[item]);
+            if (cost == UNAVAILABLE) {
+                return UNAVAILABLE;
+            }
+            bound += cost;
+        }
+        return bound;
+    }
+
+    private int[] storeOrder(int[] heuristic) {
+        int[] cheapestFor = new int[storeCount];
+        for (int item = 0; item < itemCount; item++) {
+            int cheapest = -1;
+            for (int store = 0; store < storeCount; store++) {
+                if (costs[store][item] != UNAVAILABLE && (cheapest < 0 || costs[store][item] < costs[cheapest][item])) {
+                    cheapest = store;
+                }
+            }
+            if (cheapest >= 0) {
+                cheapestFor[cheapest]++;
+            }
+        }
+        Integer[] order = new Integer[storeCount];
+        for (int store = 0; store < storeCount; store++) {
+            order[store] = store;
+        }
+        Arrays.sort(order, (a, b) -> {
+            boolean inA = contains(heuristic, a);
+            boolean inB = contains(heuristic, b);
+            if (inA != inB) {
+                return inA ? -1 : 1;
+            }
+            return Integer.compare(cheapestFor[b], cheapestFor[a]);
+        });
+        return Arrays.stream(order).mapToInt(Integer::intValue).toArray();
+    }
+
+    // Items the stores cannot supply go to uncovered, the rest are summed into evaluatedCost
+    private void evaluate(int[] stores) {
+        uncovered = 0;
+        evaluatedCost = 0;
+        for (int item = 0; item < itemCount; item++) {
+            long cheapest = UNAVAILABLE;
+            for (int store : stores) {
+                cheapest = Math.min(cheapest, costs[store][item]);
+            }
+            if (cheapest == UNAVAILABLE) {
+                uncovered++;
+            } else {
+                evaluatedCost += cheapest;
+            }
+        }
+    }
+
+    private void record(int[] stores, long total) {
+        if (total < bestTotal) {
+            bestStores = stores;
+            bestTotal = total;
+        }
+    }
+
+    // Each item goes to its cheapest chosen store; stores left without items are not visited
+    private Solution toSolution(int[] stores, boolean optimal) {
+        int[] storeOfItem = new int[itemCount];
+        boolean[] used = new boolean[storeCount];
+        long itemsCost = 0;
+        for (int item = 0; item < itemCount; item++) {
+            int cheapest = stores[0];
+            for (int store : stores) {
+                if (costs[store][item] < costs[cheapest][item]) {
+                    cheapest = store;
+                }
+            }
+            storeOfItem[item] = cheapest;
+            used[cheapest] = true;
+            itemsCost += costs[cheapest][item];
+        }
+        int[] visited = Arrays.stream(stores).filter(store -> used[store]).sorted().toArray();
+        return new Solution(storeOfItem, visited, itemsCost, visitCost * visited.length, optimal);
+    }
+
+    private boolean pastDeadline() {
+        if (!timedOut && System.nanoTime() - deadline > 0) {
+            timedOut = true;
+        }
+        return timedOut;
+    }
+
+    private static boolean better(int uncovered, long cost, int otherUncovered, long otherCost) {
+        return uncovered < otherUncovered || (uncovered == otherUncovered && cost < otherCost);
+    }
+
+    private static boolean contains(int[] stores, int store) {
+        for (int candidate : stores) {
+            if (candidate == store) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,156 @@
+package org.example.price_comparator.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.price_comparator.exceptions.CsvFolderNotFoundException;
+import org.example.price_comparator.util.CsvFileParser;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Watches the ingestion directory and imports feeds as soon as they are fully written.
+// A file is considered complete once it has produced no events and kept the same size for the debounce period.
+// Imports are submitted as background jobs, so they show up in the jobs API and the watcher keeps draining events.
+@Component
+@Slf4j
+public class CsvFolderWatcher {
+
+    private final ImportJobService importJobService;
+
+    @Value("${csv.watch.enabled:false}")
+    private boolean enabled;
+
+    @Value("${csv.watch.directory:csv_files}")
+    private String directory;
+
+    @Value("${csv.watch.debounce-ms:2000}")
+    private long debounceMillis;
+
+    @Value("${csv.watch.import-existing:true}")
+    private boolean importExisting;
+
+    private final Map<Path, PendingFile> pendingFiles = new HashMap<>();
+    private WatchService watchService;
+    private Thread watcherThread;
+
+    public CsvFolderWatcher(ImportJobService importJobService) {
+        this.importJobService = importJobService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        Path folder = Path.of(directory).toAbsolutePath();
+        if (!Files.isDirectory(folder)) {
+            throw new CsvFolderNotFoundException("CSV watch directory does not exist: " + folder);
+        }
+        try {
+            watchService = folder.getFileSystem().newWatchService();
+            folder.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            throw new CsvFolderNotFoundException("Cannot watch CSV directory: " + folder, e);
+        }
+        if (importExisting) {
+            // Files that arrived while the application was down; unchanged ones are skipped by the import manifest
+            try (Stream<Path> files = Files.list(folder)) {
+                files.filter(this::isFeedFile).sorted().forEach(this::submitImport);
+            } catch (IOException e) {
+                log.error("Error listing CSV watch directory: {}", folder, e);
+            }
+        }
+        watcherThread = Thread.ofVirtual().name("csv-watcher").start(() -> watch(folder));
+        log.info("Watching {} for new CSV files", folder);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (watcherThread != null) {
+            watcherThread.interrupt();
+        }
+        try {
+            if (watchService != null) {
+                watchService.close();
+            }
+        } catch (IOException e) {
+            log.warn("Error closing CSV watch service", e);
+        }
+    }
+
+    private void watch(Path folder) {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            continue;
+                        }
+                        Path file = folder.resolve((Path) event.context());
+                        if (isFeedFile(file)) {
+                            pendingFiles.put(file, new PendingFile(System.currentTimeMillis(), sizeOf(file)));
+                        }
+                    }
+                    key.reset();
+                }
+                submitSettledFiles();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void submitSettledFiles() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<Path, PendingFile>> iterator = pendingFiles.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Path, PendingFile> entry = iterator.next();
+            PendingFile pending = entry.getValue();
+            if (now - pending.lastEventMillis() < debounceMillis) {
+                continue;
+            }
+            long size = sizeOf(entry.getKey());
+            if (size < 0) {
+                // Deleted or renamed before it settled
+                iterator.remove();
+            } else if (size != pending.size()) {
+                // Still being written without producing events (e.g. network mounts)
+                entry.setValue(new PendingFile(now, size));
+            } else {
+                iterator.remove();
+                submitImport(entry.getKey());
+            }
+        }
+    }
+
+    private void submitImport(Path file) {
+        importJobService.startImport(file);
+    }
+
+    // Hidden and temporary files are ignored so writers can upload under a temp name and rename
+    private boolean isFeedFile(Path file) {
+        String name = file.getFileName().toString();
+        return !name.startsWith(".") && CsvFileParser.isFeedFile(name) && Files.isRegularFile(file);
+    }
+
+    private long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private record PendingFile(long lastEventMillis, long size) {
+    }
+}
@@ -3,10 +3,17 @@ package org.example.price_comparator.service;
 import org.example.price_comparator.exceptions.CsvFolderNotFoundException;
 import org.example.price_comparator.exceptions.CsvProcessingException;
 
+import java.io.InputStream;
+import java.nio.file.Path;
+
 public interface CsvService {
 
     void processAllCsvFiles() throws CsvFolderNotFoundException, CsvProcessingException;
+    void processAllCsvFiles(ImportProgress progress) throws CsvFolderNotFoundException, CsvProcessingException;
     void processCsvFile(String fileName) throws CsvProcessingException;
+    void processCsvFile(String fileName, ImportProgress progress) throws CsvProcessingException;
+    void processCsvFile(Path file, ImportProgress progress) throws CsvProcessingException;
+    void processCsvStream(String fileName, InputStream in, ImportProgress progress) throws CsvProcessingException;
 }
 
 
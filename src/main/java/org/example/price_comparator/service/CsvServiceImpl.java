@@ -1,65 +1,138 @@
 package org.example.price_comparator.service;
 
-import com.opencsv.bean.CsvToBean;
-import com.opencsv.bean.CsvToBeanBuilder;
 import lombok.extern.slf4j.Slf4j;
-import org.example.price_comparator.dto.DiscountCsvDto;
-import org.example.price_comparator.dto.PriceCsvDto;
+import org.example.price_comparator.dto.DiscountFeedRecord;
+import org.example.price_comparator.dto.PriceFeedRecord;
 import org.example.price_comparator.exceptions.CsvFolderNotFoundException;
 import org.example.price_comparator.exceptions.CsvProcessingException;
+import org.example.price_comparator.exceptions.ImportCancelledException;
+import org.example.price_comparator.exceptions.InvalidFeedFileNameException;
 import org.example.price_comparator.model.Discount;
+import org.example.price_comparator.model.ImportManifest;
 import org.example.price_comparator.model.Price;
 import org.example.price_comparator.model.Product;
 import org.example.price_comparator.model.Store;
 import org.example.price_comparator.repository.DiscountRepository;
+import org.example.price_comparator.repository.ImportManifestRepository;
 import org.example.price_comparator.repository.PriceRepository;
-import org.example.price_comparator.repository.ProductRepository;
-import org.example.price_comparator.repository.StoreRepository;
 import org.example.price_comparator.util.CsvFileParser;
+import org.example.price_comparator.util.FeedInputStreams;
+import org.example.price_comparator.util.MappedCsvFeedReader;
+import org.example.price_comparator.util.Money;
+import org.example.price_comparator.util.OpenCsvFeedReader;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.core.io.support.ResourcePatternResolver;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 @Service
 @Slf4j
 public class CsvServiceImpl implements CsvService {
 
-    private final ProductRepository productRepository;
-    private final StoreRepository storeRepository;
+    private final DimensionResolver dimensionResolver;
+    private final IngestionWriter ingestionWriter;
+    private final ImportManifestRepository importManifestRepository;
     private final PriceRepository priceRepository;
     private final DiscountRepository discountRepository;
+    private final IngestionPipelineMetrics pipelineMetrics;
+    private final PricePartitionService pricePartitionService;
+    private final DictionaryService dictionaryService;
+    // Uploads run next to the job queue, so two imports of the same feed could otherwise both decide it is new
+    // and insert its rows twice; a feed is imported by one caller at a time
+    private final Lock[] feedLocks = new Lock[64];
 
-    @Value("${csv.folder.path:csv_files}")
-    private String csvFolderPath;
+    // Spring resource location of the feeds, e.g. classpath:csv_files or file:/app/csv_files
+    @Value("${csv.folder.location:classpath:${csv.folder.path:csv_files}}")
+    private String csvFolderLocation;
 
-    public CsvServiceImpl(ProductRepository productRepository, StoreRepository storeRepository, PriceRepository priceRepository, DiscountRepository discountRepository) {
-        this.productRepository = productRepository;
-        this.storeRepository = storeRepository;
+    @Value("${csv.import.price-chunk-size:5000}")
+    private int priceChunkSize;
+
+    @Value("${csv.import.discount-chunk-size:5000}")
+    private int discountChunkSize;
+
+    @Value("${csv.parser:opencsv}")
+    private String csvParser;
+
+    @Value("${csv.import.parallel:false}")
+    private boolean parallelImport;
+
+    // Chunks that may wait between two pipeline stages
+    @Value("${csv.import.pipeline.queue-capacity:4}")
+    private int pipelineQueueCapacity;
+
+    @Value("${csv.import.pipeline.writer-threads:2}")
+    private int pipelineWriterThreads;
+
+    public CsvServiceImpl(DimensionResolver dimensionResolver, IngestionWriter ingestionWriter,
+                          ImportManifestRepository importManifestRepository, PriceRepository priceRepository,
+                          DiscountRepository discountRepository, IngestionPipelineMetrics pipelineMetrics,
+                          PricePartitionService pricePartitionService, DictionaryService dictionaryService) {
+        this.dimensionResolver = dimensionResolver;
+        this.ingestionWriter = ingestionWriter;
+        this.importManifestRepository = importManifestRepository;
         this.priceRepository = priceRepository;
         this.discountRepository = discountRepository;
+        this.pipelineMetrics = pipelineMetrics;
+        this.pricePartitionService = pricePartitionService;
+        this.dictionaryService = dictionaryService;
+        for (int i = 0; i < feedLocks.length; i++) {
+            feedLocks[i] = new ReentrantLock();
+        }
     }
 
     @Override
     public void processAllCsvFiles() throws CsvFolderNotFoundException, CsvProcessingException {
+        processAllCsvFiles(new ImportProgress());
+    }
+
+    @Override
+    public void processAllCsvFiles(ImportProgress progress) throws CsvFolderNotFoundException, CsvProcessingException {
         try {
             // Uses ResourcePatternResolver to find the CSV files and avoid using File because of how JARs are packaged
             ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
-            Resource[] resources = resolver.getResources("classpath:" + csvFolderPath + "/*.csv");
-            if (resources.length == 0) {
-                log.warn("No CSV files found in directory: {}", csvFolderPath);
+            List<Resource> files = new ArrayList<>();
+            for (String extension : CsvFileParser.FEED_EXTENSIONS) {
+                for (Resource resource : resolver.getResources(csvFolderLocation + "/*" + extension)) {
+                    if (resource.getFilename() != null) {
+                        files.add(resource);
+                    }
+                }
+            }
+            if (files.isEmpty()) {
+                log.warn("No CSV files found in directory: {}", csvFolderLocation);
                 return;
             }
-            for (Resource resource : resources) {
-                String fileName = resource.getFilename();
-                if (fileName != null) {
-                    processCsvFile(fileName);
+            dimensionResolver.preload();
+            progress.addFiles(files.size());
+            if (parallelImport) {
+                importFilesInParallel(files, progress);
+            } else {
+                for (Resource file : files) {
+                    importFile(file, progress);
                 }
             }
         } catch (IOException e) {
@@ -67,103 +140,401 @@ public class CsvServiceImpl implements CsvService {
         }
     }
 
+    // Files are independent, so each one runs on its own virtual thread with its own chunk transactions.
+    // A failing file does not stop the others; the failures are reported together at the end.
+    private void importFilesInParallel(List<Resource> files, ImportProgress progress) throws CsvProcessingException {
+        Map<String, Future<?>> futures = new LinkedHashMap<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Resource file : files) {
+                futures.put(file.getFilename(), executor.submit(() -> importFile(file, progress)));
+            }
+        }
+        List<String> failedFiles = new ArrayList<>();
+        for (Map.Entry<String, Future<?>> entry : futures.entrySet()) {
+            try {
+                entry.getValue().get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof ImportCancelledException) {
+                    continue;
+                }
+                log.error("Error importing CSV file: {}", entry.getKey(), e.getCause());
+                progress.error(entry.getKey() + ": " + e.getCause().getMessage());
+                failedFiles.add(entry.getKey());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CsvProcessingException("Interrupted while importing CSV files", e);
+            }
+        }
+        progress.checkCancelled();
+        if (!failedFiles.isEmpty()) {
+            throw new CsvProcessingException("Failed to import " + failedFiles.size() + " of " + files.size()
+                    + " CSV files: " + String.join(", ", failedFiles));
+        }
+    }
+
     @Override
     public void processCsvFile(String fileName) throws CsvProcessingException {
-        Resource resource = new ClassPathResource(csvFolderPath + "/" + fileName);
-        if (!resource.exists()) {
-            throw new CsvProcessingException("CSV file not found: " + fileName);
+        processCsvFile(fileName, new ImportProgress());
+    }
+
+    @Override
+    public void processCsvFile(String fileName, ImportProgress progress) throws CsvProcessingException {
+        if (!CsvFileParser.isValidFeedFileName(fileName)) {
+            throw new InvalidFeedFileNameException("Invalid feed file name: " + fileName);
         }
+        Resource resource = new PathMatchingResourcePatternResolver().getResource(csvFolderLocation + "/" + fileName);
+        progress.addFiles(1);
+        dimensionResolver.preload();
+        importFile(resource, progress);
+    }
+
+    @Override
+    public void processCsvFile(Path file, ImportProgress progress) throws CsvProcessingException {
+        progress.addFiles(1);
+        dimensionResolver.preload();
+        importFile(new FileSystemResource(file), progress);
+    }
+
+    // Uploaded feeds are parsed straight from the request stream; nothing is buffered beyond the current chunk.
+    // The checksum is computed while the bytes stream through, so a later folder import of the same file is skipped.
+    @Override
+    public void processCsvStream(String fileName, InputStream in, ImportProgress progress) throws CsvProcessingException {
+        progress.addFiles(1);
+        dimensionResolver.preload();
+        Lock feedLock = feedLock(fileName);
+        feedLock.lock();
+        try {
+            importStream(fileName, in, progress);
+        } finally {
+            feedLock.unlock();
+        }
+    }
+
+    private void importStream(String fileName, InputStream in, ImportProgress progress) throws CsvProcessingException {
+        progress.checkCancelled();
+        boolean previouslyImported = importManifestRepository.existsById(fileName);
+        FingerprintingInputStream fingerprinted = new FingerprintingInputStream(in);
+        long startNanos = System.nanoTime();
+        int rows;
+        try (Reader reader = new BufferedReader(new InputStreamReader(
+                FeedInputStreams.open(fingerprinted, fileName), StandardCharsets.UTF_8))) {
+            rows = importRows(fileName, previouslyImported, progress,
+                    sink -> OpenCsvFeedReader.readPrices(reader, sink),
+                    sink -> OpenCsvFeedReader.readDiscounts(reader, sink));
+            // Trailing bytes after the end of a compressed stream still belong to the file checksum
+            fingerprinted.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException e) {
+            throw new CsvProcessingException("Error reading uploaded CSV file", e);
+        }
+        FileFingerprint fingerprint = fingerprinted.fingerprint();
+        importManifestRepository.save(new ImportManifest(fileName, fingerprint.size(), fingerprint.checksum(), rows, LocalDateTime.now()));
+        progress.fileDone();
+        logThroughput(fileName, rows, System.nanoTime() - startNanos);
+    }
+
+    private void importFile(Resource resource, ImportProgress progress) throws CsvProcessingException {
+        String fileName = resource.getFilename();
+        if (fileName == null || !resource.exists()) {
+            throw new CsvProcessingException("CSV file not found: " + resource.getDescription());
+        }
+        Lock feedLock = feedLock(fileName);
+        feedLock.lock();
+        try {
+            importFile(resource, fileName, progress);
+        } finally {
+            feedLock.unlock();
+        }
+    }
+
+    // Checked for the manifest entry only once the feed's lock is held, so a concurrent import of the same bytes
+    // is skipped rather than repeated
+    private void importFile(Resource resource, String fileName, ImportProgress progress) throws CsvProcessingException {
+        progress.checkCancelled();
+        FileFingerprint fingerprint = fingerprint(resource);
+        Optional<ImportManifest> previousImport = importManifestRepository.findById(fileName);
+        if (previousImport.isPresent() && fingerprint.matches(previousImport.get())) {
+            log.info("Skipping unchanged CSV file: {}", fileName);
+            progress.fileDone();
+            return;
+        }
+        long startNanos = System.nanoTime();
+        int rows = importRows(fileName, previousImport.isPresent(), progress,
+                sink -> readPriceRecords(resource, sink),
+                sink -> readDiscountRecords(resource, sink));
+        importManifestRepository.save(new ImportManifest(fileName, fingerprint.size(), fingerprint.checksum(), rows, LocalDateTime.now()));
+        progress.fileDone();
+        logThroughput(fileName, rows, System.nanoTime() - startNanos);
+    }
+
+    private Lock feedLock(String fileName) {
+        return feedLocks[Math.floorMod(fileName.hashCode(), feedLocks.length)];
+    }
+
+    // Store and date come from the file name; only the reader for the matching feed type is used
+    private int importRows(String fileName, boolean previouslyImported, ImportProgress progress,
+                           RecordReader<PriceFeedRecord> priceRecords,
+                           RecordReader<DiscountFeedRecord> discountRecords) throws CsvProcessingException {
         String storeName = CsvFileParser.extractStoreName(fileName);
         LocalDate fileDate = CsvFileParser.extractDate(fileName);
         boolean isDiscount = CsvFileParser.isDiscountFile(fileName);
-        // Get or create store
-        Store store = storeRepository.findByName(storeName)
-                .orElseGet(() -> {
-                    Store newStore = new Store();
-                    newStore.setName(storeName);
-                    return storeRepository.save(newStore);
-                });
+        Store store = dimensionResolver.resolveStore(storeName);
+        // Rows only need to be diffed when this feed may overlap data that is already stored
+        boolean merge = previouslyImported || (isDiscount
+                ? discountRepository.existsByStore(store)
+                : priceRepository.existsByStoreAndDate(store, fileDate));
         if (isDiscount) {
-            processDiscountFile(resource, store);
-        } else {
-            processPriceFile(resource, store, fileDate);
+            return processDiscountFile(discountRecords, store, merge, progress);
         }
+        pricePartitionService.ensurePartitionFor(fileDate);
+        return processPriceFile(priceRecords, store, fileDate, merge, progress);
     }
 
-    private void processPriceFile(Resource resource, Store store, LocalDate fileDate) throws CsvProcessingException {
-        try (InputStreamReader reader = new InputStreamReader(resource.getInputStream())) {
-            CsvToBean<PriceCsvDto> csvToBean = new CsvToBeanBuilder<PriceCsvDto>(reader)
-                    .withType(PriceCsvDto.class)
-                    .withSeparator(';')
-                    .withIgnoreLeadingWhiteSpace(true)
-                    .build();
+    private int processPriceFile(RecordReader<PriceFeedRecord> records, Store store, LocalDate fileDate, boolean merge,
+                                 ImportProgress progress) throws CsvProcessingException {
+        IngestionPipeline<Price> pipeline = new IngestionPipeline<>("csv-prices", pipelineQueueCapacity, writerCount(merge),
+                chunk -> dimensionResolver.registerProducts(chunk.stream().map(Price::getProduct).toList()),
+                chunk -> writePrices(chunk, merge, progress), pipelineMetrics);
+        ChunkBuffer<Price> chunk = new ChunkBuffer<>(priceChunkSize, pipeline::submit);
+        try {
+            records.read(record -> {
+                progress.rowParsed();
+                chunk.add(toPrice(record, store, fileDate));
+            });
+            chunk.finish();
+        } catch (IOException e) {
+            pipeline.abort(e);
+            throw new CsvProcessingException("Error reading price CSV file", e);
+        } catch (RuntimeException e) {
+            pipeline.abort(e);
+            throw e;
+        }
+        return pipeline.finish();
+    }
 
-            List<PriceCsvDto> priceDtos = csvToBean.parse();
+    private int processDiscountFile(RecordReader<DiscountFeedRecord> records, Store store, boolean merge,
+                                    ImportProgress progress) throws CsvProcessingException {
+        IngestionPipeline<Discount> pipeline = new IngestionPipeline<>("csv-discounts", pipelineQueueCapacity, writerCount(merge),
+                chunk -> dimensionResolver.registerProducts(chunk.stream().map(Discount::getProduct).toList()),
+                chunk -> writeDiscounts(chunk, merge, progress), pipelineMetrics);
+        ChunkBuffer<Discount> chunk = new ChunkBuffer<>(discountChunkSize, pipeline::submit);
+        try {
+            records.read(record -> {
+                progress.rowParsed();
+                chunk.add(toDiscount(record, store));
+            });
+            chunk.finish();
+        } catch (IOException e) {
+            pipeline.abort(e);
+            throw new CsvProcessingException("Error reading discount CSV file", e);
+        } catch (RuntimeException e) {
+            pipeline.abort(e);
+            throw e;
+        }
+        return pipeline.finish();
+    }
 
-            for (PriceCsvDto dto : priceDtos) {
-                // Get or create product
-                Product product = getOrCreateProduct(dto.getProduct_id(), dto.getProduct_name(), dto.getProduct_category(),
-                        dto.getBrand(), dto.getPackage_quantity(), dto.getPackage_unit());
+    // Merged chunks are diffed against the stored rows, so they are written one at a time in file order
+    private int writerCount(boolean merge) {
+        return merge ? 1 : pipelineWriterThreads;
+    }
 
-                // Create price
-                Price price = new Price();
-                price.setProduct(product);
-                price.setStore(store);
-                price.setPrice(dto.getPrice());
-                price.setCurrency(dto.getCurrency());
-                price.setDate(fileDate);
+    // The mapped parser needs a real, uncompressed file; anything else goes through OpenCSV on a stream
+    private void readPriceRecords(Resource resource, Consumer<PriceFeedRecord> sink) throws IOException {
+        if (useMappedParser(resource)) {
+            MappedCsvFeedReader.readPrices(resource.getFile().toPath(), sink);
+            return;
+        }
+        try (Reader reader = openReader(resource)) {
+            OpenCsvFeedReader.readPrices(reader, sink);
+        }
+    }
 
-                priceRepository.save(price);
-            }
+    private void readDiscountRecords(Resource resource, Consumer<DiscountFeedRecord> sink) throws IOException {
+        if (useMappedParser(resource)) {
+            MappedCsvFeedReader.readDiscounts(resource.getFile().toPath(), sink);
+            return;
+        }
+        try (Reader reader = openReader(resource)) {
+            OpenCsvFeedReader.readDiscounts(reader, sink);
+        }
+    }
 
-        } catch (IOException e) {
-            throw new CsvProcessingException("Error reading price CSV file", e);
+    private boolean useMappedParser(Resource resource) {
+        return "mapped".equalsIgnoreCase(csvParser) && resource.isFile()
+                && !CsvFileParser.isCompressedFile(resource.getFilename());
+    }
+
+    private Reader openReader(Resource resource) throws IOException {
+        InputStream in = FeedInputStreams.open(resource.getInputStream(), resource.getFilename());
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    private FileFingerprint fingerprint(Resource resource) throws CsvProcessingException {
+        try (InputStream in = resource.getInputStream()) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            long size = 0;
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+                size += read;
+            }
+            return new FileFingerprint(size, HexFormat.of().formatHex(digest.digest()));
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new CsvProcessingException("Error computing checksum of CSV file", e);
         }
     }
 
-    private void processDiscountFile(Resource resource, Store store) throws CsvProcessingException {
-        try (InputStreamReader reader = new InputStreamReader(resource.getInputStream())) {
-            CsvToBean<DiscountCsvDto> csvToBean = new CsvToBeanBuilder<DiscountCsvDto>(reader)
-                    .withType(DiscountCsvDto.class)
-                    .withSeparator(';')
-                    .withIgnoreLeadingWhiteSpace(true)
-                    .build();
+    // Products were registered by the resolve stage before the chunk reached the writer.
+    // A cancelled import stops here, so every chunk is either fully committed or not written at all.
+    private int writePrices(List<Price> chunk, boolean merge, ImportProgress progress) {
+        progress.checkCancelled();
+        int written = merge ? ingestionWriter.mergePrices(chunk) : ingestionWriter.writePrices(chunk);
+        progress.rowsWritten(written);
+        return written;
+    }
 
-            List<DiscountCsvDto> discountDtos = csvToBean.parse();
+    private int writeDiscounts(List<Discount> chunk, boolean merge, ImportProgress progress) {
+        progress.checkCancelled();
+        int written = merge ? ingestionWriter.mergeDiscounts(chunk) : ingestionWriter.writeDiscounts(chunk);
+        progress.rowsWritten(written);
+        return written;
+    }
+
+    private Price toPrice(PriceFeedRecord record, Store store, LocalDate fileDate) {
+        Price price = new Price();
+        price.setProduct(toProduct(record.productId(), record.productName(), record.productCategory(),
+                record.brand(), record.packageQuantity(), record.packageUnit()));
+        price.setStore(store);
+        price.setPriceMinor(Money.toMinorUnits(record.price()));
+        price.setCurrencyId(dictionaryService.currencyId(record.currency()));
+        price.setDate(fileDate);
+        return price;
+    }
+
+    private Discount toDiscount(DiscountFeedRecord record, Store store) {
+        Discount discount = new Discount();
+        discount.setProduct(toProduct(record.productId(), record.productName(), record.productCategory(),
+                record.brand(), record.packageQuantity(), record.packageUnit()));
+        discount.setStore(store);
+        discount.setDiscountBasisPoints(Money.toBasisPoints(record.percentageOfDiscount()));
+        discount.setStartDate(LocalDate.ofEpochDay(record.fromEpochDay()));
+        discount.setEndDate(LocalDate.ofEpochDay(record.toEpochDay()));
+        return discount;
+    }
+
+    private Product toProduct(String productId, String productName, String productCategory, String brand, double packageQuantity, String packageUnit) {
+        Product product = new Product();
+        product.setId(productId);
+        product.setProductName(productName);
+        // Values seen before are a map lookup; new ones are added to the lookup tables here
+        product.setCategoryId(dictionaryService.categoryId(productCategory));
+        product.setBrandId(dictionaryService.brandId(brand));
+        product.setPackageQuantity(packageQuantity);
+        product.setUnitId(dictionaryService.unitId(packageUnit));
+        return product;
+    }
+
+    private void logThroughput(String fileName, int rows, long elapsedNanos) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        long rowsPerSecond = seconds > 0 ? Math.round(rows / seconds) : rows;
+        log.info("Imported {} rows from {} in {} ms ({} rows/s)", rows, fileName, elapsedNanos / 1_000_000, rowsPerSecond);
+    }
 
-            for (DiscountCsvDto dto : discountDtos) {
-                // Get or create product
-                Product product = getOrCreateProduct(dto.getProduct_id(), dto.getProduct_name(), dto.getProduct_category(),
-                        dto.getBrand(), dto.getPackage_quantity(), dto.getPackage_unit());
+    // Collects parsed rows and hands each full chunk to the pipeline; the chunk then belongs to the next stage
+    private static class ChunkBuffer<T> {
+        private final int chunkSize;
+        private final Consumer<List<T>> sink;
+        private List<T> rows;
 
-                // Create discount
-                Discount discount = new Discount();
-                discount.setProduct(product);
-                discount.setStore(store);
-                discount.setPercentageOfDiscount(dto.getPercentage_of_discount());
-                discount.setStartDate(dto.getFrom_date());
-                discount.setEndDate(dto.getTo_date());
+        private ChunkBuffer(int chunkSize, Consumer<List<T>> sink) {
+            this.chunkSize = chunkSize;
+            this.sink = sink;
+            this.rows = new ArrayList<>(chunkSize);
+        }
 
-                discountRepository.save(discount);
+        private void add(T row) {
+            rows.add(row);
+            if (rows.size() >= chunkSize) {
+                sink.accept(rows);
+                rows = new ArrayList<>(chunkSize);
             }
+        }
 
-        } catch (IOException e) {
-            throw new CsvProcessingException("Error reading discount CSV file", e);
+        private void finish() {
+            if (!rows.isEmpty()) {
+                sink.accept(rows);
+            }
         }
     }
 
-    private Product getOrCreateProduct(String productId, String productName, String productCategory, String brand, Double packageQuantity, String packageUnit) {
-        return productRepository.findById(productId).orElseGet(() -> {
-                    Product newProduct = new Product();
-                    newProduct.setId(productId);
-                    newProduct.setProductName(productName);
-                    newProduct.setProductCategory(productCategory);
-                    newProduct.setBrand(brand);
-                    newProduct.setPackageQuantity(packageQuantity);
-                    newProduct.setPackageUnit(packageUnit);
-                    return productRepository.save(newProduct);
-                });
+    @FunctionalInterface
+    private interface RecordReader<T> {
+        void read(Consumer<T> sink) throws IOException;
     }
 
-}
+    // Hashes and counts the raw bytes as the parser pulls them through
+    private static class FingerprintingInputStream extends FilterInputStream {
+        private final MessageDigest digest;
+        private long size;
+
+        private FingerprintingInputStream(InputStream in) throws CsvProcessingException {
+            super(in);
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new CsvProcessingException("Error computing checksum of CSV file", e);
+            }
+        }
 
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b != -1) {
+                digest.update((byte) b);
+                size++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = in.read(b, off, len);
+            if (read > 0) {
+                digest.update(b, off, read);
+                size += read;
+            }
+            return read;
+        }
+
+        // Skipped bytes must still be hashed
+        @Override
+        public long skip(long n) throws IOException {
+            byte[] buffer = new byte[(int) Math.min(n, 8192)];
+            long skipped = 0;
+            while (skipped < n) {
+                int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+                if (read < 0) {
+                    break;
+                }
+                skipped += read;
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private FileFingerprint fingerprint() {
+            return new FileFingerprint(size, HexFormat.of().formatHex(digest.digest()));
+        }
+    }
+
+    private record FileFingerprint(long size, String checksum) {
+        private boolean matches(ImportManifest manifest) {
+            return manifest.getFileSize() == size && manifest.getChecksum().equals(checksum);
+        }
+    }
+}
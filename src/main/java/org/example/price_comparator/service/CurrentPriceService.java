@@ -0,0 +1,19 @@
+package org.example.price_comparator.service;
+
+import org.example.price_comparator.model.CurrentPrice;
+import org.example.price_comparator.model.Product;
+import org.example.price_comparator.model.Store;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface CurrentPriceService {
+
+    Optional<List<CurrentPrice>> findCurrentPrices(Product product, LocalDate date);
+    Map<String, List<CurrentPrice>> findCurrentPrices(Collection<Product> products, LocalDate date);
+    Optional<CurrentPrice> findCurrentPrice(Product product, Store store, LocalDate date);
+    void rebuildIfEmpty();
+}
@@ -0,0 +1,82 @@
+package org.example.price_comparator.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.price_comparator.model.CurrentPrice;
+import org.example.price_comparator.model.CurrentPriceId;
+import org.example.price_comparator.model.Product;
+import org.example.price_comparator.model.Store;
+import org.example.price_comparator.repository.CurrentPriceRepository;
+import org.example.price_comparator.repository.PriceRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+// Reads the current_prices table maintained by the import. A lookup only answers when the table is valid
+// for the requested date; an empty result tells the caller to fall back to the price history.
+@Service
+@Slf4j
+public class CurrentPriceServiceImpl implements CurrentPriceService {
+
+    private final CurrentPriceRepository currentPriceRepository;
+    private final PriceRepository priceRepository;
+
+    public CurrentPriceServiceImpl(CurrentPriceRepository currentPriceRepository, PriceRepository priceRepository) {
+        this.currentPriceRepository = currentPriceRepository;
+        this.priceRepository = priceRepository;
+    }
+
+    @Override
+    public Optional<List<CurrentPrice>> findCurrentPrices(Product product, LocalDate date) {
+        return coveredRows(currentPriceRepository.findByProduct(product), date);
+    }
+
+    // One query for all products; products the table cannot answer for are left out of the map
+    @Override
+    public Map<String, List<CurrentPrice>> findCurrentPrices(Collection<Product> products, LocalDate date) {
+        if (products.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, List<CurrentPrice>> rowsByProduct = currentPriceRepository.findByProductIn(products).stream()
+                .collect(Collectors.groupingBy(row -> row.getId().getProductId()));
+        Map<String, List<CurrentPrice>> covered = new HashMap<>();
+        rowsByProduct.forEach((productId, rows) ->
+                coveredRows(rows, date).ifPresent(coveredRows -> covered.put(productId, coveredRows)));
+        return covered;
+    }
+
+    @Override
+    public Optional<CurrentPrice> findCurrentPrice(Product product, Store store, LocalDate date) {
+        return currentPriceRepository.findById(new CurrentPriceId(product.getId(), store.getId()))
+                .filter(row -> row.covers(date));
+    }
+
+    private static Optional<List<CurrentPrice>> coveredRows(List<CurrentPrice> rows, LocalDate date) {
+        List<CurrentPrice> priced = rows.stream()
+                .filter(row -> row.getPriceMinor() != null)
+                .toList();
+        if (priced.isEmpty() || !priced.stream().allMatch(row -> row.covers(date))) {
+            return Optional.empty();
+        }
+        return Optional.of(priced);
+    }
+
+    // Fills the table once for data imported before it existed; later imports keep it up to date
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuildIfEmpty() {
+        if (currentPriceRepository.count() == 0 && priceRepository.count() > 0) {
+            currentPriceRepository.rebuild();
+            log.info("Rebuilt current prices from the price history");
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package org.example.price_comparator.service;
+
+import java.util.List;
+
+public interface DictionaryService {
+
+    // How a package unit is normalized for value-per-unit comparisons: quantity * factor is in the given unit
+    record UnitScale(String unit, double factor) {
+    }
+
+    int currencyId(String code);
+    String currency(int id);
+    int unitId(String name);
+    String unit(int id);
+    UnitScale unitScale(int unitId);
+    int categoryId(String name);
+    String category(int id);
+    List<Integer> categoryIdsIgnoreCase(String name);
+    int brandId(String name);
+    String brand(int id);
+    List<Integer> brandIdsIgnoreCase(String name);
+}
@@ -0,0 +1,206 @@
+package org.example.price_comparator.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.price_comparator.repository.DictionaryRepository;
+import org.example.price_comparator.repository.DictionaryRepository.Dictionary;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// In-memory copy of the lookup tables. Each value is held as one interned String, and keys are small and dense,
+// so decoding is an array read and encoding a hash lookup. A value or key not seen yet (a new value in a feed,
+// or one added by another instance) takes a round trip to the database under the dictionary's lock.
+@Service
+@Slf4j
+public class DictionaryServiceImpl implements DictionaryService {
+
+    private final DictionaryRepository dictionaryRepository;
+    private final Map<Dictionary, Entries> dictionaries = new EnumMap<>(Dictionary.class);
+
+    private volatile UnitScale[] unitScales = new UnitScale[0];
+
+    public DictionaryServiceImpl(DictionaryRepository dictionaryRepository) {
+        this.dictionaryRepository = dictionaryRepository;
+        for (Dictionary dictionary : Dictionary.values()) {
+            dictionaries.put(dictionary, new Entries(dictionary));
+        }
+    }
+
+    @Override
+    public int currencyId(String code) {
+        return dictionaries.get(Dictionary.CURRENCIES).id(code);
+    }
+
+    @Override
+    public String currency(int id) {
+        return dictionaries.get(Dictionary.CURRENCIES).value(id);
+    }
+
+    @Override
+    public int unitId(String name) {
+        return dictionaries.get(Dictionary.UNITS).id(name);
+    }
+
+    @Override
+    public String unit(int id) {
+        return dictionaries.get(Dictionary.UNITS).value(id);
+    }
+
+    @Override
+    public UnitScale unitScale(int unitId) {
+        UnitScale[] scales = unitScales;
+        if (unitId < scales.length && scales[unitId] != null) {
+            return scales[unitId];
+        }
+        UnitScale[] grown = Arrays.copyOf(scales, Math.max(scales.length, unitId + 1));
+        grown[unitId] = scaleOf(unit(unitId));
+        unitScales = grown;
+        return grown[unitId];
+    }
+
+    @Override
+    public int categoryId(String name) {
+        return dictionaries.get(Dictionary.CATEGORIES).id(name);
+    }
+
+    @Override
+    public String category(int id) {
+        return dictionaries.get(Dictionary.CATEGORIES).value(id);
+    }
+
+    @Override
+    public List<Integer> categoryIdsIgnoreCase(String name) {
+        return dictionaries.get(Dictionary.CATEGORIES).idsIgnoreCase(name);
+    }
+
+    @Override
+    public int brandId(String name) {
+        return dictionaries.get(Dictionary.BRANDS).id(name);
+    }
+
+    @Override
+    public String brand(int id) {
+        return dictionaries.get(Dictionary.BRANDS).value(id);
+    }
+
+    @Override
+    public List<Integer> brandIdsIgnoreCase(String name) {
+        return dictionaries.get(Dictionary.BRANDS).idsIgnoreCase(name);
+    }
+
+    // Grams and millilitres are compared per kg and per litre; other units are compared as they are
+    private static UnitScale scaleOf(String unitName) {
+        String unit = unitName.toLowerCase();
+        if (unit.contains("g") && !unit.equals("kg")) {
+            return new UnitScale("kg", 0.001);
+        } else if (unit.contains("ml")) {
+            return new UnitScale("l", 0.001);
+        } else if (unit.contains("cl")) {
+            return new UnitScale("l", 0.01);
+        }
+        return new UnitScale(unit, 1);
+    }
+
+    private class Entries {
+
+        private final Dictionary dictionary;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+        private volatile String[] values = new String[0];
+        private volatile boolean loaded;
+
+        Entries(Dictionary dictionary) {
+            this.dictionary = dictionary;
+        }
+
+        int id(String value) {
+            // The lookup tables hold no empty values, and the map cannot hold a null one
+            if (value == null || value.isBlank()) {
+                throw new IllegalArgumentException("Missing value for " + dictionary.table());
+            }
+            Integer id = ids.get(value);
+            if (id != null) {
+                return id;
+            }
+            lock.lock();
+            try {
+                load();
+                id = ids.get(value);
+                if (id == null) {
+                    add(dictionaryRepository.findOrCreate(dictionary, List.of(value)));
+                    id = ids.get(value);
+                }
+                return id;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        String value(int id) {
+            String[] current = values;
+            if (id < current.length && current[id] != null) {
+                return current[id];
+            }
+            lock.lock();
+            try {
+                // Loads the table on first use, and reloads it for keys added by another instance
+                loaded = false;
+                load();
+                current = values;
+                if (id >= current.length || current[id] == null) {
+                    throw new IllegalStateException("Unknown " + dictionary.table() + " key: " + id);
+                }
+                return current[id];
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        List<Integer> idsIgnoreCase(String value) {
+            lock.lock();
+            try {
+                load();
+            } finally {
+                lock.unlock();
+            }
+            String[] current = values;
+            List<Integer> matches = new ArrayList<>();
+            for (int id = 0; id < current.length; id++) {
+                if (current[id] != null && current[id].equalsIgnoreCase(value)) {
+                    matches.add(id);
+                }
+            }
+            return matches;
+        }
+
+        // Called with the lock held
+        private void load() {
+            if (loaded) {
+                return;
+            }
+            Map<String, Integer> all = dictionaryRepository.findAll(dictionary);
+            add(all);
+            loaded = true;
+            log.debug("Loaded {} {}", all.size(), dictionary.table());
+        }
+
+        // Called with the lock held
+        private void add(Map<String, Integer> entries) {
+            String[] grown = values;
+            for (Map.Entry<String, Integer> entry : entries.entrySet()) {
+                int id = entry.getValue();
+                if (id >= grown.length) {
+                    grown = Arrays.copyOf(grown, Math.max(id + 1, grown.length * 2));
+                } else if (grown == values) {
+                    grown = grown.clone();
+                }
+                String value = entry.getKey().intern();
+                grown[id] = value;
+                ids.put(value, id);
+            }
+            values = grown;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package org.example.price_comparator.service;
+
+import org.example.price_comparator.dto.CacheRegionStatsDto;
+
+import java.util.List;
+
+public interface DimensionCacheService {
+
+    void evictQueries();
+    void evictAll();
+    List<CacheRegionStatsDto> getStatistics();
+}
@@ -0,0 +1,96 @@
+package org.example.price_comparator.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.example.price_comparator.config.ReplicaLagMonitor;
+import org.example.price_comparator.dto.CacheRegionStatsDto;
+import org.example.price_comparator.model.Product;
+import org.example.price_comparator.model.Store;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Controls the second-level cache of products and stores (regions in ehcache.xml).
+// The import writes both tables with plain JDBC, which Hibernate does not see, so cached finder results
+// are cleared explicitly whenever an import commits new rows. Cached entities stay valid: the import
+// only inserts products and stores and never updates them.
+// With a read replica, a finder run between the eviction and the replica replaying the import would cache the
+// old result again, so the query regions are cleared a second time once the replica has caught up.
+@Service
+@Slf4j
+public class DimensionCacheServiceImpl implements DimensionCacheService {
+
+    private static final long NO_PENDING_EVICTION = Long.MIN_VALUE;
+
+    private final SessionFactory sessionFactory;
+    private final boolean replicaConfigured;
+    // System.nanoTime() of the latest eviction the replica has not been seen to catch up with
+    private final AtomicLong pendingEvictionSince = new AtomicLong(NO_PENDING_EVICTION);
+
+    public DimensionCacheServiceImpl(EntityManagerFactory entityManagerFactory,
+                                     ObjectProvider<ReplicaLagMonitor> replicaLagMonitor) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        ReplicaLagMonitor monitor = replicaLagMonitor.getIfAvailable();
+        this.replicaConfigured = monitor != null;
+        if (monitor != null) {
+            monitor.addCaughtUpListener(this::replicaCaughtUp);
+        }
+    }
+
+    @Override
+    public void evictQueries() {
+        if (replicaConfigured) {
+            pendingEvictionSince.set(System.nanoTime());
+        }
+        sessionFactory.getCache().evictQueryRegions();
+        log.debug("Evicted cached product and store queries");
+    }
+
+    // The replica has everything the primary had committed at positionReadAt
+    void replicaCaughtUp(long positionReadAt) {
+        long since = pendingEvictionSince.get();
+        if (since == NO_PENDING_EVICTION || positionReadAt - since < 0) {
+            return;
+        }
+        // Left pending if another eviction came in meanwhile; a later check covers it
+        if (pendingEvictionSince.compareAndSet(since, NO_PENDING_EVICTION)) {
+            sessionFactory.getCache().evictQueryRegions();
+            log.debug("Evicted cached product and store queries again now that the replica has caught up");
+        }
+    }
+
+    @Override
+    public void evictAll() {
+        Cache cache = sessionFactory.getCache();
+        cache.evictEntityData(Product.class);
+        cache.evictEntityData(Store.class);
+        cache.evictQueryRegions();
+        log.info("Evicted cached products, stores and queries");
+    }
+
+    @Override
+    public List<CacheRegionStatsDto> getStatistics() {
+        Statistics statistics = sessionFactory.getStatistics();
+        String[] regionNames = statistics.getSecondLevelCacheRegionNames();
+        Arrays.sort(regionNames);
+        List<CacheRegionStatsDto> regions = new ArrayList<>();
+        for (String regionName : regionNames) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            if (region == null) {
+                continue;
+            }
+            long lookups = region.getHitCount() + region.getMissCount();
+            regions.add(new CacheRegionStatsDto(regionName, region.getHitCount(), region.getMissCount(),
+                    region.getPutCount(), lookups > 0 ? (double) region.getHitCount() / lookups : null));
+        }
+        return regions;
+    }
+}
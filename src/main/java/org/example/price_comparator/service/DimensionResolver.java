@@ -0,0 +1,13 @@
+package org.example.price_comparator.service;
+
+import org.example.price_comparator.model.Product;
+import org.example.price_comparator.model.Store;
+
+import java.util.Collection;
+
+public interface DimensionResolver {
+
+    void preload();
+    Store resolveStore(String storeName);
+    int registerProducts(Collection<Product> products);
+}
@@ -0,0 +1,89 @@
+package org.example.price_comparator.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.price_comparator.model.Product;
+import org.example.price_comparator.model.Store;
+import org.example.price_comparator.repository.ProductRepository;
+import org.example.price_comparator.repository.StoreRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Keeps the product ids and stores known to the database in memory for the duration of an import,
+// so rows can be resolved without a SELECT each and missing products are inserted once per chunk.
+// Safe to share between files imported in parallel and between application instances: new rows are created
+// with insert ... on conflict do nothing, so two imports registering the same product or store both succeed.
+@Service
+@Slf4j
+public class DimensionResolverImpl implements DimensionResolver {
+
+    private final ProductRepository productRepository;
+    private final StoreRepository storeRepository;
+    private final DimensionCacheService dimensionCacheService;
+
+    private volatile Set<String> knownProductIds = ConcurrentHashMap.newKeySet();
+    private volatile Map<String, Store> storesByName = new ConcurrentHashMap<>();
+
+    public DimensionResolverImpl(ProductRepository productRepository, StoreRepository storeRepository,
+                                 DimensionCacheService dimensionCacheService) {
+        this.productRepository = productRepository;
+        this.storeRepository = storeRepository;
+        this.dimensionCacheService = dimensionCacheService;
+    }
+
+    @Override
+    public void preload() {
+        Set<String> productIds = ConcurrentHashMap.newKeySet();
+        productIds.addAll(productRepository.findAllIds());
+        Map<String, Store> stores = new ConcurrentHashMap<>();
+        for (Store store : storeRepository.findAll()) {
+            stores.put(store.getName(), store);
+        }
+        knownProductIds = productIds;
+        storesByName = stores;
+        log.info("Preloaded {} products and {} stores for import", productIds.size(), stores.size());
+    }
+
+    @Override
+    public Store resolveStore(String storeName) {
+        Store store = storesByName.get(storeName);
+        if (store != null) {
+            return store;
+        }
+        for (Store resolved : storeRepository.findOrCreateByNames(List.of(storeName))) {
+            storesByName.putIfAbsent(resolved.getName(), resolved);
+        }
+        // The store may be new, and a cached findByName may still say it does not exist
+        dimensionCacheService.evictQueries();
+        return storesByName.get(storeName);
+    }
+
+    // Inserts the products of a chunk that are not yet in the database in one statement, keeping the first row seen
+    // for each id. The insert is its own transaction and waits for concurrent inserts of the same ids, so once it
+    // returns every id of the chunk is committed and can be marked as known.
+    @Override
+    public int registerProducts(Collection<Product> products) {
+        Map<String, Product> missing = findMissing(products);
+        if (missing.isEmpty()) {
+            return 0;
+        }
+        int inserted = productRepository.insertMissing(new ArrayList<>(missing.values()));
+        knownProductIds.addAll(missing.keySet());
+        if (inserted > 0) {
+            // Cached category and brand finder results do not include the new products
+            dimensionCacheService.evictQueries();
+        }
+        return inserted;
+    }
+
+    private Map<String, Product> findMissing(Collection<Product> products) {
+        Map<String, Product> missing = new LinkedHashMap<>();
+        for (Product product : products) {
+            if (!knownProductIds.contains(product.getId())) {
+                missing.putIfAbsent(product.getId(), product);
+            }
+        }
+        return missing;
+    }
+}
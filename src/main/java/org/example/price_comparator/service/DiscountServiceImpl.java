@@ -1,51 +1,54 @@
 package org.example.price_comparator.service;
 
 import lombok.extern.slf4j.Slf4j;
+import org.example.price_comparator.dto.BestDiscountRow;
 import org.example.price_comparator.dto.BestDiscountsDto;
 import org.example.price_comparator.exceptions.DiscountProcessingException;
-import org.example.price_comparator.model.Discount;
-import org.example.price_comparator.model.Price;
 import org.example.price_comparator.repository.DiscountRepository;
-import org.example.price_comparator.repository.PriceRepository;
+import org.example.price_comparator.util.Money;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.List;
 
 @Service
 @Slf4j
 public class DiscountServiceImpl implements DiscountService {
 
     private final DiscountRepository discountRepository;
-    private final PriceRepository priceRepository;
+    private final DictionaryService dictionaryService;
+    private final PriceEngine priceEngine;
 
-    public DiscountServiceImpl(DiscountRepository discountRepository, PriceRepository priceRepository) {
+    public DiscountServiceImpl(DiscountRepository discountRepository, DictionaryService dictionaryService,
+                               PriceEngine priceEngine) {
         this.discountRepository = discountRepository;
-        this.priceRepository = priceRepository;
+        this.dictionaryService = dictionaryService;
+        this.priceEngine = priceEngine;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<BestDiscountsDto> getBestDiscounts(int limit) {
         return getBestDiscountsByDate(LocalDate.now(), limit);
     }
 
     // Active discounts for the given date
     @Override
+    @Transactional(readOnly = true)
     public List<BestDiscountsDto> getBestDiscountsByDate(LocalDate date, int limit) {
         try {
-            List<Discount> activeDiscounts = discountRepository.findByStartDateLessThanEqualAndEndDateGreaterThanEqual(date, date);
-            if (activeDiscounts.isEmpty()) {
+            // Sorted by discount percentage and limited by the query
+            List<BestDiscountRow> rows = priceEngine.isActive()
+                    ? priceEngine.findBestActiveOn(date, date, limit)
+                    : discountRepository.findBestActiveOn(date, date, Limit.of(limit));
+            List<BestDiscountsDto> bestDiscountsDtos = mapToDtos(rows);
+            if (bestDiscountsDtos.isEmpty()) {
                 log.info("No active discounts found for date: {}", date);
-                return Collections.emptyList();
             }
-
-            List<BestDiscountsDto> bestDiscountsDtos = mapDiscountsToDtos(activeDiscounts, date);
-            // Sort by discount percentage and limit the results
-            return bestDiscountsDtos.stream()
-                    .sorted(Comparator.comparing(BestDiscountsDto::getPercentageOfDiscount).reversed())
-                    .limit(limit)
-                    .collect(Collectors.toList());
+            return bestDiscountsDtos;
         } catch (Exception e) {
             log.error("Error processing best discounts for date: {}", date, e);
             throw new DiscountProcessingException("Error processing best discounts: " + e.getMessage(), e);
@@ -54,6 +57,7 @@ public class DiscountServiceImpl implements DiscountService {
 
     // Last discounts in 24 hours
     @Override
+    @Transactional(readOnly = true)
     public List<BestDiscountsDto> getNewDiscountsLast24Hours() {
         LocalDate yesterday = LocalDate.now().minusDays(1);
         return getNewDiscountsAfterDate(yesterday);
@@ -61,24 +65,22 @@ public class DiscountServiceImpl implements DiscountService {
 
     // Last discounts in 24 hours (by day)
     @Override
+    @Transactional(readOnly = true)
     public List<BestDiscountsDto> getNewDiscountsAfterDateLast24Hours(LocalDate date) {
         try {
             // 24 hours after the start date
             LocalDate nextDay = date.plusDays(1);
 
             // Discounts that started within the 24-hour window
-            List<Discount> newDiscounts = discountRepository.findByStartDateBetweenOrderByStartDateDesc(date, nextDay);
+            List<BestDiscountRow> rows = priceEngine.isActive()
+                    ? priceEngine.findBestStartingBetween(date, nextDay, nextDay)
+                    : discountRepository.findBestStartingBetween(date, nextDay, nextDay);
+            List<BestDiscountsDto> newDiscountsDtos = mapToDtos(rows);
 
-            if (newDiscounts.isEmpty()) {
+            if (newDiscountsDtos.isEmpty()) {
                 log.info("No new discounts found within 24 hours of date: {}", date);
-                return Collections.emptyList();
             }
-
-            List<BestDiscountsDto> newDiscountsDtos = mapDiscountsToDtos(newDiscounts, nextDay);
-
-            return newDiscountsDtos.stream()
-                    .sorted(Comparator.comparing(BestDiscountsDto::getStartDate).reversed())
-                    .collect(Collectors.toList());
+            return newDiscountsDtos;
         } catch (Exception e) {
             log.error("Error processing new discounts within 24 hours of date: {}", date, e);
             throw new DiscountProcessingException("Error processing new discounts: " + e.getMessage(), e);
@@ -87,53 +89,43 @@ public class DiscountServiceImpl implements DiscountService {
 
     // Discounts that start on or after the given date
     @Override
+    @Transactional(readOnly = true)
     public List<BestDiscountsDto> getNewDiscountsAfterDate(LocalDate date) {
         try {
-            List<Discount> newDiscounts = discountRepository.findByStartDateGreaterThanEqualOrderByStartDateDesc(date);
-            if (newDiscounts.isEmpty()) {
+            LocalDate today = LocalDate.now();
+            List<BestDiscountRow> rows = priceEngine.isActive()
+                    ? priceEngine.findBestStartingFrom(date, today)
+                    : discountRepository.findBestStartingFrom(date, today);
+            List<BestDiscountsDto> newDiscountsDtos = mapToDtos(rows);
+            if (newDiscountsDtos.isEmpty()) {
                 log.info("No new discounts found after date: {}", date);
-                return Collections.emptyList();
             }
-
-            LocalDate today = LocalDate.now();
-            List<BestDiscountsDto> newDiscountsDtos = mapDiscountsToDtos(newDiscounts, today);
-            return newDiscountsDtos.stream()
-                    .sorted(Comparator.comparing(BestDiscountsDto::getStartDate).reversed())
-                    .collect(Collectors.toList());
+            return newDiscountsDtos;
         } catch (Exception e) {
             log.error("Error processing new discounts after date: {}", date, e);
             throw new DiscountProcessingException("Error processing new discounts: " + e.getMessage(), e);
         }
     }
 
-    private List<BestDiscountsDto> mapDiscountsToDtos(List<Discount> discounts, LocalDate priceDate) {
-        List<BestDiscountsDto> dtos = new ArrayList<>();
-        for (Discount discount : discounts) {
-            Optional<Price> priceOpt = priceRepository.findTopByProductAndStoreAndDateLessThanEqualOrderByDateDesc(
-                    discount.getProduct(), discount.getStore(), priceDate);
-            if (priceOpt.isPresent()) {
-                Price price = priceOpt.get();
-                Double originalPrice = price.getPrice();
-                Double discountedPrice = originalPrice * (1 - discount.getPercentageOfDiscount() / 100);
-                BestDiscountsDto dto = new BestDiscountsDto();
-                dto.setProductId(price.getProduct().getId());
-                dto.setProductName(price.getProduct().getProductName());
-                dto.setProductCategory(price.getProduct().getProductCategory());
-                dto.setBrand(price.getProduct().getBrand());
-                dto.setPackageQuantity(price.getProduct().getPackageQuantity());
-                dto.setPackageUnit(price.getProduct().getPackageUnit());
-                dto.setStoreName(price.getStore().getName());
-                dto.setPercentageOfDiscount(discount.getPercentageOfDiscount());
-                dto.setOriginalPrice(originalPrice);
-                dto.setDiscountedPrice(discountedPrice);
-                dto.setCurrency(price.getCurrency());
-                dto.setStartDate(discount.getStartDate());
-                dto.setEndDate(discount.getEndDate());
-                dtos.add(dto);
-            }
+    private List<BestDiscountsDto> mapToDtos(List<BestDiscountRow> rows) {
+        List<BestDiscountsDto> dtos = new ArrayList<>(rows.size());
+        for (BestDiscountRow row : rows) {
+            BestDiscountsDto dto = new BestDiscountsDto();
+            dto.setProductId(row.productId());
+            dto.setProductName(row.productName());
+            dto.setProductCategory(dictionaryService.category(row.categoryId()));
+            dto.setBrand(dictionaryService.brand(row.brandId()));
+            dto.setPackageQuantity(row.packageQuantity());
+            dto.setPackageUnit(dictionaryService.unit(row.unitId()));
+            dto.setStoreName(row.storeName());
+            dto.setPercentageOfDiscount(Money.toPercentage(row.discountBasisPoints()));
+            dto.setOriginalPrice(Money.toDecimal(row.priceMinor()));
+            dto.setDiscountedPrice(Money.toDecimal(Money.applyDiscount(row.priceMinor(), row.discountBasisPoints())));
+            dto.setCurrency(dictionaryService.currency(row.currencyId()));
+            dto.setStartDate(row.startDate());
+            dto.setEndDate(row.endDate());
+            dtos.add(dto);
         }
         return dtos;
     }
 }
-
-
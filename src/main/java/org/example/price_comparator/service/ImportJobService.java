@@ -0,0 +1,18 @@
+package org.example.price_comparator.service;
+
+import org.example.price_comparator.dto.ImportJobDto;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+
+public interface ImportJobService {
+
+    ImportJobDto startImportAll();
+    ImportJobDto startImport(String fileName);
+    ImportJobDto startImport(Path file);
+    ImportJobDto importStream(String fileName, InputStream in);
+    ImportJobDto getJob(String jobId);
+    List<ImportJobDto> getJobs();
+    ImportJobDto cancelJob(String jobId);
+}
@@ -0,0 +1,226 @@
+package org.example.price_comparator.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.price_comparator.dto.ImportJobDto;
+import org.example.price_comparator.exceptions.ImportCancelledException;
+import org.example.price_comparator.exceptions.ImportJobNotFoundException;
+import org.example.price_comparator.exceptions.InvalidFeedFileNameException;
+import org.example.price_comparator.util.CsvFileParser;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+// Runs imports in the background, one job at a time. Jobs submitted while another one runs wait in the queue
+// with status QUEUED. Uploads are the exception: they run on the thread that receives them, next to the queue.
+@Service
+@Slf4j
+public class ImportJobServiceImpl implements ImportJobService {
+
+    private static final int MAX_FINISHED_JOBS = 100;
+
+    private final CsvService csvService;
+    private final PriceEngine priceEngine;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("csv-import-job").factory());
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    public ImportJobServiceImpl(CsvService csvService, PriceEngine priceEngine) {
+        this.csvService = csvService;
+        this.priceEngine = priceEngine;
+    }
+
+    @Override
+    public ImportJobDto startImportAll() {
+        return submit("Import all CSV files", csvService::processAllCsvFiles);
+    }
+
+    @Override
+    public ImportJobDto startImport(String fileName) {
+        requireValidFeedFileName(fileName);
+        return submit("Import " + fileName, progress -> csvService.processCsvFile(fileName, progress));
+    }
+
+    @Override
+    public ImportJobDto startImport(Path file) {
+        return submit("Import " + file, progress -> csvService.processCsvFile(file, progress));
+    }
+
+    // The request body can only be read while the request is open, so the upload is imported on the caller's
+    // thread as it arrives instead of waiting in the queue behind other jobs; the final job state is returned.
+    // CsvService still lets only one import at a time work on a given feed.
+    @Override
+    public ImportJobDto importStream(String fileName, InputStream in) {
+        requireValidFeedFileName(fileName);
+        ImportJob job = createJob("Upload " + fileName);
+        run(job, progress -> csvService.processCsvStream(fileName, in, progress));
+        return mapToDto(job);
+    }
+
+    @Override
+    public ImportJobDto getJob(String jobId) {
+        return mapToDto(findJob(jobId));
+    }
+
+    @Override
+    public List<ImportJobDto> getJobs() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing((ImportJob job) -> job.submittedAt).reversed())
+                .map(this::mapToDto)
+                .collect(Collectors.toList());
+    }
+
+    // A queued job is cancelled right away; a running one stops before writing its next chunk
+    @Override
+    public ImportJobDto cancelJob(String jobId) {
+        ImportJob job = findJob(jobId);
+        job.progress.cancel();
+        if (job.status == JobStatus.QUEUED) {
+            job.finish(JobStatus.CANCELLED);
+        }
+        log.info("Cancellation requested for import job: {}", jobId);
+        return mapToDto(job);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobs.values().forEach(job -> job.progress.cancel());
+        executor.shutdownNow();
+    }
+
+    private ImportJobDto submit(String description, Consumer<ImportProgress> task) {
+        ImportJob job = createJob(description);
+        executor.submit(() -> run(job, task));
+        return mapToDto(job);
+    }
+
+    private ImportJob createJob(String description) {
+        pruneFinishedJobs();
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), description);
+        jobs.put(job.id, job);
+        log.info("Submitted import job {}: {}", job.id, description);
+        return job;
+    }
+
+    private void run(ImportJob job, Consumer<ImportProgress> task) {
+        if (job.progress.isCancelled()) {
+            job.finish(JobStatus.CANCELLED);
+            return;
+        }
+        job.start();
+        try {
+            task.accept(job.progress);
+            job.finish(JobStatus.COMPLETED);
+        } catch (ImportCancelledException e) {
+            log.info("Import job {} cancelled", job.id);
+            job.finish(JobStatus.CANCELLED);
+        } catch (Exception e) {
+            log.error("Import job {} failed", job.id, e);
+            job.progress.error(e.getMessage());
+            job.finish(JobStatus.FAILED);
+        }
+        // Batches commit as they go, so cancelled and failed jobs may have written rows as well;
+        // the reload runs off the import thread so the next job in the queue doesn't wait for it
+        if (job.progress.getRowsWritten() > 0) {
+            Thread.ofVirtual().name("price-engine-refresh").start(priceEngine::refresh);
+        }
+    }
+
+    // Checked before queueing so that the caller gets the error instead of a job that fails later
+    private static void requireValidFeedFileName(String fileName) {
+        if (!CsvFileParser.isValidFeedFileName(fileName)) {
+            throw new InvalidFeedFileNameException("Invalid feed file name: " + fileName);
+        }
+    }
+
+    private ImportJob findJob(String jobId) {
+        ImportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new ImportJobNotFoundException("Import job not found: " + jobId);
+        }
+        return job;
+    }
+
+    private void pruneFinishedJobs() {
+        List<ImportJob> finished = jobs.values().stream()
+                .filter(job -> job.finishedAt != null)
+                .sorted(Comparator.comparing((ImportJob job) -> job.finishedAt))
+                .toList();
+        for (int i = 0; i < finished.size() - MAX_FINISHED_JOBS; i++) {
+            jobs.remove(finished.get(i).id);
+        }
+    }
+
+    private ImportJobDto mapToDto(ImportJob job) {
+        ImportProgress progress = job.progress;
+        ImportJobDto dto = new ImportJobDto();
+        dto.setJobId(job.id);
+        dto.setDescription(job.description);
+        dto.setStatus(job.status.toString());
+        dto.setSubmittedAt(job.submittedAt);
+        dto.setStartedAt(job.startedAt);
+        dto.setFinishedAt(job.finishedAt);
+        dto.setFilesTotal(progress.getFilesTotal());
+        dto.setFilesDone(progress.getFilesDone());
+        dto.setRowsParsed(progress.getRowsParsed());
+        dto.setRowsWritten(progress.getRowsWritten());
+        dto.setRowsPerSecond(rowsPerSecond(job));
+        dto.setErrors(progress.getErrors());
+        return dto;
+    }
+
+    private Long rowsPerSecond(ImportJob job) {
+        if (job.startedAt == null) {
+            return null;
+        }
+        LocalDateTime end = job.finishedAt != null ? job.finishedAt : LocalDateTime.now();
+        long millis = Duration.between(job.startedAt, end).toMillis();
+        return millis > 0 ? job.progress.getRowsWritten() * 1000 / millis : job.progress.getRowsWritten();
+    }
+
+    private enum JobStatus {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED,
+        CANCELLED
+    }
+
+    private static class ImportJob {
+        private final String id;
+        private final String description;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private final ImportProgress progress = new ImportProgress();
+        private volatile JobStatus status = JobStatus.QUEUED;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+
+        private ImportJob(String id, String description) {
+            this.id = id;
+            this.description = description;
+        }
+
+        private void start() {
+            startedAt = LocalDateTime.now();
+            status = JobStatus.RUNNING;
+        }
+
+        private synchronized void finish(JobStatus finalStatus) {
+            if (finishedAt == null) {
+                finishedAt = LocalDateTime.now();
+                status = finalStatus;
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.example.price_comparator.service;
+
+import org.example.price_comparator.exceptions.ImportCancelledException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Live counters of one import, updated by the import threads and read by the jobs API.
+// Cancellation is cooperative: it is checked before each chunk is written.
+public class ImportProgress {
+
+    private final AtomicInteger filesTotal = new AtomicInteger();
+    private final AtomicInteger filesDone = new AtomicInteger();
+    private final LongAdder rowsParsed = new LongAdder();
+    private final LongAdder rowsWritten = new LongAdder();
+    private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+
+    public void addFiles(int count) {
+        filesTotal.addAndGet(count);
+    }
+
+    public void fileDone() {
+        filesDone.incrementAndGet();
+    }
+
+    public void rowParsed() {
+        rowsParsed.increment();
+    }
+
+    public void rowsWritten(int count) {
+        rowsWritten.add(count);
+    }
+
+    public void error(String message) {
+        errors.add(message);
+    }
+
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    public void checkCancelled() {
+        if (cancelled.get()) {
+            throw new ImportCancelledException("Import cancelled");
+        }
+    }
+
+    public int getFilesTotal() {
+        return filesTotal.get();
+    }
+
+    public int getFilesDone() {
+        return filesDone.get();
+    }
+
+    public long getRowsParsed() {
+        return rowsParsed.sum();
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten.sum();
+    }
+
+    public List<String> getErrors() {
+        synchronized (errors) {
+            return new ArrayList<>(errors);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package org.example.price_comparator.service;
+
+import org.example.price_comparator.exceptions.CsvProcessingException;
+import org.example.price_comparator.service.IngestionPipelineMetrics.Stage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+// Runs the ingestion of one feed as three stages joined by bounded queues:
+// the calling thread parses and submits chunks, one thread resolves their dimensions and writer threads store them.
+// A full queue blocks the stage in front of it, so a slow database throttles parsing instead of filling the heap.
+// The first failure in any stage stops the parser; the other stages drain their queues without processing them.
+public class IngestionPipeline<T> {
+
+    // Marks the end of the input; compared by identity
+    private final List<T> endOfInput = new ArrayList<>(0);
+
+    private final BlockingQueue<List<T>> resolveQueue;
+    private final BlockingQueue<List<T>> writeQueue;
+    private final int queueCapacity;
+    private final Consumer<List<T>> resolver;
+    private final ToIntFunction<List<T>> writer;
+    private final IngestionPipelineMetrics metrics;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final Thread resolverThread;
+    private final List<Thread> writerThreads = new ArrayList<>();
+    private final AtomicInteger written = new AtomicInteger();
+    private long parseStartNanos = System.nanoTime();
+
+    public IngestionPipeline(String name, int queueCapacity, int writerCount, Consumer<List<T>> resolver,
+                             ToIntFunction<List<T>> writer, IngestionPipelineMetrics metrics) {
+        this.queueCapacity = queueCapacity;
+        this.resolveQueue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writeQueue = new ArrayBlockingQueue<>(queueCapacity);
+        this.resolver = resolver;
+        this.writer = writer;
+        this.metrics = metrics;
+        this.resolverThread = Thread.ofVirtual().name(name + "-resolve").start(() -> runResolver(writerCount));
+        for (int i = 0; i < writerCount; i++) {
+            writerThreads.add(Thread.ofVirtual().name(name + "-write-" + i).start(this::runWriter));
+        }
+    }
+
+    // Called by the parser; blocks while the resolve stage is behind
+    public void submit(List<T> chunk) {
+        metrics.processed(Stage.PARSE, chunk.size(), System.nanoTime() - parseStartNanos);
+        rethrowFailure();
+        put(resolveQueue, Stage.RESOLVE, chunk);
+        parseStartNanos = System.nanoTime();
+    }
+
+    // Waits for the queued chunks to be written and returns the number of rows written
+    public int finish() {
+        close();
+        rethrowFailure();
+        return written.get();
+    }
+
+    // Stops the pipeline after a parser failure; chunks still queued are discarded
+    public void abort(Throwable cause) {
+        failure.compareAndSet(null, cause);
+        close();
+    }
+
+    private void close() {
+        put(resolveQueue, Stage.RESOLVE, endOfInput);
+        boolean interrupted = join(resolverThread);
+        for (Thread writerThread : writerThreads) {
+            interrupted |= join(writerThread);
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runResolver(int writerCount) {
+        metrics.threadStarted(Stage.RESOLVE);
+        try {
+            while (true) {
+                List<T> chunk = take(resolveQueue, Stage.RESOLVE);
+                if (chunk == endOfInput) {
+                    break;
+                }
+                if (chunk == null || failure.get() != null) {
+                    continue;
+                }
+                long start = System.nanoTime();
+                try {
+                    resolver.accept(chunk);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                    continue;
+                }
+                metrics.processed(Stage.RESOLVE, chunk.size(), System.nanoTime() - start);
+                put(writeQueue, Stage.WRITE, chunk);
+            }
+        } finally {
+            for (int i = 0; i < writerCount; i++) {
+                put(writeQueue, Stage.WRITE, endOfInput);
+            }
+            metrics.threadStopped(Stage.RESOLVE);
+        }
+    }
+
+    private void runWriter() {
+        metrics.threadStarted(Stage.WRITE);
+        try {
+            while (true) {
+                List<T> chunk = take(writeQueue, Stage.WRITE);
+                if (chunk == endOfInput) {
+                    break;
+                }
+                if (chunk == null || failure.get() != null) {
+                    continue;
+                }
+                long start = System.nanoTime();
+                try {
+                    int count = writer.applyAsInt(chunk);
+                    written.addAndGet(count);
+                    metrics.processed(Stage.WRITE, count, System.nanoTime() - start);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }
+        } finally {
+            metrics.threadStopped(Stage.WRITE);
+        }
+    }
+
+    // Stage threads are never interrupted by the pipeline; an interrupt from outside counts as a failure
+    private void put(BlockingQueue<List<T>> queue, Stage stage, List<T> chunk) {
+        // Counted before the put so a fast consumer never drives the depth below zero
+        metrics.enqueued(stage, queueCapacity);
+        while (true) {
+            try {
+                queue.put(chunk);
+                return;
+            } catch (InterruptedException e) {
+                failure.compareAndSet(null, new CsvProcessingException("Interrupted while importing CSV file", e));
+                if (chunk != endOfInput) {
+                    metrics.dequeued(stage);
+                    return;
+                }
+            }
+        }
+    }
+
+    private List<T> take(BlockingQueue<List<T>> queue, Stage stage) {
+        try {
+            List<T> chunk = queue.take();
+            metrics.dequeued(stage);
+            return chunk;
+        } catch (InterruptedException e) {
+            failure.compareAndSet(null, new CsvProcessingException("Interrupted while importing CSV file", e));
+            return null;
+        }
+    }
+
+    private boolean join(Thread thread) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                thread.join();
+                return interrupted;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+    }
+
+    private void rethrowFailure() {
+        Throwable cause = failure.get();
+        if (cause == null) {
+            return;
+        }
+        if (cause instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        throw new CsvProcessingException("Error importing CSV file", cause);
+    }
+}
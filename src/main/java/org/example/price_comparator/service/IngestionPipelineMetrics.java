@@ -0,0 +1,79 @@
+package org.example.price_comparator.service;
+
+import org.example.price_comparator.dto.PipelineStageDto;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Cumulative counters of all ingestion pipelines, used to size the stages.
+// Busy time excludes time spent blocked on the queues, so a stage whose rows per busy second is far below
+// the others is the bottleneck, and a stage whose inbound queue stays full needs more threads.
+@Component
+public class IngestionPipelineMetrics {
+
+    public enum Stage {
+        PARSE,
+        RESOLVE,
+        WRITE
+    }
+
+    private final Map<Stage, StageCounters> counters = new EnumMap<>(Stage.class);
+
+    public IngestionPipelineMetrics() {
+        for (Stage stage : Stage.values()) {
+            counters.put(stage, new StageCounters());
+        }
+    }
+
+    public void threadStarted(Stage stage) {
+        counters.get(stage).activeThreads.incrementAndGet();
+    }
+
+    public void threadStopped(Stage stage) {
+        counters.get(stage).activeThreads.decrementAndGet();
+    }
+
+    public void enqueued(Stage stage, int capacity) {
+        StageCounters stageCounters = counters.get(stage);
+        stageCounters.queuedChunks.incrementAndGet();
+        stageCounters.queueCapacity.accumulateAndGet(capacity, Math::max);
+    }
+
+    public void dequeued(Stage stage) {
+        counters.get(stage).queuedChunks.decrementAndGet();
+    }
+
+    public void processed(Stage stage, int rows, long busyNanos) {
+        StageCounters stageCounters = counters.get(stage);
+        stageCounters.rows.add(rows);
+        stageCounters.busyNanos.add(busyNanos);
+    }
+
+    public List<PipelineStageDto> getStageStats() {
+        List<PipelineStageDto> stats = new ArrayList<>();
+        for (Map.Entry<Stage, StageCounters> entry : counters.entrySet()) {
+            StageCounters stageCounters = entry.getValue();
+            long rows = stageCounters.rows.sum();
+            long busyNanos = stageCounters.busyNanos.sum();
+            long rowsPerBusySecond = busyNanos > 0 ? Math.round(rows / (busyNanos / 1_000_000_000.0)) : 0;
+            stats.add(new PipelineStageDto(entry.getKey().toString(), stageCounters.activeThreads.get(),
+                    stageCounters.queuedChunks.get(), stageCounters.queueCapacity.get(), rows,
+                    busyNanos / 1_000_000, rowsPerBusySecond));
+        }
+        return stats;
+    }
+
+    private static class StageCounters {
+        private final AtomicInteger activeThreads = new AtomicInteger();
+        // Chunks waiting in the queue in front of the stage, summed over all running pipelines
+        private final AtomicInteger queuedChunks = new AtomicInteger();
+        private final AtomicInteger queueCapacity = new AtomicInteger();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder busyNanos = new LongAdder();
+    }
+}
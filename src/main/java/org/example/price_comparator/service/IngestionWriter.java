@@ -0,0 +1,14 @@
+package org.example.price_comparator.service;
+
+import org.example.price_comparator.model.Discount;
+import org.example.price_comparator.model.Price;
+
+import java.util.List;
+
+public interface IngestionWriter {
+
+    int writePrices(List<Price> prices);
+    int writeDiscounts(List<Discount> discounts);
+    int mergePrices(List<Price> prices);
+    int mergeDiscounts(List<Discount> discounts);
+}
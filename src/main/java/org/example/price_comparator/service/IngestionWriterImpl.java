@@ -0,0 +1,150 @@
+package org.example.price_comparator.service;
+
+import org.example.price_comparator.model.Discount;
+import org.example.price_comparator.model.Price;
+import org.example.price_comparator.repository.CurrentPriceRepository;
+import org.example.price_comparator.repository.DiscountBulkRepository.ExistingDiscount;
+import org.example.price_comparator.repository.DiscountRepository;
+import org.example.price_comparator.repository.PriceEngineRepository;
+import org.example.price_comparator.repository.PriceBulkRepository.ExistingPrice;
+import org.example.price_comparator.repository.PriceRepository;
+import org.example.price_comparator.exceptions.CsvProcessingException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+@Service
+public class IngestionWriterImpl implements IngestionWriter {
+
+    private final PriceRepository priceRepository;
+    private final DiscountRepository discountRepository;
+    private final CurrentPriceRepository currentPriceRepository;
+    private final PriceEngineRepository priceEngineRepository;
+    private final TransactionTemplate transactionTemplate;
+    // Bounds how many chunks are written at once when files are imported in parallel
+    private final Semaphore writerPermits;
+
+    public IngestionWriterImpl(PriceRepository priceRepository, DiscountRepository discountRepository,
+                               CurrentPriceRepository currentPriceRepository, PriceEngineRepository priceEngineRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${csv.import.max-concurrent-writers:4}") int maxConcurrentWriters) {
+        this.priceRepository = priceRepository;
+        this.discountRepository = discountRepository;
+        this.currentPriceRepository = currentPriceRepository;
+        this.priceEngineRepository = priceEngineRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.writerPermits = new Semaphore(Math.max(1, maxConcurrentWriters), true);
+    }
+
+    // Each call is one chunk: a single JDBC batch committed in its own transaction,
+    // together with the matching update of current_prices and, if any row changed, of the data version
+    @Override
+    public int writePrices(List<Price> prices) {
+        return writeChunk(() -> {
+            int written = priceRepository.batchInsert(prices);
+            currentPriceRepository.upsertPrices(prices);
+            return written;
+        });
+    }
+
+    @Override
+    public int writeDiscounts(List<Discount> discounts) {
+        return writeChunk(() -> {
+            int written = discountRepository.batchInsert(discounts);
+            currentPriceRepository.upsertDiscounts(discounts);
+            return written;
+        });
+    }
+
+    // Re-import of a feed: rows already stored unchanged are skipped, changed ones are updated in place
+    @Override
+    public int mergePrices(List<Price> prices) {
+        return writeChunk(() -> {
+            Map<PriceKey, ExistingPrice> existing = new HashMap<>();
+            for (ExistingPrice row : priceRepository.findExisting(prices)) {
+                existing.put(new PriceKey(row.productId(), row.storeId(), row.date()), row);
+            }
+            List<Price> inserts = new ArrayList<>();
+            List<Price> updates = new ArrayList<>();
+            for (Price price : prices) {
+                ExistingPrice row = existing.get(new PriceKey(price.getProduct().getId(), price.getStore().getId(), price.getDate()));
+                if (row == null) {
+                    inserts.add(price);
+                } else if (row.priceMinor() != price.getPriceMinor() || row.currencyId() != price.getCurrencyId()) {
+                    price.setId(row.id());
+                    updates.add(price);
+                }
+            }
+            int written = priceRepository.batchInsert(inserts) + priceRepository.batchUpdate(updates);
+            // Unchanged rows are already reflected in current_prices
+            List<Price> changed = new ArrayList<>(inserts);
+            changed.addAll(updates);
+            currentPriceRepository.upsertPrices(changed);
+            return written;
+        });
+    }
+
+    @Override
+    public int mergeDiscounts(List<Discount> discounts) {
+        return writeChunk(() -> {
+            Map<DiscountKey, ExistingDiscount> existing = new HashMap<>();
+            for (ExistingDiscount row : discountRepository.findExisting(discounts)) {
+                existing.put(new DiscountKey(row.productId(), row.storeId(), row.startDate(), row.endDate()), row);
+            }
+            List<Discount> inserts = new ArrayList<>();
+            List<Discount> updates = new ArrayList<>();
+            for (Discount discount : discounts) {
+                ExistingDiscount row = existing.get(new DiscountKey(discount.getProduct().getId(),
+                        discount.getStore().getId(), discount.getStartDate(), discount.getEndDate()));
+                if (row == null) {
+                    inserts.add(discount);
+                } else if (row.discountBasisPoints() != discount.getDiscountBasisPoints()) {
+                    discount.setId(row.id());
+                    updates.add(discount);
+                }
+            }
+            int written = discountRepository.batchInsert(inserts) + discountRepository.batchUpdate(updates);
+            List<Discount> changed = new ArrayList<>(inserts);
+            changed.addAll(updates);
+            currentPriceRepository.upsertDiscounts(changed);
+            return written;
+        });
+    }
+
+    private int writeChunk(Supplier<Integer> batch) {
+        try {
+            writerPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CsvProcessingException("Interrupted while waiting to write chunk", e);
+        }
+        try {
+            Integer written = transactionTemplate.execute(status -> {
+                int rows = batch.get();
+                // Last, so that concurrent chunks hold the counter's row lock only while committing
+                if (rows > 0) {
+                    priceEngineRepository.incrementDataVersion();
+                }
+                return rows;
+            });
+            return written != null ? written : 0;
+        } finally {
+            writerPermits.release();
+        }
+    }
+
+    private record PriceKey(String productId, long storeId, LocalDate date) {
+    }
+
+    private record DiscountKey(String productId, long storeId, LocalDate startDate, LocalDate endDate) {
+    }
+}
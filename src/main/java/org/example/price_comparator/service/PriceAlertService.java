@@ -9,6 +9,7 @@ import java.util.List;
 public interface PriceAlertService {
 
     PriceAlertResponseDto createAlert(PriceAlertRequestDto alertRequest);
+    List<PriceAlertResponseDto> createAlerts(List<PriceAlertRequestDto> alertRequests);
     List<PriceAlertResponseDto> getUserAlerts(String userEmail);
     PriceAlertResponseDto getAlertById(Long alertId);
     void deleteAlert(Long alertId);
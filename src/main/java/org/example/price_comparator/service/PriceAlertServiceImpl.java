@@ -7,7 +7,9 @@ import org.example.price_comparator.dto.alerts.PriceAlertResponseDto;
 import org.example.price_comparator.exceptions.PriceAlertException;
 import org.example.price_comparator.model.*;
 import org.example.price_comparator.repository.*;
+import org.example.price_comparator.util.Money;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.*;
@@ -22,99 +24,142 @@ public class PriceAlertServiceImpl implements PriceAlertService {
     private final StoreRepository storeRepository;
     private final PriceRepository priceRepository;
     private final DiscountRepository discountRepository;
+    private final CurrentPriceService currentPriceService;
+    private final DictionaryService dictionaryService;
+    private final PriceEngine priceEngine;
 
     public PriceAlertServiceImpl(PriceAlertRepository alertRepository, ProductRepository productRepository,
-                                 StoreRepository storeRepository, PriceRepository priceRepository, DiscountRepository discountRepository) {
+                                 StoreRepository storeRepository, PriceRepository priceRepository, DiscountRepository discountRepository,
+                                 CurrentPriceService currentPriceService, DictionaryService dictionaryService,
+                                 PriceEngine priceEngine) {
         this.alertRepository = alertRepository;
         this.productRepository = productRepository;
         this.storeRepository = storeRepository;
         this.priceRepository = priceRepository;
         this.discountRepository = discountRepository;
+        this.currentPriceService = currentPriceService;
+        this.dictionaryService = dictionaryService;
+        this.priceEngine = priceEngine;
     }
 
     @Override
+    @Transactional
     public PriceAlertResponseDto createAlert(PriceAlertRequestDto alertRequest) {
         try {
-            // Validate product
-            Product product = productRepository.findById(alertRequest.getProductId())
-                    .orElseThrow(() -> new PriceAlertException("Product not found: " + alertRequest.getProductId()));
-
-            // Validate store if provided
-            Store store = null;
-            if (alertRequest.getStoreName() != null && !alertRequest.getStoreName().isEmpty()) {
-                store = storeRepository.findByName(alertRequest.getStoreName())
-                        .orElseThrow(() -> new PriceAlertException("Store not found: " + alertRequest.getStoreName()));
-            }
+            PreparedAlert prepared = prepareAlert(alertRequest);
+            alertRepository.save(prepared.alert());
+            return mapToResponseDto(prepared.alert(), prepared.currentPrice());
+
+        } catch (PriceAlertException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Error creating price alert", e);
+            throw new PriceAlertException("Error creating price alert: " + e.getMessage(), e);
+        }
+    }
 
-            // Check if alert already exists
-            Optional<PriceAlert> existingAlert = alertRepository.findByUserEmailAndProductAndStore(
-                    alertRequest.getUserEmail(), product, store);
-
-            if (existingAlert.isPresent()) {
-                PriceAlert alert = existingAlert.get();
-                // Update existing alert if it's not active
-                if (alert.getStatus() != PriceAlert.AlertStatus.ACTIVE) {
-                    alert.setTargetPrice(alertRequest.getTargetPrice());
-                    alert.setStatus(PriceAlert.AlertStatus.ACTIVE);
-                    alert.setLastCheckedDate(LocalDate.now());
-                    alertRepository.save(alert);
-                    return mapToResponseDto(alert, getCurrentBestPrice(product, store));
-                } else {
-                    throw new PriceAlertException("Alert already exists for this product and store");
+    // All alerts are prepared before any is saved, so the inserts are flushed together as one JDBC batch
+    @Override
+    @Transactional
+    public List<PriceAlertResponseDto> createAlerts(List<PriceAlertRequestDto> alertRequests) {
+        try {
+            Set<String> seen = new HashSet<>();
+            List<PreparedAlert> preparedAlerts = new ArrayList<>();
+            for (PriceAlertRequestDto alertRequest : alertRequests) {
+                String key = alertRequest.getUserEmail() + "|" + alertRequest.getProductId() + "|" + alertRequest.getStoreName();
+                if (!seen.add(key)) {
+                    throw new PriceAlertException("Duplicate alert in request for product: " + alertRequest.getProductId());
                 }
+                preparedAlerts.add(prepareAlert(alertRequest));
             }
 
-            // Find current best price to get currency
-            Double currentPrice = getCurrentBestPrice(product, store);
-            String currency = "USD"; // Default
+            alertRepository.saveAll(preparedAlerts.stream().map(PreparedAlert::alert).toList());
+            return preparedAlerts.stream()
+                    .map(prepared -> mapToResponseDto(prepared.alert(), prepared.currentPrice()))
+                    .collect(Collectors.toList());
 
-            // Try to find a price to get the currency
-            if (store != null) {
-                Optional<Price> latestPrice = priceRepository.findTopByProductAndStoreOrderByDateDesc(product, store);
-                if (latestPrice.isPresent()) {
-                    currency = latestPrice.get().getCurrency();
-                }
+        } catch (PriceAlertException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Error creating price alerts", e);
+            throw new PriceAlertException("Error creating price alerts: " + e.getMessage(), e);
+        }
+    }
+
+    // Validates the request and returns the new or reactivated alert without saving it
+    private PreparedAlert prepareAlert(PriceAlertRequestDto alertRequest) {
+        // Validate product
+        Product product = productRepository.findById(alertRequest.getProductId())
+                .orElseThrow(() -> new PriceAlertException("Product not found: " + alertRequest.getProductId()));
+
+        // Validate store if provided
+        Store store = null;
+        if (alertRequest.getStoreName() != null && !alertRequest.getStoreName().isEmpty()) {
+            store = storeRepository.findByName(alertRequest.getStoreName())
+                    .orElseThrow(() -> new PriceAlertException("Store not found: " + alertRequest.getStoreName()));
+        }
+
+        // Check if alert already exists
+        Optional<PriceAlert> existingAlert = alertRepository.findByUserEmailAndProductAndStore(
+                alertRequest.getUserEmail(), product, store);
+
+        if (existingAlert.isPresent()) {
+            PriceAlert alert = existingAlert.get();
+            // Update existing alert if it's not active
+            if (alert.getStatus() != PriceAlert.AlertStatus.ACTIVE) {
+                alert.setTargetPriceMinor(Money.toMinorUnits(alertRequest.getTargetPrice()));
+                alert.setStatus(PriceAlert.AlertStatus.ACTIVE);
+                alert.setLastCheckedDate(LocalDate.now());
+                return new PreparedAlert(alert, getCurrentBestPrice(product, store));
             } else {
-                List<Price> prices = priceRepository.findByProductOrderByDateDesc(product);
-                if (!prices.isEmpty()) {
-                    currency = prices.getFirst().getCurrency();
-                }
+                throw new PriceAlertException("Alert already exists for this product and store");
             }
+        }
 
-            PriceAlert alert = new PriceAlert();
-            alert.setUserEmail(alertRequest.getUserEmail());
-            alert.setProduct(product);
-            alert.setStore(store);
-            alert.setTargetPrice(alertRequest.getTargetPrice());
-            alert.setCurrency(currency);
-            alert.setStatus(PriceAlert.AlertStatus.ACTIVE);
-            alert.setCreatedDate(LocalDate.now());
-            alert.setLastCheckedDate(LocalDate.now());
-
-            // Check if alert is already triggered
-            if (currentPrice != null && currentPrice <= alertRequest.getTargetPrice()) {
-                alert.setStatus(PriceAlert.AlertStatus.TRIGGERED);
-            }
+        // Find current best price to get currency
+        OptionalLong currentPrice = getCurrentBestPrice(product, store);
+        int currencyId = dictionaryService.currencyId("USD"); // Default
 
-            alertRepository.save(alert);
-            return mapToResponseDto(alert, currentPrice);
+        // Try to find a price to get the currency
+        if (store != null) {
+            Optional<Price> latestPrice = priceRepository.findTopByProductAndStoreOrderByDateDesc(product, store);
+            if (latestPrice.isPresent()) {
+                currencyId = latestPrice.get().getCurrencyId();
+            }
+        } else {
+            List<Price> prices = priceRepository.findByProductOrderByDateDesc(product);
+            if (!prices.isEmpty()) {
+                currencyId = prices.getFirst().getCurrencyId();
+            }
+        }
 
-        } catch (PriceAlertException e) {
-            throw e;
-        } catch (Exception e) {
-            log.error("Error creating price alert", e);
-            throw new PriceAlertException("Error creating price alert: " + e.getMessage(), e);
+        PriceAlert alert = new PriceAlert();
+        alert.setUserEmail(alertRequest.getUserEmail());
+        alert.setProduct(product);
+        alert.setStore(store);
+        alert.setTargetPriceMinor(Money.toMinorUnits(alertRequest.getTargetPrice()));
+        alert.setCurrencyId(currencyId);
+        alert.setStatus(PriceAlert.AlertStatus.ACTIVE);
+        alert.setCreatedDate(LocalDate.now());
+        alert.setLastCheckedDate(LocalDate.now());
+
+        // Check if alert is already triggered
+        if (currentPrice.isPresent() && currentPrice.getAsLong() <= alert.getTargetPriceMinor()) {
+            alert.setStatus(PriceAlert.AlertStatus.TRIGGERED);
         }
+
+        return new PreparedAlert(alert, currentPrice);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<PriceAlertResponseDto> getUserAlerts(String userEmail) {
         try {
             List<PriceAlert> alerts = alertRepository.findByUserEmail(userEmail);
 
             return alerts.stream()
                     .map(alert -> {
-                        Double currentPrice = getCurrentBestPrice(alert.getProduct(), alert.getStore());
+                        OptionalLong currentPrice = getCurrentBestPrice(alert.getProduct(), alert.getStore());
                         return mapToResponseDto(alert, currentPrice);
                     }).collect(Collectors.toList());
 
@@ -125,12 +170,13 @@ public class PriceAlertServiceImpl implements PriceAlertService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public PriceAlertResponseDto getAlertById(Long alertId) {
         try {
             PriceAlert alert = alertRepository.findById(alertId)
                     .orElseThrow(() -> new PriceAlertException("Alert not found: " + alertId));
 
-            Double currentPrice = getCurrentBestPrice(alert.getProduct(), alert.getStore());
+            OptionalLong currentPrice = getCurrentBestPrice(alert.getProduct(), alert.getStore());
             return mapToResponseDto(alert, currentPrice);
 
         } catch (PriceAlertException e) {
@@ -142,6 +188,7 @@ public class PriceAlertServiceImpl implements PriceAlertService {
     }
 
     @Override
+    @Transactional
     public void deleteAlert(Long alertId) {
         try {
             PriceAlert alert = alertRepository.findById(alertId)
@@ -157,7 +204,9 @@ public class PriceAlertServiceImpl implements PriceAlertService {
         }
     }
 
+    // Runs in one transaction so the updated alerts are flushed as one JDBC batch
     @Override
+    @Transactional
     public AlertCheckResultDto checkAlerts(String userEmail) {
         try {
             List<PriceAlert> alerts;
@@ -168,13 +217,14 @@ public class PriceAlertServiceImpl implements PriceAlertService {
             }
 
             List<PriceAlertResponseDto> newlyTriggeredAlerts = new ArrayList<>();
+            List<PriceAlert> checkedAlerts = new ArrayList<>();
             int triggeredCount = 0;
 
             for (PriceAlert alert : alerts) {
-                Double currentPrice = getCurrentBestPrice(alert.getProduct(), alert.getStore());
+                OptionalLong currentPrice = getCurrentBestPrice(alert.getProduct(), alert.getStore());
 
                 // Skip if we can't determine current price
-                if (currentPrice == null) {
+                if (currentPrice.isEmpty()) {
                     continue;
                 }
 
@@ -182,7 +232,7 @@ public class PriceAlertServiceImpl implements PriceAlertService {
                 alert.setLastCheckedDate(LocalDate.now());
 
                 // Check if price has dropped below target
-                if (currentPrice <= alert.getTargetPrice()) {
+                if (currentPrice.getAsLong() <= alert.getTargetPriceMinor()) {
                     // Only count as newly triggered if it wasn't triggered before
                     if (alert.getStatus() != PriceAlert.AlertStatus.TRIGGERED) {
                         alert.setStatus(PriceAlert.AlertStatus.TRIGGERED);
@@ -191,8 +241,9 @@ public class PriceAlertServiceImpl implements PriceAlertService {
                     triggeredCount++;
                 }
 
-                alertRepository.save(alert);
+                checkedAlerts.add(alert);
             }
+            alertRepository.saveAll(checkedAlerts);
 
             AlertCheckResultDto result = new AlertCheckResultDto();
             result.setTotalAlerts(alerts.size());
@@ -207,35 +258,54 @@ public class PriceAlertServiceImpl implements PriceAlertService {
         }
     }
 
-    private Double getCurrentBestPrice(Product product, Store store) {
+    // Best price in minor units, empty when the product has no price
+    private OptionalLong getCurrentBestPrice(Product product, Store store) {
         LocalDate today = LocalDate.now();
 
+        if (priceEngine.isActive()) {
+            long bestPrice = store != null
+                    ? priceEngine.effectivePriceMinor(product.getId(), store.getId(), today)
+                    : priceEngine.bestEffectivePriceMinor(product.getId(), today);
+            return bestPrice != PriceEngine.NO_PRICE ? OptionalLong.of(bestPrice) : OptionalLong.empty();
+        }
+
         if (store != null) {
+            Optional<CurrentPrice> currentPrice = currentPriceService.findCurrentPrice(product, store, today);
+            if (currentPrice.isPresent()) {
+                return OptionalLong.of(currentPrice.get().effectivePriceMinor(today));
+            }
+
             // Get best price for specific store
             Optional<Price> latestPrice = priceRepository.findTopByProductAndStoreOrderByDateDesc(product, store);
 
             if (latestPrice.isPresent()) {
                 Price price = latestPrice.get();
-                double originalPrice = price.getPrice();
+                long originalPrice = price.getPriceMinor();
 
                 Optional<Discount> activeDiscount = discountRepository
                         .findByProductAndStoreAndStartDateLessThanEqualAndEndDateGreaterThanEqual(product, store, today, today);
 
                 if (activeDiscount.isPresent()) {
-                    double discountPercentage = activeDiscount.get().getPercentageOfDiscount();
-                    return roundToTwoDecimals(originalPrice * (1 - discountPercentage / 100));
+                    return OptionalLong.of(Money.applyDiscount(originalPrice, activeDiscount.get().getDiscountBasisPoints()));
                 }
 
-                return roundToTwoDecimals(originalPrice);
+                return OptionalLong.of(originalPrice);
             }
 
-            return null;
+            return OptionalLong.empty();
         } else {
+            Optional<List<CurrentPrice>> currentPrices = currentPriceService.findCurrentPrices(product, today);
+            if (currentPrices.isPresent()) {
+                return currentPrices.get().stream()
+                        .mapToLong(currentPrice -> currentPrice.effectivePriceMinor(today))
+                        .min();
+            }
+
             // Get best price across all stores
             List<Price> latestPrices = priceRepository.findByProductOrderByDateDesc(product);
 
             if (latestPrices.isEmpty()) {
-                return null;
+                return OptionalLong.empty();
             }
 
             // Group by store to get the most recent price for each store
@@ -248,42 +318,38 @@ public class PriceAlertServiceImpl implements PriceAlertService {
             }
 
             // Find the best price considering discounts
-            Double bestPrice = null;
+            long bestPrice = Long.MAX_VALUE;
 
             for (Map.Entry<Store, Price> entry : latestPriceByStore.entrySet()) {
                 Store priceStore = entry.getKey();
                 Price price = entry.getValue();
-                double originalPrice = price.getPrice();
-                double finalPrice = originalPrice;
+                long finalPrice = price.getPriceMinor();
 
                 Optional<Discount> activeDiscount = discountRepository
                         .findByProductAndStoreAndStartDateLessThanEqualAndEndDateGreaterThanEqual(product, priceStore, today, today);
 
                 if (activeDiscount.isPresent()) {
-                    double discountPercentage = activeDiscount.get().getPercentageOfDiscount();
-                    finalPrice = originalPrice * (1 - discountPercentage / 100);
+                    finalPrice = Money.applyDiscount(finalPrice, activeDiscount.get().getDiscountBasisPoints());
                 }
 
                 // Update best price if the new one is lower
-                if (bestPrice == null || finalPrice < bestPrice) {
-                    bestPrice = finalPrice;
-                }
+                bestPrice = Math.min(bestPrice, finalPrice);
             }
 
-            return bestPrice != null ? roundToTwoDecimals(bestPrice) : null;
+            return OptionalLong.of(bestPrice);
         }
     }
 
-    private PriceAlertResponseDto mapToResponseDto(PriceAlert alert, Double currentPrice) {
+    private PriceAlertResponseDto mapToResponseDto(PriceAlert alert, OptionalLong currentPrice) {
         PriceAlertResponseDto dto = new PriceAlertResponseDto();
         dto.setId(alert.getId());
         dto.setUserEmail(alert.getUserEmail());
         dto.setProductId(alert.getProduct().getId());
         dto.setProductName(alert.getProduct().getProductName());
         dto.setStoreName(alert.getStore() != null ? alert.getStore().getName() : null);
-        dto.setTargetPrice(roundToTwoDecimals(alert.getTargetPrice()));
-        dto.setCurrentBestPrice(currentPrice != null ? roundToTwoDecimals(currentPrice) : null);
-        dto.setCurrency(alert.getCurrency());
+        dto.setTargetPrice(Money.toDecimal(alert.getTargetPriceMinor()));
+        dto.setCurrentBestPrice(currentPrice.isPresent() ? Money.toDecimal(currentPrice.getAsLong()) : null);
+        dto.setCurrency(dictionaryService.currency(alert.getCurrencyId()));
         dto.setStatus(alert.getStatus().toString());
         dto.setIsTriggered(alert.getStatus() == PriceAlert.AlertStatus.TRIGGERED);
         dto.setCreatedDate(alert.getCreatedDate());
@@ -291,7 +357,6 @@ public class PriceAlertServiceImpl implements PriceAlertService {
         return dto;
     }
 
-    private double roundToTwoDecimals(double value) {
-        return Math.round(value * 100.0) / 100.0;
+    private record PreparedAlert(PriceAlert alert, OptionalLong currentPrice) {
     }
 }
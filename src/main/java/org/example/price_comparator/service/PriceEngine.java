@@ -0,0 +1,31 @@
+package org.example.price_comparator.service;
+
+import org.example.price_comparator.dto.BestDiscountRow;
+import org.example.price_comparator.dto.PriceHistoryRow;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface PriceEngine {
+
+    long NO_PRICE = -1;
+    int NO_DISCOUNT = -1;
+
+    // The price of a product in one store on a date; days are epoch days, discountBasisPoints is NO_DISCOUNT
+    // when no discount is active
+    @FunctionalInterface
+    interface StorePriceConsumer {
+        void accept(long storeId, String storeName, int priceDay, long priceMinor, int currencyId,
+                    int discountBasisPoints, long effectivePriceMinor);
+    }
+
+    boolean isActive();
+    void refresh();
+    long effectivePriceMinor(String productId, long storeId, LocalDate date);
+    long bestEffectivePriceMinor(String productId, LocalDate date);
+    int forEachStorePrice(String productId, LocalDate date, StorePriceConsumer consumer);
+    List<PriceHistoryRow> findHistory(String productId, Long storeId, LocalDate startDate, LocalDate endDate);
+    List<BestDiscountRow> findBestActiveOn(LocalDate date, LocalDate priceDate, int limit);
+    List<BestDiscountRow> findBestStartingFrom(LocalDate date, LocalDate priceDate);
+    List<BestDiscountRow> findBestStartingBetween(LocalDate startDate, LocalDate endDate, LocalDate priceDate);
+}
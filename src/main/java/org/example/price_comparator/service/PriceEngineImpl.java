@@ -0,0 +1,325 @@
+package org.example.price_comparator.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.price_comparator.dto.BestDiscountRow;
+import org.example.price_comparator.dto.PriceHistoryRow;
+import org.example.price_comparator.repository.PriceEngineRepository;
+import org.example.price_comparator.repository.PriceEngineRepository.DataVersion;
+import org.example.price_comparator.util.Money;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.example.price_comparator.service.PriceSnapshot.NOT_FOUND;
+
+// Answers price lookups from a PriceSnapshot held in memory instead of querying Postgres.
+// Enabled with prices.engine.enabled; the snapshot is loaded in the background at startup and reloaded after
+// every import that wrote rows. Until the first load completes the callers keep using the database.
+// Each load from the database is also written to prices.snapshot.path, and a restart maps that file instead
+// of reading the tables again unless the data version has changed since it was written.
+// The point lookups (effectivePriceMinor, bestEffectivePriceMinor, forEachStorePrice) allocate nothing:
+// they read the current snapshot once and only touch its primitive arrays.
+@Service
+@Slf4j
+public class PriceEngineImpl implements PriceEngine {
+
+    private final PriceEngineRepository priceEngineRepository;
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final AtomicBoolean refreshRequested = new AtomicBoolean();
+    private volatile PriceSnapshot snapshot;
+
+    @Value("${prices.engine.enabled:false}")
+    private boolean enabled;
+
+    @Value("${prices.snapshot.enabled:true}")
+    private boolean snapshotFileEnabled;
+
+    @Value("${prices.snapshot.path:data/price-snapshot.bin}")
+    private Path snapshotPath;
+
+    @Value("${prices.snapshot.max-age-hours:24}")
+    private long snapshotMaxAgeHours;
+
+    public PriceEngineImpl(PriceEngineRepository priceEngineRepository) {
+        this.priceEngineRepository = priceEngineRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (enabled) {
+            Thread.ofVirtual().name("price-engine-load").start(this::loadInitialSnapshot);
+        }
+    }
+
+    void loadInitialSnapshot() {
+        if (!loadSnapshotFile()) {
+            refresh();
+        } else if (refreshRequested.get()) {
+            // An import finished while the file was read and its refresh could not take the lock
+            refresh();
+        }
+    }
+
+    @Override
+    public boolean isActive() {
+        return enabled && snapshot != null;
+    }
+
+    // Requests arriving while a load runs are folded into one more load after it
+    @Override
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        refreshRequested.set(true);
+        while (refreshRequested.get() && refreshLock.tryLock()) {
+            try {
+                if (refreshRequested.getAndSet(false)) {
+                    load();
+                }
+            } finally {
+                refreshLock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public long effectivePriceMinor(String productId, long storeId, LocalDate date) {
+        PriceSnapshot current = snapshot;
+        int product = current.product(productId);
+        int store = current.store(storeId);
+        if (product == NOT_FOUND || store == NOT_FOUND) {
+            return NO_PRICE;
+        }
+        int series = current.series(product, store);
+        return series == NOT_FOUND ? NO_PRICE : effectivePrice(current, series, (int) date.toEpochDay());
+    }
+
+    @Override
+    public long bestEffectivePriceMinor(String productId, LocalDate date) {
+        PriceSnapshot current = snapshot;
+        int product = current.product(productId);
+        if (product == NOT_FOUND) {
+            return NO_PRICE;
+        }
+        int day = (int) date.toEpochDay();
+        long best = NO_PRICE;
+        int first = current.productFirstSeries[product];
+        for (int series = first; series < first + current.productSeriesCount[product]; series++) {
+            long price = effectivePrice(current, series, day);
+            if (price != NO_PRICE && (best == NO_PRICE || price < best)) {
+                best = price;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public int forEachStorePrice(String productId, LocalDate date, StorePriceConsumer consumer) {
+        PriceSnapshot current = snapshot;
+        int product = current.product(productId);
+        if (product == NOT_FOUND) {
+            return 0;
+        }
+        int day = (int) date.toEpochDay();
+        int stores = 0;
+        int first = current.productFirstSeries[product];
+        for (int series = first; series < first + current.productSeriesCount[product]; series++) {
+            int price = current.priceOn(series, day);
+            if (price == NOT_FOUND) {
+                continue;
+            }
+            int discount = current.discountOn(series, day);
+            long priceMinor = current.priceMinor[price];
+            int basisPoints = discount == NOT_FOUND ? NO_DISCOUNT : current.discountBasisPoints[discount];
+            long effectivePriceMinor = discount == NOT_FOUND ? priceMinor : Money.applyDiscount(priceMinor, basisPoints);
+            int store = current.seriesStore[series];
+            consumer.accept(current.storeIds[store], current.storeNames[store], current.priceDays[price], priceMinor,
+                    current.priceCurrencyIds[price], basisPoints, effectivePriceMinor);
+            stores++;
+        }
+        return stores;
+    }
+
+    // Same rows as PriceRepository.findHistoryByProduct(AndStore)
+    @Override
+    public List<PriceHistoryRow> findHistory(String productId, Long storeId, LocalDate startDate, LocalDate endDate) {
+        PriceSnapshot current = snapshot;
+        int product = current.product(productId);
+        int store = storeId != null ? current.store(storeId) : NOT_FOUND;
+        if (product == NOT_FOUND || (storeId != null && store == NOT_FOUND)) {
+            return List.of();
+        }
+        int startDay = (int) startDate.toEpochDay();
+        int endDay = (int) endDate.toEpochDay();
+        List<PriceHistoryRow> rows = new ArrayList<>();
+        int first = current.productFirstSeries[product];
+        for (int series = first; series < first + current.productSeriesCount[product]; series++) {
+            if (storeId != null && current.seriesStore[series] != store) {
+                continue;
+            }
+            int beforeStart = current.priceOn(series, startDay - 1);
+            int row = beforeStart != NOT_FOUND ? beforeStart + 1 : current.seriesFirstPrice[series];
+            int lastRow = current.seriesFirstPrice[series] + current.seriesPriceCount[series];
+            for (; row < lastRow && current.priceDays[row] <= endDay; row++) {
+                int day = current.priceDays[row];
+                int discount = current.discountOn(series, day);
+                rows.add(new PriceHistoryRow(LocalDate.ofEpochDay(day), current.storeIds[current.seriesStore[series]],
+                        current.priceMinor[row], current.priceCurrencyIds[row],
+                        discount != NOT_FOUND ? current.discountBasisPoints[discount] : null));
+            }
+        }
+        rows.sort(Comparator.comparing(PriceHistoryRow::date));
+        return rows;
+    }
+
+    // The three finders return the same rows as their DiscountRepository counterparts
+    @Override
+    public List<BestDiscountRow> findBestActiveOn(LocalDate date, LocalDate priceDate, int limit) {
+        int day = (int) date.toEpochDay();
+        List<BestDiscountRow> rows = findDiscounts((startDay, endDay) -> startDay <= day && endDay >= day, priceDate);
+        rows.sort(Comparator.comparingInt(BestDiscountRow::discountBasisPoints).reversed());
+        return rows.size() > limit ? new ArrayList<>(rows.subList(0, limit)) : rows;
+    }
+
+    @Override
+    public List<BestDiscountRow> findBestStartingFrom(LocalDate date, LocalDate priceDate) {
+        int day = (int) date.toEpochDay();
+        List<BestDiscountRow> rows = findDiscounts((startDay, endDay) -> startDay >= day, priceDate);
+        rows.sort(Comparator.comparing(BestDiscountRow::startDate).reversed());
+        return rows;
+    }
+
+    @Override
+    public List<BestDiscountRow> findBestStartingBetween(LocalDate startDate, LocalDate endDate, LocalDate priceDate) {
+        int fromDay = (int) startDate.toEpochDay();
+        int toDay = (int) endDate.toEpochDay();
+        List<BestDiscountRow> rows = findDiscounts((startDay, endDay) -> startDay >= fromDay && startDay <= toDay, priceDate);
+        rows.sort(Comparator.comparing(BestDiscountRow::startDate).reversed());
+        return rows;
+    }
+
+    // Discounts are priced with the latest price of their product and store on or before priceDate;
+    // discounts without such a price are left out
+    private List<BestDiscountRow> findDiscounts(DiscountFilter filter, LocalDate priceDate) {
+        PriceSnapshot current = snapshot;
+        int priceDay = (int) priceDate.toEpochDay();
+        List<BestDiscountRow> rows = new ArrayList<>();
+        for (int series = 0; series < current.seriesCount; series++) {
+            int firstDiscount = current.seriesFirstDiscount[series];
+            int lastDiscount = firstDiscount + current.seriesDiscountCount[series];
+            for (int discount = firstDiscount; discount < lastDiscount; discount++) {
+                if (!filter.matches(current.discountStartDays[discount], current.discountEndDays[discount])) {
+                    continue;
+                }
+                int price = current.priceOn(series, priceDay);
+                if (price == NOT_FOUND) {
+                    continue;
+                }
+                int product = current.seriesProduct[series];
+                rows.add(new BestDiscountRow(current.productIds[product], current.productNames[product],
+                        current.categoryIds[product], current.brandIds[product], current.packageQuantities[product],
+                        current.unitIds[product], current.storeNames[current.seriesStore[series]],
+                        current.discountBasisPoints[discount], current.priceMinor[price], current.priceCurrencyIds[price],
+                        LocalDate.ofEpochDay(current.discountStartDays[discount]),
+                        LocalDate.ofEpochDay(current.discountEndDays[discount])));
+            }
+        }
+        return rows;
+    }
+
+    private static long effectivePrice(PriceSnapshot current, int series, int day) {
+        int price = current.priceOn(series, day);
+        if (price == NOT_FOUND) {
+            return NO_PRICE;
+        }
+        int discount = current.discountOn(series, day);
+        return discount == NOT_FOUND
+                ? current.priceMinor[price]
+                : Money.applyDiscount(current.priceMinor[price], current.discountBasisPoints[discount]);
+    }
+
+    // A failed load keeps serving the previous snapshot
+    private void load() {
+        long start = System.nanoTime();
+        PriceSnapshot loaded;
+        DataVersion dataVersion;
+        try {
+            PriceSnapshot.Builder builder = new PriceSnapshot.Builder();
+            dataVersion = priceEngineRepository.loadSnapshot(builder);
+            loaded = builder.build();
+            snapshot = loaded;
+            log.info("Loaded {} prices and {} discounts of {} products into the price engine in {} ms ({} MB of columns)",
+                    loaded.priceCount(), loaded.discountCount(), loaded.productCount(),
+                    (System.nanoTime() - start) / 1_000_000, loaded.columnBytes() / (1024 * 1024));
+        } catch (RuntimeException e) {
+            log.error("Error loading the price engine; {}", snapshot != null ? "keeping the previous snapshot" : "using the database", e);
+            return;
+        }
+        if (snapshotFileEnabled) {
+            writeSnapshotFile(loaded, dataVersion);
+        }
+    }
+
+    private void writeSnapshotFile(PriceSnapshot loaded, DataVersion dataVersion) {
+        long start = System.nanoTime();
+        try {
+            PriceSnapshotFile.write(snapshotPath, loaded, dataVersion);
+            log.info("Wrote price snapshot file {} in {} ms", snapshotPath, (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            log.warn("Error writing price snapshot file {}", snapshotPath, e);
+        }
+    }
+
+    // Runs under the refresh lock so it can never replace a snapshot that was just read from the database
+    private boolean loadSnapshotFile() {
+        if (!snapshotFileEnabled || !Files.exists(snapshotPath)) {
+            return false;
+        }
+        refreshLock.lock();
+        try {
+            if (snapshot != null) {
+                return true;
+            }
+            long start = System.nanoTime();
+            PriceSnapshotFile.Header header = PriceSnapshotFile.readHeader(snapshotPath);
+            if (Duration.between(header.writtenAt(), Instant.now()).toHours() >= snapshotMaxAgeHours) {
+                log.info("Price snapshot file {} was written at {}, too long ago to use", snapshotPath, header.writtenAt());
+                return false;
+            }
+            if (!header.dataVersion().equals(priceEngineRepository.currentDataVersion())) {
+                log.info("Price snapshot file {} is stale, the tables have changed since it was written", snapshotPath);
+                return false;
+            }
+            PriceSnapshot loaded = PriceSnapshotFile.read(snapshotPath);
+            snapshot = loaded;
+            log.info("Mapped {} prices and {} discounts of {} products from {} in {} ms",
+                    loaded.priceCount(), loaded.discountCount(), loaded.productCount(), snapshotPath,
+                    (System.nanoTime() - start) / 1_000_000);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Error reading price snapshot file {}, loading from the database", snapshotPath, e);
+            return false;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    @FunctionalInterface
+    private interface DiscountFilter {
+        boolean matches(int startDay, int endDay);
+    }
+}
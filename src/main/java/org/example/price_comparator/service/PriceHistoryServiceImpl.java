@@ -2,17 +2,17 @@ package org.example.price_comparator.service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.example.price_comparator.dto.PriceHistoryPointDto;
+import org.example.price_comparator.dto.PriceHistoryRow;
 import org.example.price_comparator.dto.ProductPriceHistoryDto;
 import org.example.price_comparator.exceptions.PriceHistoryException;
-import org.example.price_comparator.model.Discount;
-import org.example.price_comparator.model.Price;
 import org.example.price_comparator.model.Product;
 import org.example.price_comparator.model.Store;
-import org.example.price_comparator.repository.DiscountRepository;
 import org.example.price_comparator.repository.PriceRepository;
 import org.example.price_comparator.repository.ProductRepository;
 import org.example.price_comparator.repository.StoreRepository;
+import org.example.price_comparator.util.Money;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.*;
@@ -24,19 +24,23 @@ public class PriceHistoryServiceImpl implements PriceHistoryService {
     private final ProductRepository productRepository;
     private final StoreRepository storeRepository;
     private final PriceRepository priceRepository;
-    private final DiscountRepository discountRepository;
+    private final DictionaryService dictionaryService;
+    private final PriceEngine priceEngine;
 
     public PriceHistoryServiceImpl(ProductRepository productRepository,
                                    StoreRepository storeRepository,
                                    PriceRepository priceRepository,
-                                   DiscountRepository discountRepository) {
+                                   DictionaryService dictionaryService,
+                                   PriceEngine priceEngine) {
         this.productRepository = productRepository;
         this.storeRepository = storeRepository;
         this.priceRepository = priceRepository;
-        this.discountRepository = discountRepository;
+        this.dictionaryService = dictionaryService;
+        this.priceEngine = priceEngine;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ProductPriceHistoryDto getProductPriceHistory(String productId, String storeName,
                                                          LocalDate startDate, LocalDate endDate) {
         try {
@@ -63,11 +67,13 @@ public class PriceHistoryServiceImpl implements PriceHistoryService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ProductPriceHistoryDto> getPriceHistoryByCategory(String category, String storeName,
                                                                   LocalDate startDate, LocalDate endDate) {
         try {
             // Find products in the category
-            List<Product> products = productRepository.findByProductCategoryIgnoreCase(category);
+            List<Integer> categoryIds = dictionaryService.categoryIdsIgnoreCase(category);
+            List<Product> products = categoryIds.isEmpty() ? List.of() : productRepository.findByCategoryIdIn(categoryIds);
             if (products.isEmpty()) {
                 log.info("No products found in category: {}", category);
                 return Collections.emptyList();
@@ -88,11 +94,13 @@ public class PriceHistoryServiceImpl implements PriceHistoryService {
         }
     }
     @Override
+    @Transactional(readOnly = true)
     public List<ProductPriceHistoryDto> getPriceHistoryByBrand(String brand, String storeName,
                                                                LocalDate startDate, LocalDate endDate) {
         try {
             // Find products of the brand
-            List<Product> products = productRepository.findByBrandIgnoreCase(brand);
+            List<Integer> brandIds = dictionaryService.brandIdsIgnoreCase(brand);
+            List<Product> products = brandIds.isEmpty() ? List.of() : productRepository.findByBrandIdIn(brandIds);
             if (products.isEmpty()) {
                 log.info("No products found for brand: {}", brand);
                 return Collections.emptyList();
@@ -138,69 +146,53 @@ public class PriceHistoryServiceImpl implements PriceHistoryService {
         LocalDate effectiveStartDate = (startDate != null) ? startDate : LocalDate.now().minusMonths(3);
         LocalDate effectiveEndDate = (endDate != null) ? endDate : LocalDate.now();
         // Get prices for the product
-        List<Price> prices;
-        if (store != null) {
+        List<PriceHistoryRow> rows;
+        if (priceEngine.isActive()) {
+            rows = priceEngine.findHistory(product.getId(), store != null ? store.getId() : null,
+                    effectiveStartDate, effectiveEndDate);
+        } else if (store != null) {
             // Filter by store if specified
-            prices = priceRepository.findByProductAndStoreAndDateBetweenOrderByDateAsc(
-                    product, store, effectiveStartDate, effectiveEndDate);
+            rows = priceRepository.findHistoryByProductAndStore(product, store, effectiveStartDate, effectiveEndDate);
         } else {
             // Get all prices across stores
-            prices = priceRepository.findByProductAndDateBetweenOrderByDateAsc(
-                    product, effectiveStartDate, effectiveEndDate);
+            rows = priceRepository.findHistoryByProduct(product, effectiveStartDate, effectiveEndDate);
         }
-        if (prices.isEmpty()) {
+        if (rows.isEmpty()) {
             return Collections.emptyList();
         }
-        // Map of date to price point to handle multiple prices on the same day
-        Map<LocalDate, Map<Store, PriceHistoryPointDto>> pricePointsByDate = new HashMap<>();
+        // Map of date to price point per store to handle multiple prices on the same day
+        Map<LocalDate, Map<Long, PriceHistoryPointDto>> pricePointsByDate = new HashMap<>();
         // Process each price
-        for (Price price : prices) {
-            LocalDate date = price.getDate();
-            Store priceStore = price.getStore();
-            // Get or create the map for this date
-            if (!pricePointsByDate.containsKey(date)) {
-                pricePointsByDate.put(date, new HashMap<>());
-            }
+        for (PriceHistoryRow row : rows) {
+            Map<Long, PriceHistoryPointDto> pricePointsByStore = pricePointsByDate.computeIfAbsent(row.date(), date -> new HashMap<>());
 
             // Skip if we already have a price point for this store on this date
-            if (pricePointsByDate.get(date).containsKey(priceStore)) {
+            if (pricePointsByStore.containsKey(row.storeId())) {
                 continue;
             }
             // Create a price history point
             PriceHistoryPointDto pricePoint = new PriceHistoryPointDto();
-            pricePoint.setDate(date);
-            pricePoint.setPrice(price.getPrice());
-            pricePoint.setCurrency(price.getCurrency());
-            // Check if there is a discount active on this date
-            Optional<Discount> discount = discountRepository
-                    .findByProductAndStoreAndStartDateLessThanEqualAndEndDateGreaterThanEqual(
-                            product, priceStore, date, date);
-            if (discount.isPresent()) {
+            pricePoint.setDate(row.date());
+            pricePoint.setPrice(Money.toDecimal(row.priceMinor()));
+            pricePoint.setCurrency(dictionaryService.currency(row.currencyId()));
+            // The discount active on this date, if any, comes with the row
+            if (row.discountBasisPoints() != null) {
                 pricePoint.setIsDiscounted(true);
-                pricePoint.setDiscountPercentage(discount.get().getPercentageOfDiscount());
-                pricePoint.setOriginalPrice(price.getPrice());
-                double discountedPrice = price.getPrice() * (1 - discount.get().getPercentageOfDiscount() / 100);
-                pricePoint.setPrice(discountedPrice);
+                pricePoint.setDiscountPercentage(Money.toPercentage(row.discountBasisPoints()));
+                pricePoint.setOriginalPrice(Money.toDecimal(row.priceMinor()));
+                long discountedPrice = Money.applyDiscount(row.priceMinor(), row.discountBasisPoints());
+                pricePoint.setPrice(Money.toDecimal(discountedPrice));
             } else {
                 pricePoint.setIsDiscounted(false);
             }
-            pricePointsByDate.get(date).put(priceStore, pricePoint);
+            pricePointsByStore.put(row.storeId(), pricePoint);
         }
-        // Flatten the map to a list of price points
+        // Flatten the map to a list of price points: the lowest price for each date,
+        // which is the only one when a specific store is requested
         List<PriceHistoryPointDto> result = new ArrayList<>();
-        if (store != null) {
-            // If a specific store is requested, return a single series
-            for (Map.Entry<LocalDate, Map<Store, PriceHistoryPointDto>> entry : pricePointsByDate.entrySet()) {
-                if (entry.getValue().containsKey(store)) {
-                    result.add(entry.getValue().get(store));
-                }
-            }
-        } else {
-            // If no specific store is requested, return the lowest price for each date
-            for (Map.Entry<LocalDate, Map<Store, PriceHistoryPointDto>> entry : pricePointsByDate.entrySet()) {
-                entry.getValue().values().stream()
-                        .min(Comparator.comparing(PriceHistoryPointDto::getPrice)).ifPresent(result::add);
-            }
+        for (Map<Long, PriceHistoryPointDto> pricePointsByStore : pricePointsByDate.values()) {
+            pricePointsByStore.values().stream()
+                    .min(Comparator.comparing(PriceHistoryPointDto::getPrice)).ifPresent(result::add);
         }
         // Sort by date
         result.sort(Comparator.comparing(PriceHistoryPointDto::getDate));
@@ -212,10 +204,10 @@ public class PriceHistoryServiceImpl implements PriceHistoryService {
         ProductPriceHistoryDto dto = new ProductPriceHistoryDto();
         dto.setProductId(product.getId());
         dto.setProductName(product.getProductName());
-        dto.setProductCategory(product.getProductCategory());
-        dto.setBrand(product.getBrand());
+        dto.setProductCategory(dictionaryService.category(product.getCategoryId()));
+        dto.setBrand(dictionaryService.brand(product.getBrandId()));
         dto.setPackageQuantity(product.getPackageQuantity());
-        dto.setPackageUnit(product.getPackageUnit());
+        dto.setPackageUnit(dictionaryService.unit(product.getUnitId()));
         dto.setStoreName(storeName);
         dto.setPriceHistory(priceHistory);
         return dto;
@@ -0,0 +1,9 @@
+package org.example.price_comparator.service;
+
+import java.time.LocalDate;
+
+public interface PricePartitionService {
+
+    void ensurePartitionFor(LocalDate date);
+    void maintainPartitions();
+}
@@ -0,0 +1,126 @@
+package org.example.price_comparator.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.price_comparator.repository.PriceEngineRepository;
+import org.example.price_comparator.repository.PriceRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Manages the monthly partitions of prices (prices_pYYYY_MM). Partitions are created ahead of time by the
+// scheduled maintenance and on demand before a price feed is imported, so historical feeds also find theirs.
+// Does nothing when prices is a plain table, e.g. a database created by Hibernate before the migrations existed.
+@Service
+@Slf4j
+public class PricePartitionServiceImpl implements PricePartitionService {
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("prices_p(\\d{4})_(\\d{2})");
+
+    private final PriceRepository priceRepository;
+    private final PriceEngine priceEngine;
+    private final PriceEngineRepository priceEngineRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Set<YearMonth> knownPartitions = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile Boolean partitioned;
+
+    @Value("${prices.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    // 0 keeps every partition
+    @Value("${prices.partitions.retention-months:0}")
+    private int retentionMonths;
+
+    public PricePartitionServiceImpl(PriceRepository priceRepository, PriceEngine priceEngine,
+                                     PriceEngineRepository priceEngineRepository, PlatformTransactionManager transactionManager) {
+        this.priceRepository = priceRepository;
+        this.priceEngine = priceEngine;
+        this.priceEngineRepository = priceEngineRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void ensurePartitionFor(LocalDate date) {
+        YearMonth month = YearMonth.from(date);
+        if (knownPartitions.contains(month) || !isPartitioned()) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (knownPartitions.add(month)) {
+                priceRepository.createPartition(partitionName(month), month.atDay(1), month.plusMonths(1).atDay(1));
+            }
+        } catch (RuntimeException e) {
+            knownPartitions.remove(month);
+            throw e;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${prices.partitions.maintenance-cron:0 0 3 * * *}")
+    public void maintainPartitions() {
+        if (!isPartitioned()) {
+            return;
+        }
+        knownPartitions.clear();
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            ensurePartitionFor(current.plusMonths(i).atDay(1));
+        }
+        if (retentionMonths > 0) {
+            detachExpiredPartitions(current.minusMonths(retentionMonths));
+        }
+    }
+
+    private void detachExpiredPartitions(YearMonth oldestKept) {
+        int detached = 0;
+        for (String name : priceRepository.findPartitionNames()) {
+            Matcher matcher = PARTITION_NAME.matcher(name);
+            if (!matcher.matches()) {
+                continue;
+            }
+            YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            if (month.isBefore(oldestKept)) {
+                // The prices leave the table, so the data version changes with the detach
+                String detachedName = transactionTemplate.execute(status -> {
+                    String archived = priceRepository.detachPartition(name);
+                    priceEngineRepository.incrementDataVersion();
+                    return archived;
+                });
+                knownPartitions.remove(month);
+                log.info("Detached price partition {} as {}", name, detachedName);
+                detached++;
+            }
+        }
+        // The engine's snapshot still holds the detached prices; reloaded off the maintenance thread
+        if (detached > 0) {
+            Thread.ofVirtual().name("price-engine-refresh").start(priceEngine::refresh);
+        }
+    }
+
+    private boolean isPartitioned() {
+        if (partitioned == null) {
+            partitioned = priceRepository.isPartitioned();
+        }
+        return partitioned;
+    }
+
+    private String partitionName(YearMonth month) {
+        return String.format("prices_p%04d_%02d", month.getYear(), month.getMonthValue());
+    }
+}
@@ -0,0 +1,335 @@
+package org.example.price_comparator.service;
+
+import org.example.price_comparator.repository.PriceEngineRepository.SnapshotRowHandler;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Immutable, columnar copy of products, stores, prices and discounts used by PriceEngineImpl.
+// The prices and discounts of one product in one store form a series; the rows of a series are contiguous and
+// sorted by day, and the series of one product are contiguous, so a lookup is one hash probe for the product,
+// a scan over its few stores and binary searches over primitive arrays. Days are epoch days, amounts minor units.
+public final class PriceSnapshot {
+
+    public static final int NOT_FOUND = -1;
+
+    // Products, by product index
+    final Map<String, Integer> productIndex;
+    final String[] productIds;
+    final String[] productNames;
+    final int[] categoryIds;
+    final int[] brandIds;
+    final int[] unitIds;
+    final double[] packageQuantities;
+    final int[] productFirstSeries;
+    final int[] productSeriesCount;
+
+    // Stores, sorted by id
+    final long[] storeIds;
+    final String[] storeNames;
+
+    // Series
+    final int seriesCount;
+    final int[] seriesProduct;
+    final int[] seriesStore;
+    final int[] seriesFirstPrice;
+    final int[] seriesPriceCount;
+    final int[] seriesFirstDiscount;
+    final int[] seriesDiscountCount;
+
+    // Price rows
+    final int priceCount;
+    final int[] priceDays;
+    final long[] priceMinor;
+    final short[] priceCurrencyIds;
+
+    // Discount rows
+    final int discountCount;
+    final int[] discountStartDays;
+    final int[] discountEndDays;
+    final int[] discountBasisPoints;
+
+    // Takes ownership of the arrays, which must be exactly as long as their row counts
+    PriceSnapshot(String[] productIds, String[] productNames, int[] categoryIds, int[] brandIds, int[] unitIds,
+                  double[] packageQuantities, int[] productFirstSeries, int[] productSeriesCount,
+                  long[] storeIds, String[] storeNames,
+                  int[] seriesProduct, int[] seriesStore, int[] seriesFirstPrice, int[] seriesPriceCount,
+                  int[] seriesFirstDiscount, int[] seriesDiscountCount,
+                  int[] priceDays, long[] priceMinor, short[] priceCurrencyIds,
+                  int[] discountStartDays, int[] discountEndDays, int[] discountBasisPoints) {
+        productIndex = HashMap.newHashMap(productIds.length);
+        for (int product = 0; product < productIds.length; product++) {
+            productIndex.put(productIds[product], product);
+        }
+        this.productIds = productIds;
+        this.productNames = productNames;
+        this.categoryIds = categoryIds;
+        this.brandIds = brandIds;
+        this.unitIds = unitIds;
+        this.packageQuantities = packageQuantities;
+        this.productFirstSeries = productFirstSeries;
+        this.productSeriesCount = productSeriesCount;
+        this.storeIds = storeIds;
+        this.storeNames = storeNames;
+        seriesCount = seriesProduct.length;
+        this.seriesProduct = seriesProduct;
+        this.seriesStore = seriesStore;
+        this.seriesFirstPrice = seriesFirstPrice;
+        this.seriesPriceCount = seriesPriceCount;
+        this.seriesFirstDiscount = seriesFirstDiscount;
+        this.seriesDiscountCount = seriesDiscountCount;
+        priceCount = priceDays.length;
+        this.priceDays = priceDays;
+        this.priceMinor = priceMinor;
+        this.priceCurrencyIds = priceCurrencyIds;
+        discountCount = discountStartDays.length;
+        this.discountStartDays = discountStartDays;
+        this.discountEndDays = discountEndDays;
+        this.discountBasisPoints = discountBasisPoints;
+    }
+
+    public int productCount() {
+        return productIds.length;
+    }
+
+    public int priceCount() {
+        return priceCount;
+    }
+
+    public int discountCount() {
+        return discountCount;
+    }
+
+    // Approximate heap taken by the columns, strings and the product index excluded
+    public long columnBytes() {
+        return (long) productIds.length * (4 * Integer.BYTES + Double.BYTES)
+                + (long) storeIds.length * Long.BYTES
+                + (long) seriesCount * 6 * Integer.BYTES
+                + (long) priceCount * (Integer.BYTES + Long.BYTES + Short.BYTES)
+                + (long) discountCount * 3 * Integer.BYTES;
+    }
+
+    int product(String productId) {
+        Integer product = productIndex.get(productId);
+        return product != null ? product : NOT_FOUND;
+    }
+
+    int store(long storeId) {
+        int store = Arrays.binarySearch(storeIds, storeId);
+        return store >= 0 ? store : NOT_FOUND;
+    }
+
+    // A product is sold in a handful of stores, so a scan beats any index
+    int series(int product, int store) {
+        int first = productFirstSeries[product];
+        for (int series = first; series < first + productSeriesCount[product]; series++) {
+            if (seriesStore[series] == store) {
+                return series;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    // The last price row of the series on or before the day; rows of the same day keep their insertion order
+    int priceOn(int series, int day) {
+        return lastAtOrBefore(priceDays, seriesFirstPrice[series], seriesPriceCount[series], day);
+    }
+
+    // The discount of the series active on the day. Discounts of a product in a store do not overlap,
+    // so only the last one starting on or before the day can be active.
+    int discountOn(int series, int day) {
+        int row = lastAtOrBefore(discountStartDays, seriesFirstDiscount[series], seriesDiscountCount[series], day);
+        return row != NOT_FOUND && discountEndDays[row] >= day ? row : NOT_FOUND;
+    }
+
+    private static int lastAtOrBefore(int[] days, int from, int count, int day) {
+        int low = from;
+        int high = from + count - 1;
+        int found = NOT_FOUND;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (days[mid] <= day) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    // Collects the rows streamed by PriceEngineRepository into growable arrays
+    public static class Builder implements SnapshotRowHandler {
+
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private final Map<String, Integer> productIndex = new HashMap<>();
+        private int productCount;
+        private String[] productIds = new String[INITIAL_CAPACITY];
+        private String[] productNames = new String[INITIAL_CAPACITY];
+        private int[] categoryIds = new int[INITIAL_CAPACITY];
+        private int[] brandIds = new int[INITIAL_CAPACITY];
+        private int[] unitIds = new int[INITIAL_CAPACITY];
+        private double[] packageQuantities = new double[INITIAL_CAPACITY];
+        private int[] productFirstSeries = new int[INITIAL_CAPACITY];
+        private int[] productSeriesCount = new int[INITIAL_CAPACITY];
+
+        private int storeCount;
+        private long[] storeIds = new long[INITIAL_CAPACITY];
+        private String[] storeNames = new String[INITIAL_CAPACITY];
+
+        // Series by product and store index, only needed to attach the discounts
+        private final Map<Long, Integer> seriesIndex = new HashMap<>();
+        private int seriesCount;
+        private int[] seriesProduct = new int[INITIAL_CAPACITY];
+        private int[] seriesStore = new int[INITIAL_CAPACITY];
+        private int[] seriesFirstPrice = new int[INITIAL_CAPACITY];
+        private int[] seriesPriceCount = new int[INITIAL_CAPACITY];
+        private int[] seriesFirstDiscount = new int[INITIAL_CAPACITY];
+        private int[] seriesDiscountCount = new int[INITIAL_CAPACITY];
+
+        private int priceCount;
+        private int[] priceDays = new int[INITIAL_CAPACITY];
+        private long[] priceMinor = new long[INITIAL_CAPACITY];
+        private short[] priceCurrencyIds = new short[INITIAL_CAPACITY];
+
+        private int discountCount;
+        private int[] discountStartDays = new int[INITIAL_CAPACITY];
+        private int[] discountEndDays = new int[INITIAL_CAPACITY];
+        private int[] discountBasisPoints = new int[INITIAL_CAPACITY];
+
+        private String lastProductId;
+        private long lastStoreId;
+        private int currentSeries = NOT_FOUND;
+
+        @Override
+        public void product(String id, String name, int categoryId, int brandId, double packageQuantity, int unitId) {
+            if (productCount == productIds.length) {
+                int capacity = productCount * 2;
+                productIds = Arrays.copyOf(productIds, capacity);
+                productNames = Arrays.copyOf(productNames, capacity);
+                categoryIds = Arrays.copyOf(categoryIds, capacity);
+                brandIds = Arrays.copyOf(brandIds, capacity);
+                unitIds = Arrays.copyOf(unitIds, capacity);
+                packageQuantities = Arrays.copyOf(packageQuantities, capacity);
+                productFirstSeries = Arrays.copyOf(productFirstSeries, capacity);
+                productSeriesCount = Arrays.copyOf(productSeriesCount, capacity);
+            }
+            productIndex.put(id, productCount);
+            productIds[productCount] = id;
+            productNames[productCount] = name;
+            categoryIds[productCount] = categoryId;
+            brandIds[productCount] = brandId;
+            unitIds[productCount] = unitId;
+            packageQuantities[productCount] = packageQuantity;
+            productCount++;
+        }
+
+        @Override
+        public void store(long id, String name) {
+            if (storeCount == storeIds.length) {
+                storeIds = Arrays.copyOf(storeIds, storeCount * 2);
+                storeNames = Arrays.copyOf(storeNames, storeCount * 2);
+            }
+            storeIds[storeCount] = id;
+            storeNames[storeCount] = name;
+            storeCount++;
+        }
+
+        @Override
+        public void price(String productId, long storeId, int epochDay, long priceMinor, int currencyId) {
+            if (!productId.equals(lastProductId) || storeId != lastStoreId) {
+                lastProductId = productId;
+                lastStoreId = storeId;
+                currentSeries = startSeries(productId, storeId);
+            }
+            if (currentSeries == NOT_FOUND) {
+                return;
+            }
+            if (priceCount == priceDays.length) {
+                priceDays = Arrays.copyOf(priceDays, priceCount * 2);
+                this.priceMinor = Arrays.copyOf(this.priceMinor, priceCount * 2);
+                priceCurrencyIds = Arrays.copyOf(priceCurrencyIds, priceCount * 2);
+            }
+            priceDays[priceCount] = epochDay;
+            this.priceMinor[priceCount] = priceMinor;
+            priceCurrencyIds[priceCount] = (short) currencyId;
+            seriesPriceCount[currentSeries]++;
+            priceCount++;
+        }
+
+        // Discounts without any price of their product in the store can never be priced and are left out
+        @Override
+        public void discount(String productId, long storeId, int startEpochDay, int endEpochDay, int basisPoints) {
+            int product = productIndex.getOrDefault(productId, NOT_FOUND);
+            int store = Arrays.binarySearch(storeIds, 0, storeCount, storeId);
+            if (product == NOT_FOUND || store < 0) {
+                return;
+            }
+            Integer series = seriesIndex.get(seriesKey(product, store));
+            if (series == null) {
+                return;
+            }
+            if (seriesDiscountCount[series] == 0) {
+                seriesFirstDiscount[series] = discountCount;
+            }
+            if (discountCount == discountStartDays.length) {
+                discountStartDays = Arrays.copyOf(discountStartDays, discountCount * 2);
+                discountEndDays = Arrays.copyOf(discountEndDays, discountCount * 2);
+                discountBasisPoints = Arrays.copyOf(discountBasisPoints, discountCount * 2);
+            }
+            discountStartDays[discountCount] = startEpochDay;
+            discountEndDays[discountCount] = endEpochDay;
+            discountBasisPoints[discountCount] = basisPoints;
+            seriesDiscountCount[series]++;
+            discountCount++;
+        }
+
+        public PriceSnapshot build() {
+            return new PriceSnapshot(Arrays.copyOf(productIds, productCount), Arrays.copyOf(productNames, productCount),
+                    Arrays.copyOf(categoryIds, productCount), Arrays.copyOf(brandIds, productCount),
+                    Arrays.copyOf(unitIds, productCount), Arrays.copyOf(packageQuantities, productCount),
+                    Arrays.copyOf(productFirstSeries, productCount), Arrays.copyOf(productSeriesCount, productCount),
+                    Arrays.copyOf(storeIds, storeCount), Arrays.copyOf(storeNames, storeCount),
+                    Arrays.copyOf(seriesProduct, seriesCount), Arrays.copyOf(seriesStore, seriesCount),
+                    Arrays.copyOf(seriesFirstPrice, seriesCount), Arrays.copyOf(seriesPriceCount, seriesCount),
+                    Arrays.copyOf(seriesFirstDiscount, seriesCount), Arrays.copyOf(seriesDiscountCount, seriesCount),
+                    Arrays.copyOf(priceDays, priceCount), Arrays.copyOf(this.priceMinor, priceCount),
+                    Arrays.copyOf(priceCurrencyIds, priceCount), Arrays.copyOf(discountStartDays, discountCount),
+                    Arrays.copyOf(discountEndDays, discountCount), Arrays.copyOf(discountBasisPoints, discountCount));
+        }
+
+        // Prices arrive grouped by product, so the series of a product are numbered consecutively
+        private int startSeries(String productId, long storeId) {
+            int product = productIndex.getOrDefault(productId, NOT_FOUND);
+            int store = Arrays.binarySearch(storeIds, 0, storeCount, storeId);
+            if (product == NOT_FOUND || store < 0) {
+                return NOT_FOUND;
+            }
+            if (seriesCount == seriesProduct.length) {
+                int capacity = seriesCount * 2;
+                seriesProduct = Arrays.copyOf(seriesProduct, capacity);
+                seriesStore = Arrays.copyOf(seriesStore, capacity);
+                seriesFirstPrice = Arrays.copyOf(seriesFirstPrice, capacity);
+                seriesPriceCount = Arrays.copyOf(seriesPriceCount, capacity);
+                seriesFirstDiscount = Arrays.copyOf(seriesFirstDiscount, capacity);
+                seriesDiscountCount = Arrays.copyOf(seriesDiscountCount, capacity);
+            }
+            int series = seriesCount++;
+            seriesProduct[series] = product;
+            seriesStore[series] = store;
+            seriesFirstPrice[series] = priceCount;
+            if (productSeriesCount[product] == 0) {
+                productFirstSeries[product] = series;
+            }
+            productSeriesCount[product]++;
+            seriesIndex.put(seriesKey(product, store), series);
+            return series;
+        }
+
+        private static long seriesKey(int product, int store) {
+            return ((long) product << 32) | store;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package org.example.price_comparator.service;
+
+import org.example.price_comparator.repository.PriceEngineRepository.DataVersion;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+// Binary copy of a PriceSnapshot on local disk, so a restart does not have to read the price tables again.
+// Layout, little endian: a fixed header (magic, format version, write time, data version, row counts, size of the
+// string block), the product ids, product names and store names as length-prefixed UTF-8, then every column of
+// PriceSnapshot back to back. Reading maps each column and bulk-copies it into a new array.
+// Files are written next to their final name and moved into place, so a reader never sees a partial file.
+final class PriceSnapshotFile {
+
+    // "PSNP"
+    private static final int MAGIC = 0x504E5350;
+    // Bump whenever the layout or the meaning of a column changes
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_BYTES = 2 * Integer.BYTES + 2 * Long.BYTES + 5 * Integer.BYTES + Long.BYTES;
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    record Header(Instant writtenAt, DataVersion dataVersion,
+                  int products, int stores, int series, int prices, int discounts, long stringBytes) {
+
+        long fileBytes() {
+            return HEADER_BYTES + stringBytes
+                    + (long) products * (5 * Integer.BYTES + Double.BYTES)
+                    + (long) stores * Long.BYTES
+                    + (long) series * 6 * Integer.BYTES
+                    + (long) prices * (Integer.BYTES + Long.BYTES + Short.BYTES)
+                    + (long) discounts * 3 * Integer.BYTES;
+        }
+    }
+
+    private PriceSnapshotFile() {
+    }
+
+    static void write(Path path, PriceSnapshot snapshot, DataVersion dataVersion) throws IOException {
+        Path absolute = path.toAbsolutePath();
+        Files.createDirectories(absolute.getParent());
+        Path temporary = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ColumnWriter writer = new ColumnWriter(channel, HEADER_BYTES);
+            writer.putStrings(snapshot.productIds);
+            writer.putStrings(snapshot.productNames);
+            writer.putStrings(snapshot.storeNames);
+            long stringBytes = writer.position() - HEADER_BYTES;
+            writer.putInts(snapshot.categoryIds);
+            writer.putInts(snapshot.brandIds);
+            writer.putInts(snapshot.unitIds);
+            writer.putDoubles(snapshot.packageQuantities);
+            writer.putInts(snapshot.productFirstSeries);
+            writer.putInts(snapshot.productSeriesCount);
+            writer.putLongs(snapshot.storeIds);
+            writer.putInts(snapshot.seriesProduct);
+            writer.putInts(snapshot.seriesStore);
+            writer.putInts(snapshot.seriesFirstPrice);
+            writer.putInts(snapshot.seriesPriceCount);
+            writer.putInts(snapshot.seriesFirstDiscount);
+            writer.putInts(snapshot.seriesDiscountCount);
+            writer.putInts(snapshot.priceDays);
+            writer.putLongs(snapshot.priceMinor);
+            writer.putShorts(snapshot.priceCurrencyIds);
+            writer.putInts(snapshot.discountStartDays);
+            writer.putInts(snapshot.discountEndDays);
+            writer.putInts(snapshot.discountBasisPoints);
+            writer.flush();
+
+            // The header goes in last, once the size of the string block is known
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(FORMAT_VERSION)
+                    .putLong(System.currentTimeMillis())
+                    .putLong(dataVersion.version())
+                    .putInt(snapshot.productCount())
+                    .putInt(snapshot.storeIds.length)
+                    .putInt(snapshot.seriesCount)
+                    .putInt(snapshot.priceCount)
+                    .putInt(snapshot.discountCount)
+                    .putLong(stringBytes)
+                    .flip();
+            for (long position = 0; header.hasRemaining(); ) {
+                position += channel.write(header, position);
+            }
+            channel.force(false);
+        }
+        Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static Header readHeader(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return readHeader(channel);
+        }
+    }
+
+    static PriceSnapshot read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Header header = readHeader(channel);
+            ColumnReader reader = new ColumnReader(channel, HEADER_BYTES);
+            ByteBuffer strings = reader.map(header.stringBytes());
+            String[] productIds = getStrings(strings, header.products());
+            String[] productNames = getStrings(strings, header.products());
+            String[] storeNames = getStrings(strings, header.stores());
+            return new PriceSnapshot(productIds, productNames,
+                    reader.ints(header.products()), reader.ints(header.products()), reader.ints(header.products()),
+                    reader.doubles(header.products()), reader.ints(header.products()), reader.ints(header.products()),
+                    reader.longs(header.stores()), storeNames,
+                    reader.ints(header.series()), reader.ints(header.series()), reader.ints(header.series()),
+                    reader.ints(header.series()), reader.ints(header.series()), reader.ints(header.series()),
+                    reader.ints(header.prices()), reader.longs(header.prices()), reader.shorts(header.prices()),
+                    reader.ints(header.discounts()), reader.ints(header.discounts()), reader.ints(header.discounts()));
+        }
+    }
+
+    private static Header readHeader(FileChannel channel) throws IOException {
+        if (channel.size() < HEADER_BYTES) {
+            throw new IOException("Price snapshot file is truncated");
+        }
+        ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Not a price snapshot file");
+        }
+        int formatVersion = buffer.getInt();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IOException("Unsupported price snapshot format version: " + formatVersion);
+        }
+        Header header = new Header(Instant.ofEpochMilli(buffer.getLong()),
+                new DataVersion(buffer.getLong()),
+                buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getLong());
+        if (channel.size() != header.fileBytes()) {
+            throw new IOException("Price snapshot file is truncated");
+        }
+        return header;
+    }
+
+    private static String[] getStrings(ByteBuffer buffer, int count) {
+        String[] strings = new String[count];
+        for (int i = 0; i < count; i++) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+
+    // Writes through one direct buffer; arrays larger than the buffer are copied into it a slice at a time
+    private static final class ColumnWriter {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        private long position;
+
+        private ColumnWriter(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        long position() {
+            return position + buffer.position();
+        }
+
+        void putStrings(String[] strings) throws IOException {
+            for (String string : strings) {
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                reserve(Integer.BYTES);
+                buffer.putInt(bytes.length);
+                for (int offset = 0; offset < bytes.length; ) {
+                    reserve(1);
+                    int length = Math.min(bytes.length - offset, buffer.remaining());
+                    buffer.put(bytes, offset, length);
+                    offset += length;
+                }
+            }
+        }
+
+        void putInts(int[] values) throws IOException {
+            for (int offset = 0; offset < values.length; ) {
+                reserve(Integer.BYTES);
+                int length = Math.min(values.length - offset, buffer.remaining() / Integer.BYTES);
+                buffer.asIntBuffer().put(values, offset, length);
+                buffer.position(buffer.position() + length * Integer.BYTES);
+                offset += length;
+            }
+        }
+
+        void putLongs(long[] values) throws IOException {
+            for (int offset = 0; offset < values.length; ) {
+                reserve(Long.BYTES);
+                int length = Math.min(values.length - offset, buffer.remaining() / Long.BYTES);
+                buffer.asLongBuffer().put(values, offset, length);
+                buffer.position(buffer.position() + length * Long.BYTES);
+                offset += length;
+            }
+        }
+
+        void putShorts(short[] values) throws IOException {
+            for (int offset = 0; offset < values.length; ) {
+                reserve(Short.BYTES);
+                int length = Math.min(values.length - offset, buffer.remaining() / Short.BYTES);
+                buffer.asShortBuffer().put(values, offset, length);
+                buffer.position(buffer.position() + length * Short.BYTES);
+                offset += length;
+            }
+        }
+
+        void putDoubles(double[] values) throws IOException {
+            for (int offset = 0; offset < values.length; ) {
+                reserve(Double.BYTES);
+                int length = Math.min(values.length - offset, buffer.remaining() / Double.BYTES);
+                buffer.asDoubleBuffer().put(values, offset, length);
+                buffer.position(buffer.position() + length * Double.BYTES);
+                offset += length;
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            buffer.clear();
+        }
+
+        private void reserve(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+    }
+
+    // Maps one column at a time, which keeps every mapping below the 2 GB limit of a MappedByteBuffer
+    private static final class ColumnReader {
+
+        private final FileChannel channel;
+        private long position;
+
+        private ColumnReader(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        ByteBuffer map(long bytes) throws IOException {
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, bytes).order(ByteOrder.LITTLE_ENDIAN);
+            position += bytes;
+            return mapped;
+        }
+
+        int[] ints(int count) throws IOException {
+            int[] values = new int[count];
+            map((long) count * Integer.BYTES).asIntBuffer().get(values);
+            return values;
+        }
+
+        long[] longs(int count) throws IOException {
+            long[] values = new long[count];
+            map((long) count * Long.BYTES).asLongBuffer().get(values);
+            return values;
+        }
+
+        short[] shorts(int count) throws IOException {
+            short[] values = new short[count];
+            map((long) count * Short.BYTES).asShortBuffer().get(values);
+            return values;
+        }
+
+        double[] doubles(int count) throws IOException {
+            double[] values = new double[count];
+            map((long) count * Double.BYTES).asDoubleBuffer().get(values);
+            return values;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package org.example.price_comparator.service;
 import lombok.extern.slf4j.Slf4j;
 import org.example.price_comparator.dto.ProductRecommendationDto;
 import org.example.price_comparator.exceptions.ProductRecommendationException;
+import org.example.price_comparator.model.CurrentPrice;
 import org.example.price_comparator.model.Discount;
 import org.example.price_comparator.model.Price;
 import org.example.price_comparator.model.Product;
@@ -10,8 +11,11 @@ import org.example.price_comparator.model.Store;
 import org.example.price_comparator.repository.DiscountRepository;
 import org.example.price_comparator.repository.PriceRepository;
 import org.example.price_comparator.repository.ProductRepository;
+import org.example.price_comparator.service.DictionaryService.UnitScale;
+import org.example.price_comparator.util.Money;
 import org.springframework.data.util.Pair;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.*;
@@ -24,14 +28,23 @@ public class RecommendationServiceImpl implements RecommendationService {
     private final ProductRepository productRepository;
     private final PriceRepository priceRepository;
     private final DiscountRepository discountRepository;
+    private final CurrentPriceService currentPriceService;
+    private final DictionaryService dictionaryService;
+    private final PriceEngine priceEngine;
 
-    public RecommendationServiceImpl(ProductRepository productRepository, PriceRepository priceRepository, DiscountRepository discountRepository) {
+    public RecommendationServiceImpl(ProductRepository productRepository, PriceRepository priceRepository, DiscountRepository discountRepository,
+                                     CurrentPriceService currentPriceService, DictionaryService dictionaryService,
+                                     PriceEngine priceEngine) {
         this.productRepository = productRepository;
         this.priceRepository = priceRepository;
         this.discountRepository = discountRepository;
+        this.currentPriceService = currentPriceService;
+        this.dictionaryService = dictionaryService;
+        this.priceEngine = priceEngine;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ProductRecommendationDto> findSubstitutes(String productId, int limit) {
         try {
             // Find the original product by ID
@@ -42,7 +55,7 @@ public class RecommendationServiceImpl implements RecommendationService {
             }
             Product originalProduct = originalProductOpt.get();
             String originalName = originalProduct.getProductName();
-            String originalCategory = originalProduct.getProductCategory();
+            int originalCategoryId = originalProduct.getCategoryId();
             // Break the product name into words for partial matching
             String[] nameWords = originalName.split("\\s+");
             List<Product> similarProducts = new ArrayList<>();
@@ -50,7 +63,7 @@ public class RecommendationServiceImpl implements RecommendationService {
             for (String word : nameWords) {
                 if (word.length() >= 3) { // Only use words with at least 3 characters
                     List<Product> matches = productRepository
-                            .findByProductCategoryAndProductNameContainingIgnoreCase(originalCategory, word);
+                            .findByCategoryIdAndProductNameContainingIgnoreCase(originalCategoryId, word);
                     similarProducts.addAll(matches);
                 }
             }
@@ -82,10 +95,12 @@ public class RecommendationServiceImpl implements RecommendationService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ProductRecommendationDto> findBestValueProducts(String category) {
         try {
             // Find all products in the specified category
-            List<Product> categoryProducts = productRepository.findByProductCategoryIgnoreCase(category);
+            List<Integer> categoryIds = dictionaryService.categoryIdsIgnoreCase(category);
+            List<Product> categoryProducts = categoryIds.isEmpty() ? List.of() : productRepository.findByCategoryIdIn(categoryIds);
             if (categoryProducts.isEmpty()) {
                 log.info("No products found in category: {}", category);
                 return Collections.emptyList();
@@ -128,7 +143,21 @@ public class RecommendationServiceImpl implements RecommendationService {
     private List<ProductRecommendationDto> getProductRecommendations(List<Product> products, LocalDate date) {
         List<ProductRecommendationDto> recommendations = new ArrayList<>();
         for (Product product : products) {
-            // Get all prices for this product across all stores
+            if (priceEngine.isActive()) {
+                priceEngine.forEachStorePrice(product.getId(), date,
+                        (storeId, storeName, priceDay, priceMinor, currencyId, discountBasisPoints, effectivePriceMinor) ->
+                                recommendations.add(mapToRecommendation(product, storeName, priceMinor, currencyId,
+                                        LocalDate.ofEpochDay(priceDay), discountBasisPoints, effectivePriceMinor)));
+                continue;
+            }
+            Optional<List<CurrentPrice>> currentPrices = currentPriceService.findCurrentPrices(product, date);
+            if (currentPrices.isPresent()) {
+                for (CurrentPrice currentPrice : currentPrices.get()) {
+                    recommendations.add(mapToRecommendation(product, currentPrice, date));
+                }
+                continue;
+            }
+            // Not covered by current_prices: get all prices for this product across all stores
             List<Price> prices = priceRepository.findByProductAndDateLessThanEqualOrderByDateDesc(product, date);
             // Get the most recent price for each store
             Map<Store, Price> latestPriceByStore = new HashMap<>();
@@ -144,17 +173,17 @@ public class RecommendationServiceImpl implements RecommendationService {
                 Store store = entry.getKey();
                 Price price = entry.getValue();
                 // Calculate value per unit
-                Pair<Double, String> valuePerUnit = calculateValuePerUnit(product, price.getPrice());
+                Pair<Double, String> valuePerUnit = calculateValuePerUnit(product, price.getPriceMinor());
                 ProductRecommendationDto dto = new ProductRecommendationDto();
                 dto.setProductId(product.getId());
                 dto.setProductName(product.getProductName());
-                dto.setProductCategory(product.getProductCategory());
-                dto.setBrand(product.getBrand());
+                dto.setProductCategory(dictionaryService.category(product.getCategoryId()));
+                dto.setBrand(dictionaryService.brand(product.getBrandId()));
                 dto.setPackageQuantity(product.getPackageQuantity());
-                dto.setPackageUnit(product.getPackageUnit());
+                dto.setPackageUnit(dictionaryService.unit(product.getUnitId()));
                 dto.setStoreName(store.getName());
-                dto.setPrice(price.getPrice());
-                dto.setCurrency(price.getCurrency());
+                dto.setPrice(Money.toDecimal(price.getPriceMinor()));
+                dto.setCurrency(dictionaryService.currency(price.getCurrencyId()));
                 dto.setValuePerUnit(valuePerUnit.getFirst());
                 dto.setUnitType(valuePerUnit.getSecond());
                 dto.setPriceDate(price.getDate());
@@ -166,9 +195,9 @@ public class RecommendationServiceImpl implements RecommendationService {
                 if (activeDiscount.isPresent()) {
                     Discount discount = activeDiscount.get();
                     dto.setOnDiscount(true);
-                    dto.setPercentageOfDiscount(discount.getPercentageOfDiscount());
-                    dto.setOriginalPrice(price.getPrice());
-                    dto.setDiscountedPrice(price.getPrice() * (1 - discount.getPercentageOfDiscount() / 100));
+                    dto.setPercentageOfDiscount(Money.toPercentage(discount.getDiscountBasisPoints()));
+                    dto.setOriginalPrice(Money.toDecimal(price.getPriceMinor()));
+                    dto.setDiscountedPrice(Money.toDecimal(Money.applyDiscount(price.getPriceMinor(), discount.getDiscountBasisPoints())));
                 } else {
                     dto.setOnDiscount(false);
                 }
@@ -181,19 +210,64 @@ public class RecommendationServiceImpl implements RecommendationService {
                 .collect(Collectors.toList());
     }
 
-    private Pair<Double, String> calculateValuePerUnit(Product product, Double price) {
-        String unit = product.getPackageUnit().toLowerCase();
-        Double quantity = product.getPackageQuantity();
-        // Standardize units for comparison
-        if (unit.contains("g") && !unit.equals("kg")) {
-            return Pair.of(price / (quantity / 1000), "kg");
-        } else if (unit.contains("ml") || unit.contains("cl")) {
-            double liters = unit.contains("ml") ? quantity / 1000 : quantity / 100;
-            return Pair.of(price / liters, "l");
+    private ProductRecommendationDto mapToRecommendation(Product product, CurrentPrice currentPrice, LocalDate date) {
+        Pair<Double, String> valuePerUnit = calculateValuePerUnit(product, currentPrice.getPriceMinor());
+        ProductRecommendationDto dto = new ProductRecommendationDto();
+        dto.setProductId(product.getId());
+        dto.setProductName(product.getProductName());
+        dto.setProductCategory(dictionaryService.category(product.getCategoryId()));
+        dto.setBrand(dictionaryService.brand(product.getBrandId()));
+        dto.setPackageQuantity(product.getPackageQuantity());
+        dto.setPackageUnit(dictionaryService.unit(product.getUnitId()));
+        dto.setStoreName(currentPrice.getStore().getName());
+        dto.setPrice(Money.toDecimal(currentPrice.getPriceMinor()));
+        dto.setCurrency(dictionaryService.currency(currentPrice.getCurrencyId()));
+        dto.setValuePerUnit(valuePerUnit.getFirst());
+        dto.setUnitType(valuePerUnit.getSecond());
+        dto.setPriceDate(currentPrice.getPriceDate());
+        if (currentPrice.isDiscountActive(date)) {
+            dto.setOnDiscount(true);
+            dto.setPercentageOfDiscount(Money.toPercentage(currentPrice.getDiscountBasisPoints()));
+            dto.setOriginalPrice(Money.toDecimal(currentPrice.getPriceMinor()));
+            dto.setDiscountedPrice(Money.toDecimal(currentPrice.getDiscountedPriceMinor()));
         } else {
-            // Keep original unit
-            return Pair.of(price / quantity, unit);
+            dto.setOnDiscount(false);
         }
+        return dto;
+    }
+
+    private ProductRecommendationDto mapToRecommendation(Product product, String storeName, long priceMinor, int currencyId,
+                                                         LocalDate priceDate, int discountBasisPoints, long effectivePriceMinor) {
+        Pair<Double, String> valuePerUnit = calculateValuePerUnit(product, priceMinor);
+        ProductRecommendationDto dto = new ProductRecommendationDto();
+        dto.setProductId(product.getId());
+        dto.setProductName(product.getProductName());
+        dto.setProductCategory(dictionaryService.category(product.getCategoryId()));
+        dto.setBrand(dictionaryService.brand(product.getBrandId()));
+        dto.setPackageQuantity(product.getPackageQuantity());
+        dto.setPackageUnit(dictionaryService.unit(product.getUnitId()));
+        dto.setStoreName(storeName);
+        dto.setPrice(Money.toDecimal(priceMinor));
+        dto.setCurrency(dictionaryService.currency(currencyId));
+        dto.setValuePerUnit(valuePerUnit.getFirst());
+        dto.setUnitType(valuePerUnit.getSecond());
+        dto.setPriceDate(priceDate);
+        if (discountBasisPoints != PriceEngine.NO_DISCOUNT) {
+            dto.setOnDiscount(true);
+            dto.setPercentageOfDiscount(Money.toPercentage(discountBasisPoints));
+            dto.setOriginalPrice(Money.toDecimal(priceMinor));
+            dto.setDiscountedPrice(Money.toDecimal(effectivePriceMinor));
+        } else {
+            dto.setOnDiscount(false);
+        }
+        return dto;
+    }
+
+    private Pair<Double, String> calculateValuePerUnit(Product product, long priceMinor) {
+        double price = Money.toDecimal(priceMinor);
+        // Standardize units for comparison; the scale of each unit is worked out once per unit key
+        UnitScale scale = dictionaryService.unitScale(product.getUnitId());
+        return Pair.of(price / (product.getPackageQuantity() * scale.factor()), scale.unit());
     }
 }
 
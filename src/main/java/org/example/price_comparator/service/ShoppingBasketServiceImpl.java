@@ -5,15 +5,20 @@ import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.example.price_comparator.dto.basket.*;
 import org.example.price_comparator.exceptions.BasketOptimizationException;
-import org.example.price_comparator.model.Discount;
+import org.example.price_comparator.exceptions.BasketOptimizationTimeoutException;
+import org.example.price_comparator.model.CurrentPrice;
 import org.example.price_comparator.model.Price;
 import org.example.price_comparator.model.Product;
 import org.example.price_comparator.model.Store;
-import org.example.price_comparator.repository.DiscountRepository;
+import org.example.price_comparator.repository.PriceBulkRepository.LatestPrice;
 import org.example.price_comparator.repository.PriceRepository;
 import org.example.price_comparator.repository.ProductRepository;
+import org.example.price_comparator.util.Money;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.*;
 
@@ -21,19 +26,33 @@ import java.util.*;
 @Slf4j
 public class ShoppingBasketServiceImpl implements ShoppingBasketService {
 
+    // Far above any real cost of a trip, and low enough that visit costs summed over every store stay exact
+    private static final long MAX_STORE_VISIT_COST = 10_000;
+
     private final ProductRepository productRepository;
     private final PriceRepository priceRepository;
-    private final DiscountRepository discountRepository;
+    private final CurrentPriceService currentPriceService;
+    private final DictionaryService dictionaryService;
+    private final PriceEngine priceEngine;
+
+    // Upper bound on the store-limited search; past it the best plan found so far is returned
+    @Value("${basket.solver.time-limit-ms:200}")
+    private long solverTimeLimitMs;
 
     public ShoppingBasketServiceImpl(ProductRepository productRepository,
                                      PriceRepository priceRepository,
-                                     DiscountRepository discountRepository) {
+                                     CurrentPriceService currentPriceService,
+                                     DictionaryService dictionaryService,
+                                     PriceEngine priceEngine) {
         this.productRepository = productRepository;
         this.priceRepository = priceRepository;
-        this.discountRepository = discountRepository;
+        this.currentPriceService = currentPriceService;
+        this.dictionaryService = dictionaryService;
+        this.priceEngine = priceEngine;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public OptimizedShoppingPlanDto optimizeBasket(ShoppingBasketDto basket, LocalDate date) {
         try {
             if (basket == null || basket.getItems() == null || basket.getItems().isEmpty()) {
@@ -44,9 +63,35 @@ public class ShoppingBasketServiceImpl implements ShoppingBasketService {
             Map<String, StoreProductPrice> bestPrices = new HashMap<>();
             Map<String, StoreProductPrice> worstPrices = new HashMap<>();
             Map<String, List<OptimizedItemDto>> storeItems = new HashMap<>();
+            // Subtotals are summed in minor units so they are exact
+            Map<String, Long> storeSubtotals = new HashMap<>();
 
-            // Process each basket item
+            // All products and their prices in every store are loaded up front with a fixed number of queries
+            Set<String> productIds = new LinkedHashSet<>();
             for (BasketItemDto item : basket.getItems()) {
+                if (item.getQuantity() > 0) {
+                    productIds.add(item.getProductId());
+                }
+            }
+            Map<String, Product> products = new HashMap<>();
+            for (Product product : productRepository.findAllById(productIds)) {
+                products.put(product.getId(), product);
+            }
+            for (String productId : productIds) {
+                if (!products.containsKey(productId)) {
+                    throw new BasketOptimizationException("Product not found: " + productId);
+                }
+            }
+            Map<String, List<StoreProductPrice>> pricesByProduct = findAllStorePrices(products.values(), date);
+
+            // With a store limit or a visit cost the solver picks each item's store instead of its cheapest one
+            StoreLimitedPlan storeLimitedPlan = basket.getMaxStores() != null || basket.getStoreVisitCost() != null
+                    ? solveStoreLimitedPlan(basket, pricesByProduct)
+                    : null;
+
+            // Process each basket item
+            for (int index = 0; index < basket.getItems().size(); index++) {
+                BasketItemDto item = basket.getItems().get(index);
                 String productId = item.getProductId();
                 Integer quantity = item.getQuantity();
 
@@ -55,11 +100,8 @@ public class ShoppingBasketServiceImpl implements ShoppingBasketService {
                     continue;
                 }
 
-                Product product = productRepository.findById(productId)
-                        .orElseThrow(() -> new BasketOptimizationException("Product not found: " + productId));
-
-
-                List<StoreProductPrice> storePrices = findAllStorePrices(product, date);
+                Product product = products.get(productId);
+                List<StoreProductPrice> storePrices = pricesByProduct.getOrDefault(productId, List.of());
 
                 if (storePrices.isEmpty()) {
                     log.warn("No price found for product: {}", productId);
@@ -67,7 +109,9 @@ public class ShoppingBasketServiceImpl implements ShoppingBasketService {
                 }
 
                 // Find best and worst prices
-                StoreProductPrice bestPrice = findExtremePrice(storePrices, true); // true for lowest price
+                StoreProductPrice bestPrice = storeLimitedPlan != null
+                        ? storeLimitedPlan.prices().get(index)
+                        : findExtremePrice(storePrices, true); // true for lowest price
                 StoreProductPrice worstPrice = findExtremePrice(storePrices, false); // false for highest price
 
                 // Store the best and worst prices
@@ -83,25 +127,20 @@ public class ShoppingBasketServiceImpl implements ShoppingBasketService {
                     storeItems.put(storeName, new ArrayList<>());
                 }
                 storeItems.get(storeName).add(optimizedItem);
+                storeSubtotals.merge(storeName, Money.multiply(bestPrice.getFinalPriceMinor(), quantity), Long::sum);
             }
 
             // Create store shopping lists
             List<StoreShoppingListDto> storeLists = new ArrayList<>();
-            double totalCost = 0;
-            double worstCaseCost = 0;
+            long totalCost = 0;
+            long worstCaseCost = 0;
             String currency = null;
 
             for (Map.Entry<String, List<OptimizedItemDto>> entry : storeItems.entrySet()) {
                 String storeName = entry.getKey();
                 List<OptimizedItemDto> items = entry.getValue();
 
-                // Calculate subtotal
-                double subtotal = items.stream()
-                        .mapToDouble(OptimizedItemDto::getTotalPrice)
-                        .sum();
-
-                // Round the subtotal
-                subtotal = roundToTwoDecimals(subtotal);
+                long subtotal = storeSubtotals.get(storeName);
 
                 // Set currency from first item (assuming all items have same currency)
                 if (currency == null && !items.isEmpty()) {
@@ -112,7 +151,7 @@ public class ShoppingBasketServiceImpl implements ShoppingBasketService {
                 StoreShoppingListDto storeList = new StoreShoppingListDto();
                 storeList.setStoreName(storeName);
                 storeList.setItems(items);
-                storeList.setSubtotal(subtotal);
+                storeList.setSubtotal(Money.toDecimal(subtotal));
                 storeList.setCurrency(currency);
                 storeLists.add(storeList);
 
@@ -126,24 +165,23 @@ public class ShoppingBasketServiceImpl implements ShoppingBasketService {
 
                 if (worstPrices.containsKey(productId)) {
                     StoreProductPrice worstPrice = worstPrices.get(productId);
-                    worstCaseCost += worstPrice.getFinalPrice() * quantity;
+                    worstCaseCost += Money.multiply(worstPrice.getFinalPriceMinor(), quantity);
                 }
             }
 
-            // Round the total values
-            totalCost = roundToTwoDecimals(totalCost);
-            worstCaseCost = roundToTwoDecimals(worstCaseCost);
-            double totalSavings = roundToTwoDecimals(worstCaseCost - totalCost);
+            long totalSavings = worstCaseCost - totalCost;
 
             // Create optimized shopping plan
             OptimizedShoppingPlanDto plan = new OptimizedShoppingPlanDto();
             plan.setStoreLists(storeLists);
-            plan.setTotalCost(totalCost);
-            plan.setWorstCaseCost(worstCaseCost);
-            plan.setTotalSavings(totalSavings);
+            plan.setTotalCost(Money.toDecimal(totalCost));
+            plan.setWorstCaseCost(Money.toDecimal(worstCaseCost));
+            plan.setTotalSavings(Money.toDecimal(totalSavings));
             plan.setCurrency(currency);
             plan.setTotalStores(storeLists.size());
             plan.setTotalItems(basket.getItems().size());
+            plan.setTotalVisitCost(storeLimitedPlan != null ? Money.toDecimal(storeLimitedPlan.visitsCost()) : null);
+            plan.setOptimal(storeLimitedPlan == null || storeLimitedPlan.optimal());
 
             return plan;
 
@@ -155,48 +193,122 @@ public class ShoppingBasketServiceImpl implements ShoppingBasketService {
         }
     }
 
-    private List<StoreProductPrice> findAllStorePrices(Product product, LocalDate date) {
-        // Find all prices for this product
-        List<Price> prices = priceRepository.findByProductAndDateLessThanEqualOrderByDateDesc(product, date);
-
-        if (prices.isEmpty()) {
-            return Collections.emptyList();
+    // Cheapest plan within the store limit, keyed by the index of the item in the basket.
+    // Items skipped by optimizeBasket (invalid quantity, no price) are left out of the problem as well.
+    private StoreLimitedPlan solveStoreLimitedPlan(ShoppingBasketDto basket, Map<String, List<StoreProductPrice>> pricesByProduct) {
+        int maxStores = basket.getMaxStores() != null ? basket.getMaxStores() : Integer.MAX_VALUE;
+        if (maxStores < 1) {
+            throw new BasketOptimizationException("maxStores must be at least 1");
         }
-
-        // Group by store to get the most recent price for each store
-        Map<Store, Price> latestPriceByStore = new HashMap<>();
-        for (Price price : prices) {
-            Store store = price.getStore();
-            if (!latestPriceByStore.containsKey(store) ||
-                    price.getDate().isAfter(latestPriceByStore.get(store).getDate())) {
-                latestPriceByStore.put(store, price);
+        Double storeVisitCost = basket.getStoreVisitCost();
+        if (storeVisitCost != null && !Double.isFinite(storeVisitCost)) {
+            throw new BasketOptimizationException("storeVisitCost must be a number");
+        }
+        if (storeVisitCost != null && storeVisitCost < 0) {
+            throw new BasketOptimizationException("storeVisitCost cannot be negative");
+        }
+        if (storeVisitCost != null && storeVisitCost > MAX_STORE_VISIT_COST) {
+            throw new BasketOptimizationException("storeVisitCost cannot exceed " + MAX_STORE_VISIT_COST);
+        }
+        long visitCost = storeVisitCost != null ? Money.toMinorUnits(storeVisitCost) : 0;
+
+        List<Integer> itemIndexes = new ArrayList<>();
+        Map<Long, Integer> storeIndexes = new HashMap<>();
+        for (int index = 0; index < basket.getItems().size(); index++) {
+            BasketItemDto item = basket.getItems().get(index);
+            List<StoreProductPrice> storePrices = pricesByProduct.getOrDefault(item.getProductId(), List.of());
+            if (item.getQuantity() > 0 && !storePrices.isEmpty()) {
+                itemIndexes.add(index);
+                storePrices.forEach(storePrice -> storeIndexes.putIfAbsent(storePrice.getStore().getId(), storeIndexes.size()));
+            }
+        }
+        long[][] costs = new long[storeIndexes.size()][itemIndexes.size()];
+        for (long[] storeCosts : costs) {
+            Arrays.fill(storeCosts, BasketSolver.UNAVAILABLE);
+        }
+        for (int i = 0; i < itemIndexes.size(); i++) {
+            BasketItemDto item = basket.getItems().get(itemIndexes.get(i));
+            for (StoreProductPrice storePrice : pricesByProduct.get(item.getProductId())) {
+                int store = storeIndexes.get(storePrice.getStore().getId());
+                costs[store][i] = Math.min(costs[store][i], Money.multiply(storePrice.getFinalPriceMinor(), item.getQuantity()));
             }
         }
 
-        // Create StoreProductPrice objects for each store
-        List<StoreProductPrice> storePrices = new ArrayList<>();
-
-        for (Map.Entry<Store, Price> entry : latestPriceByStore.entrySet()) {
-            Store store = entry.getKey();
-            Price price = entry.getValue();
-            double originalPrice = price.getPrice();
-            double finalPrice = originalPrice;
-            Double discountPercentage = null;
-
-            // Check for active discounts
-            Optional<Discount> activeDiscount = discountRepository
-                    .findByProductAndStoreAndStartDateLessThanEqualAndEndDateGreaterThanEqual(
-                            product, store, date, date);
+        long start = System.nanoTime();
+        BasketSolver solver = new BasketSolver(costs, itemIndexes.size(), visitCost, maxStores);
+        Optional<BasketSolver.Solution> solved = solver.solve(Duration.ofMillis(solverTimeLimitMs));
+        if (solved.isEmpty() && solver.timedOut()) {
+            throw new BasketOptimizationTimeoutException(
+                    "No combination of at most " + maxStores + " stores was found within " + solverTimeLimitMs + " ms");
+        }
+        BasketSolver.Solution solution = solved.orElseThrow(() -> new BasketOptimizationException(
+                "No combination of at most " + maxStores + " stores sells every item in the basket"));
+        log.debug("Solved store-limited basket of {} items over {} stores in {} us, {} nodes, optimal: {}",
+                itemIndexes.size(), costs.length, (System.nanoTime() - start) / 1000, solver.nodesExplored(), solution.optimal());
+
+        Long[] storeIds = new Long[storeIndexes.size()];
+        storeIndexes.forEach((storeId, store) -> storeIds[store] = storeId);
+        Map<Integer, StoreProductPrice> prices = new HashMap<>();
+        for (int i = 0; i < itemIndexes.size(); i++) {
+            BasketItemDto item = basket.getItems().get(itemIndexes.get(i));
+            long storeId = storeIds[solution.storeOfItem()[i]];
+            List<StoreProductPrice> inStore = pricesByProduct.get(item.getProductId()).stream()
+                    .filter(storePrice -> storePrice.getStore().getId() == storeId)
+                    .toList();
+            prices.put(itemIndexes.get(i), findExtremePrice(inStore, true));
+        }
+        return new StoreLimitedPlan(prices, solution.visitsCost(), solution.optimal());
+    }
 
-            if (activeDiscount.isPresent()) {
-                discountPercentage = activeDiscount.get().getPercentageOfDiscount();
-                finalPrice = originalPrice * (1 - discountPercentage / 100);
+    // Prices of every product in every store that has one on the date, keyed by product id
+    private Map<String, List<StoreProductPrice>> findAllStorePrices(Collection<Product> products, LocalDate date) {
+        Map<String, List<StoreProductPrice>> pricesByProduct = new HashMap<>();
+        if (priceEngine.isActive()) {
+            for (Product product : products) {
+                List<StoreProductPrice> storePrices = pricesByProduct.computeIfAbsent(product.getId(), id -> new ArrayList<>());
+                priceEngine.forEachStorePrice(product.getId(), date,
+                        (storeId, storeName, priceDay, priceMinor, currencyId, discountBasisPoints, effectivePriceMinor) -> {
+                            Store store = new Store(storeId, storeName);
+                            Price price = new Price(null, product, store, priceMinor, currencyId, LocalDate.ofEpochDay(priceDay));
+                            storePrices.add(new StoreProductPrice(store, price, effectivePriceMinor,
+                                    discountBasisPoints != PriceEngine.NO_DISCOUNT ? discountBasisPoints : null));
+                        });
             }
+            return pricesByProduct;
+        }
 
-            storePrices.add(new StoreProductPrice(store, price, finalPrice, discountPercentage));
+        Map<String, List<CurrentPrice>> currentPrices = currentPriceService.findCurrentPrices(products, date);
+        Map<String, Product> uncovered = new HashMap<>();
+        for (Product product : products) {
+            List<CurrentPrice> rows = currentPrices.get(product.getId());
+            if (rows == null) {
+                uncovered.put(product.getId(), product);
+                continue;
+            }
+            List<StoreProductPrice> storePrices = new ArrayList<>();
+            for (CurrentPrice currentPrice : rows) {
+                Price price = new Price(null, product, currentPrice.getStore(), currentPrice.getPriceMinor(),
+                        currentPrice.getCurrencyId(), currentPrice.getPriceDate());
+                Integer discountBasisPoints = currentPrice.isDiscountActive(date) ? currentPrice.getDiscountBasisPoints() : null;
+                storePrices.add(new StoreProductPrice(currentPrice.getStore(), price, currentPrice.effectivePriceMinor(date), discountBasisPoints));
+            }
+            pricesByProduct.put(product.getId(), storePrices);
         }
 
-        return storePrices;
+        // Not covered by current_prices (e.g. a past date): the latest price and active discount in each store,
+        // for all remaining products in one query
+        Map<Long, Store> stores = new HashMap<>();
+        for (LatestPrice latest : priceRepository.findLatestPrices(uncovered.keySet(), date)) {
+            Product product = uncovered.get(latest.productId());
+            Store store = stores.computeIfAbsent(latest.storeId(), id -> new Store(id, latest.storeName()));
+            Price price = new Price(null, product, store, latest.priceMinor(), latest.currencyId(), latest.date());
+            long finalPrice = latest.discountBasisPoints() != null
+                    ? Money.applyDiscount(latest.priceMinor(), latest.discountBasisPoints())
+                    : latest.priceMinor();
+            pricesByProduct.computeIfAbsent(product.getId(), id -> new ArrayList<>())
+                    .add(new StoreProductPrice(store, price, finalPrice, latest.discountBasisPoints()));
+        }
+        return pricesByProduct;
     }
 
     private StoreProductPrice findExtremePrice(List<StoreProductPrice> storePrices, boolean findLowest) {
@@ -206,7 +318,7 @@ public class ShoppingBasketServiceImpl implements ShoppingBasketService {
 
         return storePrices.stream()
                 .min((sp1, sp2) -> {
-                    int comparison = Double.compare(sp1.getFinalPrice(), sp2.getFinalPrice());
+                    int comparison = Long.compare(sp1.getFinalPriceMinor(), sp2.getFinalPriceMinor());
                     return findLowest ? comparison : -comparison; // Invert for highest price
                 })
                 .orElse(null);
@@ -214,48 +326,47 @@ public class ShoppingBasketServiceImpl implements ShoppingBasketService {
 
     private OptimizedItemDto createOptimizedItem(Product product, StoreProductPrice storePrice, Integer quantity) {
         Price price = storePrice.getPrice();
-        double unitPrice = roundToTwoDecimals(storePrice.getFinalPrice());
-        double totalPrice = roundToTwoDecimals(unitPrice * quantity);
+        long unitPrice = storePrice.getFinalPriceMinor();
+        long totalPrice = Money.multiply(unitPrice, quantity);
 
-        double savingsPerUnit = 0;
-        if (storePrice.getDiscountPercentage() != null) {
-            savingsPerUnit = roundToTwoDecimals(price.getPrice() - unitPrice);
+        long savingsPerUnit = 0;
+        if (storePrice.getDiscountBasisPoints() != null) {
+            savingsPerUnit = price.getPriceMinor() - unitPrice;
         }
 
         OptimizedItemDto item = new OptimizedItemDto();
         item.setProductId(product.getId());
         item.setProductName(product.getProductName());
-        item.setBrand(product.getBrand());
+        item.setBrand(dictionaryService.brand(product.getBrandId()));
         item.setPackageQuantity(product.getPackageQuantity());
-        item.setPackageUnit(product.getPackageUnit());
+        item.setPackageUnit(dictionaryService.unit(product.getUnitId()));
         item.setQuantity(quantity);
-        item.setUnitPrice(unitPrice);
-        item.setTotalPrice(totalPrice);
-        item.setCurrency(price.getCurrency());
-        item.setOnDiscount(storePrice.getDiscountPercentage() != null);
+        item.setUnitPrice(Money.toDecimal(unitPrice));
+        item.setTotalPrice(Money.toDecimal(totalPrice));
+        item.setCurrency(dictionaryService.currency(price.getCurrencyId()));
+        item.setOnDiscount(storePrice.getDiscountBasisPoints() != null);
 
-        if (storePrice.getDiscountPercentage() != null) {
-            item.setDiscountPercentage(roundToTwoDecimals(storePrice.getDiscountPercentage()));
+        if (storePrice.getDiscountBasisPoints() != null) {
+            item.setDiscountPercentage(Money.toPercentage(storePrice.getDiscountBasisPoints()));
         } else {
             item.setDiscountPercentage(null);
         }
 
-        item.setSavingsPerUnit(savingsPerUnit);
+        item.setSavingsPerUnit(Money.toDecimal(savingsPerUnit));
         return item;
     }
 
+    private record StoreLimitedPlan(Map<Integer, StoreProductPrice> prices, long visitsCost, boolean optimal) {
+    }
+
     // Helper class to store price information (and avoid errors when calculating savings)
     @Data
     @AllArgsConstructor
     private static class StoreProductPrice {
         private Store store;
         private Price price;
-        private Double finalPrice;
-        private Double discountPercentage;
-    }
-
-    private double roundToTwoDecimals(double value) {
-        return Math.round(value * 100.0) / 100.0;
+        private long finalPriceMinor;
+        private Integer discountBasisPoints;
     }
 }
 
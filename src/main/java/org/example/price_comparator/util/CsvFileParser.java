@@ -4,20 +4,23 @@ import java.time.LocalDate;
 
 public class CsvFileParser {
 
+    // Feeds may be stored compressed; the compression suffix comes after .csv
+    public static final String[] FEED_EXTENSIONS = {".csv", ".csv.gz", ".csv.zst"};
+
     public static String extractStoreName(String fileName) {
         String[] parts = fileName.split("_");
         return parts[0];
     }
 
     public static LocalDate extractDate(String fileName) {
-        String[] parts = fileName.split("_");
+        String[] parts = stripExtension(fileName).split("_");
         String dateStr;
 
         if (parts.length == 2) {
-            dateStr = parts[1].replace(".csv", "");
+            dateStr = parts[1];
         } else {
             // Discount files
-            dateStr = parts[2].replace(".csv", "");
+            dateStr = parts[2];
         }
 
         return LocalDate.parse(dateStr);
@@ -26,5 +29,39 @@ public class CsvFileParser {
     public static boolean isDiscountFile(String fileName) {
         return fileName.contains("_discounts_");
     }
-}
 
+    public static boolean isFeedFile(String fileName) {
+        for (String extension : FEED_EXTENSIONS) {
+            if (fileName.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // A bare feed name such as lidl_2025-05-08.csv; anything that could point outside the feed folder is refused
+    public static boolean isValidFeedFileName(String fileName) {
+        return fileName != null
+                && fileName.indexOf('/') < 0
+                && fileName.indexOf('\\') < 0
+                && !fileName.contains("..")
+                && isFeedFile(fileName);
+    }
+
+    public static boolean isGzipFile(String fileName) {
+        return fileName.endsWith(".gz");
+    }
+
+    public static boolean isZstdFile(String fileName) {
+        return fileName.endsWith(".zst");
+    }
+
+    public static boolean isCompressedFile(String fileName) {
+        return isGzipFile(fileName) || isZstdFile(fileName);
+    }
+
+    private static String stripExtension(String fileName) {
+        int csvIndex = fileName.lastIndexOf(".csv");
+        return csvIndex >= 0 ? fileName.substring(0, csvIndex) : fileName;
+    }
+}
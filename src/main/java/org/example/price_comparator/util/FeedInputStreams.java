@@ -0,0 +1,24 @@
+package org.example.price_comparator.util;
+
+import com.github.luben.zstd.ZstdInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+// Decompresses feeds on the fly based on the file name, without temporary files
+public class FeedInputStreams {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public static InputStream open(InputStream in, String fileName) throws IOException {
+        if (CsvFileParser.isGzipFile(fileName)) {
+            return new GZIPInputStream(in, BUFFER_SIZE);
+        }
+        if (CsvFileParser.isZstdFile(fileName)) {
+            return new BufferedInputStream(new ZstdInputStream(in), BUFFER_SIZE);
+        }
+        return in;
+    }
+}
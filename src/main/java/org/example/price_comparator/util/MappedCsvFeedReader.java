@@ -0,0 +1,286 @@
+package org.example.price_comparator.util;
+
+import org.example.price_comparator.dto.DiscountFeedRecord;
+import org.example.price_comparator.dto.PriceFeedRecord;
+import org.example.price_comparator.exceptions.CsvProcessingException;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+// Dedicated parser for the ';' separated price and discount feeds. The file is memory-mapped in windows,
+// each line is tokenized in a reusable byte buffer and numbers and ISO dates are parsed from the bytes,
+// so the only per-row allocations are the text columns and the record itself.
+// Quoted fields are not supported: the feeds never contain the separator inside a value.
+public class MappedCsvFeedReader {
+
+    private static final byte SEPARATOR = ';';
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+    // Integers up to 2^53 convert to a double exactly
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final long DAYS_0000_TO_1970 = 719528L;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18
+    };
+
+    private static final String[] PRICE_COLUMNS = {"product_id", "product_name", "product_category", "brand",
+            "package_quantity", "package_unit", "price", "currency"};
+    private static final String[] DISCOUNT_COLUMNS = {"product_id", "product_name", "brand", "package_quantity",
+            "package_unit", "product_category", "from_date", "to_date", "percentage_of_discount"};
+
+    public static void readPrices(Path file, Consumer<PriceFeedRecord> sink) throws IOException {
+        readPrices(file, WINDOW_SIZE, sink);
+    }
+
+    public static void readDiscounts(Path file, Consumer<DiscountFeedRecord> sink) throws IOException {
+        readDiscounts(file, WINDOW_SIZE, sink);
+    }
+
+    // The window size is only chosen by tests, to get lines that span two windows without a 64 MB file
+    static void readPrices(Path file, long windowSize, Consumer<PriceFeedRecord> sink) throws IOException {
+        read(file, windowSize, PRICE_COLUMNS, row -> sink.accept(new PriceFeedRecord(
+                row.text(0), row.text(1), row.text(2), row.text(3),
+                row.decimal(4), row.text(5), row.decimal(6), row.text(7))));
+    }
+
+    static void readDiscounts(Path file, long windowSize, Consumer<DiscountFeedRecord> sink) throws IOException {
+        read(file, windowSize, DISCOUNT_COLUMNS, row -> sink.accept(new DiscountFeedRecord(
+                row.text(0), row.text(1), row.text(2), row.decimal(3), row.text(4), row.text(5),
+                row.epochDay(6), row.epochDay(7), row.decimal(8))));
+    }
+
+    private static void read(Path file, long maxWindowSize, String[] columns, Consumer<Row> rowHandler) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            Row row = new Row(columns);
+            while (position < size) {
+                long windowSize = Math.min(maxWindowSize, size - position);
+                boolean lastWindow = position + windowSize == size;
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+                int limit = buffer.limit();
+                int lineStart = 0;
+                for (int i = 0; i < limit; i++) {
+                    if (buffer.get(i) == '\n') {
+                        row.accept(buffer, lineStart, i, rowHandler);
+                        lineStart = i + 1;
+                    }
+                }
+                if (lastWindow) {
+                    if (lineStart < limit) {
+                        row.accept(buffer, lineStart, limit, rowHandler);
+                    }
+                    position = size;
+                } else {
+                    // The last line of the window continues in the next one, so the next window starts at it
+                    if (lineStart == 0) {
+                        throw new CsvProcessingException("Line longer than " + maxWindowSize + " bytes in " + file.getFileName());
+                    }
+                    position += lineStart;
+                }
+            }
+        }
+    }
+
+    // Tokenized view over the current line; fields are addressed by their position in the expected layout
+    private static final class Row {
+
+        private final String[] columns;
+        private final int[] columnToField;
+        private int[] fieldStart;
+        private int[] fieldEnd;
+        private byte[] line = new byte[256];
+        private int length;
+        private long lineNumber;
+        private boolean headerRead;
+
+        private Row(String[] columns) {
+            this.columns = columns;
+            this.columnToField = new int[columns.length];
+        }
+
+        private void accept(MappedByteBuffer buffer, int start, int end, Consumer<Row> rowHandler) {
+            lineNumber++;
+            length = end - start;
+            if (line.length < length) {
+                line = new byte[Math.max(length, line.length * 2)];
+            }
+            buffer.get(start, line, 0, length);
+            if (length > 0 && line[length - 1] == '\r') {
+                length--;
+            }
+            int offset = 0;
+            if (lineNumber == 1 && length >= 3 && line[0] == (byte) 0xEF && line[1] == (byte) 0xBB && line[2] == (byte) 0xBF) {
+                offset = 3;
+            }
+            if (isBlank(offset)) {
+                return;
+            }
+            if (!headerRead) {
+                readHeader(offset);
+                headerRead = true;
+                return;
+            }
+            tokenize(offset);
+            rowHandler.accept(this);
+        }
+
+        private void readHeader(int offset) {
+            String[] header = new String(line, offset, length - offset, StandardCharsets.UTF_8).split(";", -1);
+            fieldStart = new int[header.length];
+            fieldEnd = new int[header.length];
+            for (int column = 0; column < columns.length; column++) {
+                columnToField[column] = -1;
+                for (int field = 0; field < header.length; field++) {
+                    if (header[field].trim().equals(columns[column])) {
+                        columnToField[column] = field;
+                        break;
+                    }
+                }
+                if (columnToField[column] < 0) {
+                    throw new CsvProcessingException("Missing column in CSV header: " + columns[column]);
+                }
+            }
+        }
+
+        private void tokenize(int offset) {
+            int field = 0;
+            int start = offset;
+            for (int i = offset; i <= length; i++) {
+                if (i == length || line[i] == SEPARATOR) {
+                    if (field == fieldStart.length) {
+                        throw error("expected " + fieldStart.length + " fields");
+                    }
+                    // Same as OpenCSV's withIgnoreLeadingWhiteSpace
+                    while (start < i && line[start] == ' ') {
+                        start++;
+                    }
+                    fieldStart[field] = start;
+                    fieldEnd[field] = i;
+                    field++;
+                    start = i + 1;
+                }
+            }
+            if (field != fieldStart.length) {
+                throw error("expected " + fieldStart.length + " fields but found " + field);
+            }
+        }
+
+        private String text(int column) {
+            int field = columnToField[column];
+            return new String(line, fieldStart[field], fieldEnd[field] - fieldStart[field], StandardCharsets.UTF_8);
+        }
+
+        private double decimal(int column) {
+            int field = columnToField[column];
+            int pos = fieldStart[field];
+            int end = trimEnd(pos, fieldEnd[field]);
+            boolean negative = false;
+            if (pos < end && (line[pos] == '-' || line[pos] == '+')) {
+                negative = line[pos] == '-';
+                pos++;
+            }
+            long mantissa = 0;
+            int digits = 0;
+            int scale = 0;
+            boolean fraction = false;
+            for (int i = pos; i < end; i++) {
+                byte b = line[i];
+                if (b >= '0' && b <= '9') {
+                    mantissa = mantissa * 10 + (b - '0');
+                    digits++;
+                    if (fraction) {
+                        scale++;
+                    }
+                } else if (b == '.' && !fraction) {
+                    fraction = true;
+                } else {
+                    throw error("invalid number in column " + columns[column]);
+                }
+            }
+            if (digits == 0) {
+                throw error("missing number in column " + columns[column]);
+            }
+            if (digits > 18 || mantissa > MAX_EXACT_MANTISSA) {
+                // The mantissa would be rounded on its way to a double, and rounding twice can differ from
+                // Double.parseDouble; let the JDK do the rounding
+                return Double.parseDouble(new String(line, fieldStart[field], end - fieldStart[field], StandardCharsets.US_ASCII));
+            }
+            // Both operands are exact doubles, so the division is correctly rounded like Double.parseDouble
+            double value = mantissa / POWERS_OF_TEN[scale];
+            return negative ? -value : value;
+        }
+
+        // yyyy-MM-dd to days since 1970-01-01, same arithmetic as LocalDate.toEpochDay
+        private int epochDay(int column) {
+            int field = columnToField[column];
+            int pos = fieldStart[field];
+            int end = trimEnd(pos, fieldEnd[field]);
+            if (end - pos != 10 || line[pos + 4] != '-' || line[pos + 7] != '-') {
+                throw error("invalid date in column " + columns[column]);
+            }
+            int year = digits(pos, 4, column);
+            int month = digits(pos + 5, 2, column);
+            int day = digits(pos + 8, 2, column);
+            boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+            if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(month, leap)) {
+                throw error("invalid date in column " + columns[column]);
+            }
+            long total = 365L * year + (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+            total += (367L * month - 362) / 12;
+            total += day - 1;
+            if (month > 2) {
+                total--;
+                if (!leap) {
+                    total--;
+                }
+            }
+            return (int) (total - DAYS_0000_TO_1970);
+        }
+
+        private int digits(int pos, int count, int column) {
+            int value = 0;
+            for (int i = pos; i < pos + count; i++) {
+                byte b = line[i];
+                if (b < '0' || b > '9') {
+                    throw error("invalid date in column " + columns[column]);
+                }
+                value = value * 10 + (b - '0');
+            }
+            return value;
+        }
+
+        private static int lengthOfMonth(int month, boolean leap) {
+            return switch (month) {
+                case 2 -> leap ? 29 : 28;
+                case 4, 6, 9, 11 -> 30;
+                default -> 31;
+            };
+        }
+
+        private int trimEnd(int start, int end) {
+            while (end > start && (line[end - 1] == ' ' || line[end - 1] == '\t')) {
+                end--;
+            }
+            return end;
+        }
+
+        private boolean isBlank(int offset) {
+            for (int i = offset; i < length; i++) {
+                if (line[i] != ' ' && line[i] != '\t') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private CsvProcessingException error(String message) {
+            return new CsvProcessingException("Malformed CSV line " + lineNumber + ": " + message);
+        }
+    }
+}
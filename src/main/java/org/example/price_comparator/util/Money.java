@@ -0,0 +1,54 @@
+package org.example.price_comparator.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Amounts are kept as long minor units (bani, cents) and discounts as int basis points (1% = 100 bp).
+// Decimals only appear when reading feeds and in the JSON DTOs; everything in between is exact integer arithmetic.
+public final class Money {
+
+    public static final long MINOR_UNITS_PER_UNIT = 100;
+    public static final int BASIS_POINTS_PER_UNIT = 10_000;
+
+    private Money() {
+    }
+
+    public static long toMinorUnits(double amount) {
+        return roundHalfUp(amount, MINOR_UNITS_PER_UNIT);
+    }
+
+    public static double toDecimal(long minorUnits) {
+        return (double) minorUnits / MINOR_UNITS_PER_UNIT;
+    }
+
+    public static int toBasisPoints(double percentage) {
+        return Math.toIntExact(roundHalfUp(percentage, 100));
+    }
+
+    public static double toPercentage(int basisPoints) {
+        return basisPoints / 100.0;
+    }
+
+    // Rounded half up to the nearest minor unit; the SQL of current_prices rounds the same way.
+    // Throws instead of wrapping around for amounts too large to scale by 10,000.
+    public static long applyDiscount(long minorUnits, int basisPoints) {
+        long scaled = Math.multiplyExact(minorUnits, (long) (BASIS_POINTS_PER_UNIT - basisPoints));
+        return Math.addExact(scaled, BASIS_POINTS_PER_UNIT / 2) / BASIS_POINTS_PER_UNIT;
+    }
+
+    public static long multiply(long minorUnits, int quantity) {
+        return Math.multiplyExact(minorUnits, quantity);
+    }
+
+    // value * factor is itself rounded, so a decimal tie such as 1.005 * 100 arrives as 100.49999999999999.
+    // Close to a tie the decimal the double was read from decides, rounded half up (away from zero).
+    private static long roundHalfUp(double value, long factor) {
+        double scaled = value * factor;
+        if (Math.abs(scaled - Math.floor(scaled) - 0.5) > 4 * Math.ulp(scaled)) {
+            return Math.round(scaled);
+        }
+        return BigDecimal.valueOf(value).multiply(BigDecimal.valueOf(factor))
+                .setScale(0, RoundingMode.HALF_UP)
+                .longValueExact();
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.price_comparator.util;
+
+import com.opencsv.bean.CsvToBean;
+import com.opencsv.bean.CsvToBeanBuilder;
+import org.example.price_comparator.dto.DiscountCsvDto;
+import org.example.price_comparator.dto.DiscountFeedRecord;
+import org.example.price_comparator.dto.PriceCsvDto;
+import org.example.price_comparator.dto.PriceFeedRecord;
+
+import java.io.Reader;
+import java.util.function.Consumer;
+
+// Bean-binding parser for the feed files; works on any stream, including resources packaged in the JAR
+public class OpenCsvFeedReader {
+
+    public static void readPrices(Reader reader, Consumer<PriceFeedRecord> sink) {
+        CsvToBean<PriceCsvDto> csvToBean = new CsvToBeanBuilder<PriceCsvDto>(reader)
+                .withType(PriceCsvDto.class)
+                .withSeparator(';')
+                .withIgnoreLeadingWhiteSpace(true)
+                .build();
+        // Rows are pulled one at a time from the reader, never collected into a list
+        for (PriceCsvDto dto : csvToBean) {
+            sink.accept(PriceFeedRecord.from(dto));
+        }
+    }
+
+    public static void readDiscounts(Reader reader, Consumer<DiscountFeedRecord> sink) {
+        CsvToBean<DiscountCsvDto> csvToBean = new CsvToBeanBuilder<DiscountCsvDto>(reader)
+                .withType(DiscountCsvDto.class)
+                .withSeparator(';')
+                .withIgnoreLeadingWhiteSpace(true)
+                .build();
+        for (DiscountCsvDto dto : csvToBean) {
+            sink.accept(DiscountFeedRecord.from(dto));
+        }
+    }
+}
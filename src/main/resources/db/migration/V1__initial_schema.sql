@@ -8,9 +8,6 @@ create table stores
             unique
 );
 
-alter table stores
-    owner to postgres;
-
 create table products
 (
     id               varchar(255)     not null
@@ -23,14 +20,15 @@ create table products
     package_unit     varchar(255)     not null
 );
 
-alter table products
-    owner to postgres;
+-- Partitioned by month on date; PricePartitionService creates the partitions (prices_pYYYY_MM) ahead of time
+-- and before importing a feed, and can detach old ones for retention.
+-- Before Postgres 17 partitions do not inherit an identity column, and a row inserted into a partition directly
+-- would get no id, so the id comes from a plain sequence.
+create sequence prices_id_seq;
 
 create table prices
 (
-    id         bigint generated by default as identity
-        constraint pk_prices
-            primary key,
+    id         bigint           not null default nextval('prices_id_seq'),
     product_id varchar(255)     not null
         constraint fk_prices_on_product
             references products,
@@ -39,11 +37,12 @@ create table prices
             references stores,
     price      double precision not null,
     currency   varchar(255)     not null,
-    date       date             not null
-);
+    date       date             not null,
+    constraint pk_prices
+        primary key (id, date)
+) partition by range (date);
 
-alter table prices
-    owner to postgres;
+alter sequence prices_id_seq owned by prices.id;
 
 create table discounts
 (
@@ -61,9 +60,6 @@ create table discounts
     end_date               date             not null
 );
 
-alter table discounts
-    owner to postgres;
-
 create table price_alerts
 (
     id                bigint generated by default as identity
@@ -83,6 +79,32 @@ create table price_alerts
     last_checked_date date             not null
 );
 
-alter table price_alerts
-    owner to postgres;
+create table import_manifest
+(
+    file_name   varchar(255) not null
+        constraint pk_import_manifest
+            primary key,
+    file_size   bigint       not null,
+    checksum    varchar(255) not null,
+    row_count   integer      not null,
+    imported_at timestamp    not null
+);
 
+create table current_prices
+(
+    product_id          varchar(255) not null
+        constraint fk_current_prices_on_product
+            references products,
+    store_id            bigint       not null
+        constraint fk_current_prices_on_store
+            references stores,
+    price               double precision,
+    currency            varchar(255),
+    price_date          date,
+    discount_percentage double precision,
+    discount_start_date date,
+    discount_end_date   date,
+    discounted_price    double precision,
+    constraint pk_current_prices
+        primary key (product_id, store_id)
+);
@@ -0,0 +1,31 @@
+-- Indexes for the derived queries of PriceRepository, DiscountRepository and PriceAlertRepository.
+-- "if not exists" because databases baselined at V1 may already have some of them.
+-- Indexes on prices are created on every partition, including partitions added later.
+
+-- Latest price of a product in a store (findTopByProductAndStore...OrderByDateDesc) and the merge lookup
+create index if not exists idx_prices_product_store_date
+    on prices (product_id, store_id, date desc);
+
+-- Price history of a product across stores (findByProductAndDate..., findByProductOrderByDateDesc)
+create index if not exists idx_prices_product_date
+    on prices (product_id, date);
+
+-- Re-import check (existsByStoreAndDate)
+create index if not exists idx_prices_store_date
+    on prices (store_id, date);
+
+-- Active discount of a product in a store and the merge lookup on (product, store, start date)
+create index if not exists idx_discounts_product_store_dates
+    on discounts (product_id, store_id, start_date, end_date);
+
+-- Discounts active on, starting after or starting between dates
+create index if not exists idx_discounts_start_date
+    on discounts (start_date);
+
+-- Re-import check (existsByStore)
+create index if not exists idx_discounts_store
+    on discounts (store_id);
+
+-- Alerts of a user (findByUserEmail, findByUserEmailAndProductAndStore)
+create index if not exists idx_price_alerts_user_email
+    on price_alerts (user_email, product_id, store_id);
@@ -0,0 +1,35 @@
+-- Ids come from sequences that hand out blocks of 50: one nextval reserves the ids value .. value + 49
+-- (Hibernate's pooled-lo optimizer), so JPA and the JDBC bulk writers insert without a round trip per row.
+-- Plain inserts that rely on the column default take only the first id of a block, which leaves gaps but never collides.
+
+alter table stores alter column id drop identity if exists;
+alter table stores alter column id drop default;
+drop sequence if exists stores_id_seq;
+create sequence stores_id_seq increment by 50;
+select setval('stores_id_seq', coalesce((select max(id) from stores), 0) + 1, false);
+alter table stores alter column id set default nextval('stores_id_seq');
+alter sequence stores_id_seq owned by stores.id;
+
+alter table prices alter column id drop identity if exists;
+alter table prices alter column id drop default;
+drop sequence if exists prices_id_seq;
+create sequence prices_id_seq increment by 50;
+select setval('prices_id_seq', coalesce((select max(id) from prices), 0) + 1, false);
+alter table prices alter column id set default nextval('prices_id_seq');
+alter sequence prices_id_seq owned by prices.id;
+
+alter table discounts alter column id drop identity if exists;
+alter table discounts alter column id drop default;
+drop sequence if exists discounts_id_seq;
+create sequence discounts_id_seq increment by 50;
+select setval('discounts_id_seq', coalesce((select max(id) from discounts), 0) + 1, false);
+alter table discounts alter column id set default nextval('discounts_id_seq');
+alter sequence discounts_id_seq owned by discounts.id;
+
+alter table price_alerts alter column id drop identity if exists;
+alter table price_alerts alter column id drop default;
+drop sequence if exists price_alerts_id_seq;
+create sequence price_alerts_id_seq increment by 50;
+select setval('price_alerts_id_seq', coalesce((select max(id) from price_alerts), 0) + 1, false);
+alter table price_alerts alter column id set default nextval('price_alerts_id_seq');
+alter sequence price_alerts_id_seq owned by price_alerts.id;
@@ -0,0 +1,25 @@
+-- Amounts are stored as integer minor units (bani, cents) and discounts as basis points (1% = 100 bp),
+-- so stored values are exact and totals add up without rounding. See util/Money.
+-- round() on double precision rounds ties to even (0.125 -> 12); through numeric it rounds them half away from
+-- zero (0.125 -> 13) like Money, so migrated rows match what the import would store for the same feed.
+
+alter table prices rename column price to price_minor;
+alter table prices alter column price_minor type bigint using round((price_minor * 100)::numeric)::bigint;
+
+alter table discounts rename column percentage_of_discount to discount_basis_points;
+alter table discounts alter column discount_basis_points type integer using round((discount_basis_points * 100)::numeric)::integer;
+
+alter table price_alerts rename column target_price to target_price_minor;
+alter table price_alerts alter column target_price_minor type bigint using round((target_price_minor * 100)::numeric)::bigint;
+
+alter table current_prices rename column price to price_minor;
+alter table current_prices alter column price_minor type bigint using round((price_minor * 100)::numeric)::bigint;
+alter table current_prices rename column discount_percentage to discount_basis_points;
+alter table current_prices alter column discount_basis_points type integer using round((discount_basis_points * 100)::numeric)::integer;
+alter table current_prices rename column discounted_price to discounted_price_minor;
+alter table current_prices alter column discounted_price_minor type bigint using null;
+
+-- Same rounding as Money.applyDiscount: half up to the nearest minor unit
+update current_prices
+set discounted_price_minor = (price_minor * (10000 - discount_basis_points) + 5000) / 10000
+where price_minor is not null and discount_basis_points is not null;
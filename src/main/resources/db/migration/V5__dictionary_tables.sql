@@ -0,0 +1,101 @@
+-- Low-cardinality strings are stored once in lookup tables and referenced by small integer keys.
+-- The application keeps the tables in memory (DictionaryService) and adds new values as feeds bring them.
+
+create table currencies
+(
+    id   smallint generated by default as identity
+        constraint pk_currencies
+            primary key,
+    code varchar(16) not null
+        constraint uc_currencies_code
+            unique
+);
+
+create table units
+(
+    id   smallint generated by default as identity
+        constraint pk_units
+            primary key,
+    name varchar(32) not null
+        constraint uc_units_name
+            unique
+);
+
+create table categories
+(
+    id   integer generated by default as identity
+        constraint pk_categories
+            primary key,
+    name varchar(255) not null
+        constraint uc_categories_name
+            unique
+);
+
+create table brands
+(
+    id   integer generated by default as identity
+        constraint pk_brands
+            primary key,
+    name varchar(255) not null
+        constraint uc_brands_name
+            unique
+);
+
+insert into currencies (code)
+select currency from prices
+union
+select currency from price_alerts
+union
+select currency from current_prices where currency is not null;
+
+insert into units (name) select distinct package_unit from products;
+insert into categories (name) select distinct product_category from products;
+insert into brands (name) select distinct brand from products;
+
+-- products
+
+alter table products
+    add column category_id integer,
+    add column brand_id    integer,
+    add column unit_id     smallint;
+
+update products p
+set category_id = c.id, brand_id = b.id, unit_id = u.id
+from categories c, brands b, units u
+where c.name = p.product_category and b.name = p.brand and u.name = p.package_unit;
+
+alter table products
+    alter column category_id set not null,
+    alter column brand_id set not null,
+    alter column unit_id set not null,
+    add constraint fk_products_on_category foreign key (category_id) references categories (id),
+    add constraint fk_products_on_brand foreign key (brand_id) references brands (id),
+    add constraint fk_products_on_unit foreign key (unit_id) references units (id),
+    drop column product_category,
+    drop column brand,
+    drop column package_unit;
+
+create index if not exists idx_products_category on products (category_id);
+create index if not exists idx_products_brand on products (brand_id);
+
+-- prices, price_alerts and current_prices
+
+alter table prices add column currency_id smallint;
+update prices p set currency_id = c.id from currencies c where c.code = p.currency;
+alter table prices
+    alter column currency_id set not null,
+    add constraint fk_prices_on_currency foreign key (currency_id) references currencies (id),
+    drop column currency;
+
+alter table price_alerts add column currency_id smallint;
+update price_alerts a set currency_id = c.id from currencies c where c.code = a.currency;
+alter table price_alerts
+    alter column currency_id set not null,
+    add constraint fk_price_alerts_on_currency foreign key (currency_id) references currencies (id),
+    drop column currency;
+
+alter table current_prices add column currency_id smallint;
+update current_prices cp set currency_id = c.id from currencies c where c.code = cp.currency;
+alter table current_prices
+    add constraint fk_current_prices_on_currency foreign key (currency_id) references currencies (id),
+    drop column currency;
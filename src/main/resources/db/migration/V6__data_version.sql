@@ -0,0 +1,16 @@
+-- A single counter that every transaction writing prices or discounts, or detaching a prices partition, increments
+-- before it commits. The price engine stores the value it read along with its snapshot file; a different value
+-- at startup means the tables have changed since, whatever wrote them.
+
+create table data_version
+(
+    id      smallint not null
+        constraint pk_data_version
+            primary key
+        constraint ck_data_version_single_row
+            check (id = 1),
+    version bigint   not null
+);
+
+insert into data_version (id, version)
+values (1, 0);
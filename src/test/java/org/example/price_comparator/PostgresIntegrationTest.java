@@ -0,0 +1,33 @@
+package org.example.price_comparator;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+// Boots the application on a Postgres 16 container migrated by Flyway. The container is started once and, like
+// the Spring context, shared by every test class extending this one, so tests use their own store names and
+// product ids instead of cleaning up. Skipped when Docker is not available.
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+public abstract class PostgresIntegrationTest {
+
+    private static PostgreSQLContainer<?> postgres;
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgres().getJdbcUrl());
+        registry.add("spring.datasource.username", () -> postgres().getUsername());
+        registry.add("spring.datasource.password", () -> postgres().getPassword());
+    }
+
+    // Started on first use rather than by @Container, which would stop it after the first test class
+    private static synchronized PostgreSQLContainer<?> postgres() {
+        if (postgres == null) {
+            postgres = new PostgreSQLContainer<>("postgres:16");
+            postgres.start();
+        }
+        return postgres;
+    }
+}
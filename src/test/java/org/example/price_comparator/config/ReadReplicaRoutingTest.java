@@ -0,0 +1,115 @@
+package org.example.price_comparator.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Two independent databases stand in for the primary and the replica; each query reports which one answered it.
+@Testcontainers(disabledWithoutDocker = true)
+class ReadReplicaRoutingTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> PRIMARY = new PostgreSQLContainer<>("postgres:16").withDatabaseName("primary_db");
+
+    @Container
+    private static final PostgreSQLContainer<?> REPLICA = new PostgreSQLContainer<>("postgres:16").withDatabaseName("replica_db");
+
+    @Test
+    void readOnlyTransactionsUseTheReplica() {
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(dataSource(PRIMARY), dataSource(REPLICA), 5000);
+        monitor.check();
+        assertTrue(monitor.isReplicaUsable());
+
+        DataSource dataSource = new ReadReplicaConfig().dataSource(dataSource(PRIMARY), dataSource(REPLICA), monitor);
+        assertEquals("replica_db", currentDatabase(dataSource, true));
+        assertEquals("primary_db", currentDatabase(dataSource, false));
+        assertEquals("primary_db", new JdbcTemplate(dataSource).queryForObject("select current_database()", String.class));
+    }
+
+    @Test
+    void readOnlyTransactionsFallBackToThePrimary() {
+        DataSource unreachableReplica = new DriverManagerDataSource("jdbc:postgresql://localhost:1/replica_db", "test", "test");
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(dataSource(PRIMARY), unreachableReplica, 5000);
+        monitor.check();
+        assertFalse(monitor.isReplicaUsable());
+
+        DataSource dataSource = new ReadReplicaConfig().dataSource(dataSource(PRIMARY), unreachableReplica, monitor);
+        assertEquals("primary_db", currentDatabase(dataSource, true));
+    }
+
+    @Test
+    void replicaIsNotUsedWhileThePrimaryCannotBeAsked() {
+        DataSource unreachablePrimary = new DriverManagerDataSource("jdbc:postgresql://localhost:1/primary_db", "test", "test");
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(unreachablePrimary, dataSource(REPLICA), 5000);
+        monitor.check();
+        assertFalse(monitor.isReplicaUsable());
+    }
+
+    // Repositories run under the JpaTransactionManager, where Hibernate marks the connection read-only
+    // before its first statement
+    @Test
+    void readOnlyJpaTransactionsUseTheReplica() {
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(dataSource(PRIMARY), dataSource(REPLICA), 5000);
+        monitor.check();
+        DataSource dataSource = new ReadReplicaConfig().dataSource(dataSource(PRIMARY), dataSource(REPLICA), monitor);
+
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setPackagesToScan(ReadReplicaRoutingTest.class.getPackageName());
+        factoryBean.afterPropertiesSet();
+        EntityManagerFactory entityManagerFactory = factoryBean.getObject();
+        try {
+            JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory);
+            assertEquals("replica_db", currentDatabase(transactionManager, entityManagerFactory, true));
+            assertEquals("primary_db", currentDatabase(transactionManager, entityManagerFactory, false));
+        } finally {
+            factoryBean.destroy();
+        }
+    }
+
+    @Test
+    void replicaIsNotUsedBeforeTheFirstCheck() {
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(dataSource(PRIMARY), dataSource(REPLICA), 5000);
+
+        DataSource dataSource = new ReadReplicaConfig().dataSource(dataSource(PRIMARY), dataSource(REPLICA), monitor);
+        assertEquals("primary_db", currentDatabase(dataSource, true));
+    }
+
+    private static String currentDatabase(DataSource dataSource, boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(status ->
+                new JdbcTemplate(dataSource).queryForObject("select current_database()", String.class));
+    }
+
+    private static String currentDatabase(JpaTransactionManager transactionManager,
+                                          EntityManagerFactory entityManagerFactory, boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(status -> (String) EntityManagerFactoryUtils
+                .getTransactionalEntityManager(entityManagerFactory)
+                .createNativeQuery("select current_database()")
+                .getSingleResult());
+    }
+
+    private static DataSource dataSource(PostgreSQLContainer<?> container) {
+        return new DriverManagerDataSource(container.getJdbcUrl(), container.getUsername(), container.getPassword());
+    }
+}
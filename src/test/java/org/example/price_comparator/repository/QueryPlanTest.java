@@ -0,0 +1,191 @@
+package org.example.price_comparator.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs the migrations on a real Postgres and checks the plan of every hot query.
+// Sequential scans are disabled for the session, so the planner only picks one when no index can serve the query:
+// a query that shows a Seq Scan here would scan the whole table in production.
+@Testcontainers(disabledWithoutDocker = true)
+class QueryPlanTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16");
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    // A handful of rows that queries pricing a product in every store read in full by design
+    private static final Set<String> FULLY_READ_TABLES = Set.of("stores");
+
+    // The SQL of the JPQL projections in PriceRepository and DiscountRepository
+    private static final String PRICE_HISTORY_SELECT =
+            "select p.date, p.store_id, p.price_minor, p.currency_id, d.discount_basis_points from prices p " +
+            "left join discounts d on d.product_id = p.product_id and d.store_id = p.store_id " +
+            "and d.start_date <= p.date and d.end_date >= p.date ";
+    private static final String BEST_DISCOUNT_SELECT =
+            "select pr.id, pr.product_name, pr.category_id, pr.brand_id, pr.unit_id, s.name, d.discount_basis_points, p.price_minor, p.currency_id, " +
+            "d.start_date, d.end_date " +
+            "from discounts d join products pr on pr.id = d.product_id join stores s on s.id = d.store_id " +
+            "join prices p on p.product_id = d.product_id and p.store_id = d.store_id and p.date = " +
+            "(select max(p2.date) from prices p2 where p2.product_id = d.product_id and p2.store_id = d.store_id and p2.date <= '2025-05-08') " +
+            "and not exists (select 1 from prices p3 where p3.product_id = d.product_id and p3.store_id = d.store_id " +
+            "and p3.date = p.date and p3.id > p.id) ";
+
+    @BeforeAll
+    static void migrateAndSeed() throws SQLException {
+        Flyway.configure()
+                .dataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())
+                .load()
+                .migrate();
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            statement.execute("create table prices_p2025_04 partition of prices for values from ('2025-04-01') to ('2025-05-01')");
+            statement.execute("create table prices_p2025_05 partition of prices for values from ('2025-05-01') to ('2025-06-01')");
+            // Explicit ids: the sequence hands out blocks of 50, so generated ids would not be 1 to 5
+            statement.execute("insert into stores (id, name) select s, 'store' || s from generate_series(1, 5) s");
+            statement.execute("insert into currencies (code) values ('RON')");
+            statement.execute("insert into units (name) values ('kg')");
+            statement.execute("insert into categories (name) select 'category ' || c from generate_series(1, 20) c");
+            statement.execute("insert into brands (name) select 'brand ' || b from generate_series(1, 50) b");
+            statement.execute("insert into products (id, product_name, category_id, brand_id, package_quantity, unit_id) " +
+                    "select 'P' || p, 'product ' || p, 1 + p % 20, 1 + p % 50, 1, 1 from generate_series(1, 2000) p");
+            statement.execute("insert into prices (product_id, store_id, price_minor, currency_id, date) " +
+                    "select 'P' || p, s, 1000, 1, date '2025-04-01' + d " +
+                    "from generate_series(1, 2000) p, generate_series(1, 5) s, generate_series(0, 55, 7) d");
+            statement.execute("insert into discounts (product_id, store_id, discount_basis_points, start_date, end_date) " +
+                    "select 'P' || p, s, 1000, date '2025-04-01' + d, date '2025-04-07' + d " +
+                    "from generate_series(1, 2000, 3) p, generate_series(1, 5) s, generate_series(0, 55, 7) d");
+            statement.execute("insert into price_alerts (user_email, product_id, store_id, target_price_minor, currency_id, status, created_date, last_checked_date) " +
+                    "select 'user' || (p % 300) || '@example.com', 'P' || p, 1, 500, 1, 'ACTIVE', date '2025-05-01', date '2025-05-01' " +
+                    "from generate_series(1, 2000) p");
+            statement.execute("insert into current_prices (product_id, store_id, price_minor, currency_id, price_date) " +
+                    "select 'P' || p, s, 1000, 1, date '2025-05-27' from generate_series(1, 2000) p, generate_series(1, 5) s");
+            statement.execute("analyze");
+        }
+    }
+
+    static Stream<Arguments> hotQueries() {
+        return Stream.of(
+                Arguments.of("PriceRepository.findTopByProductAndStoreAndDateLessThanEqualOrderByDateDesc",
+                        "select * from prices where product_id = 'P42' and store_id = 2 and date <= '2025-05-08' order by date desc limit 1"),
+                Arguments.of("PriceRepository.findByProductAndDateLessThanEqualOrderByDateDesc",
+                        "select * from prices where product_id = 'P42' and date <= '2025-05-08' order by date desc"),
+                Arguments.of("PriceRepository.findHistoryByProduct",
+                        PRICE_HISTORY_SELECT + "where p.product_id = 'P42' and p.date between '2025-05-01' and '2025-05-20' order by p.date"),
+                Arguments.of("PriceRepository.findHistoryByProductAndStore",
+                        PRICE_HISTORY_SELECT + "where p.product_id = 'P42' and p.store_id = 2 and p.date between '2025-05-01' and '2025-05-20' order by p.date"),
+                Arguments.of("PriceRepository.findTopByProductAndStoreOrderByDateDesc",
+                        "select * from prices where product_id = 'P42' and store_id = 2 order by date desc limit 1"),
+                Arguments.of("PriceRepository.findByProductOrderByDateDesc",
+                        "select * from prices where product_id = 'P42' order by date desc"),
+                Arguments.of("PriceRepository.existsByStoreAndDate",
+                        "select id from prices where store_id = 2 and date = '2025-05-06' limit 1"),
+                Arguments.of("PriceBulkRepository.findExisting",
+                        "select id, product_id, store_id, date, price_minor, currency_id from prices " +
+                        "where product_id = any ('{P1,P2,P3}') and store_id = any ('{2}') and date = any ('{2025-05-06}')"),
+                Arguments.of("DiscountRepository.findBestActiveOn",
+                        BEST_DISCOUNT_SELECT + "where d.start_date <= '2025-05-08' and d.end_date >= '2025-05-08' " +
+                        "order by d.discount_basis_points desc limit 10"),
+                Arguments.of("DiscountRepository.findBestStartingFrom",
+                        BEST_DISCOUNT_SELECT + "where d.start_date >= '2025-05-20' order by d.start_date desc"),
+                Arguments.of("DiscountRepository.findBestStartingBetween",
+                        BEST_DISCOUNT_SELECT + "where d.start_date between '2025-05-01' and '2025-05-08' order by d.start_date desc"),
+                Arguments.of("DiscountRepository.findByProductAndStoreAndStartDateLessThanEqualAndEndDateGreaterThanEqual",
+                        "select * from discounts where product_id = 'P43' and store_id = 2 and start_date <= '2025-05-08' and end_date >= '2025-05-08'"),
+                Arguments.of("DiscountRepository.existsByStore",
+                        "select id from discounts where store_id = 2 limit 1"),
+                Arguments.of("PriceAlertRepository.findByUserEmail",
+                        "select * from price_alerts where user_email = 'user7@example.com'"),
+                Arguments.of("PriceAlertRepository.findByUserEmailAndProductAndStore",
+                        "select * from price_alerts where user_email = 'user7@example.com' and product_id = 'P7' and store_id = 1"),
+                Arguments.of("ProductRepository.findByCategoryIdIn",
+                        "select * from products where category_id in (3, 4)"),
+                Arguments.of("ProductRepository.findByBrandIdIn",
+                        "select * from products where brand_id in (7)"),
+                Arguments.of("PriceBulkRepository.findLatestPrices",
+                        "select basket.product_id, s.id, s.name, p.price_minor, p.currency_id, p.date, d.discount_basis_points " +
+                        "from unnest('{P1,P42,P1999}'::varchar[]) as basket(product_id) cross join stores s " +
+                        "join lateral (select pr.price_minor, pr.currency_id, pr.date from prices pr " +
+                        "where pr.product_id = basket.product_id and pr.store_id = s.id and pr.date <= '2025-05-08' " +
+                        "order by pr.date desc, pr.id desc limit 1) p on true " +
+                        "left join lateral (select dc.discount_basis_points from discounts dc " +
+                        "where dc.product_id = basket.product_id and dc.store_id = s.id " +
+                        "and dc.start_date <= '2025-05-08' and dc.end_date >= '2025-05-08' " +
+                        "order by dc.start_date desc limit 1) d on true"),
+                Arguments.of("CurrentPriceRepository.findByProduct",
+                        "select * from current_prices where product_id = 'P42'"),
+                Arguments.of("CurrentPriceRepository.findByProductIn",
+                        "select * from current_prices where product_id in ('P42', 'P43', 'P44')")
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("hotQueries")
+    void hotQueryUsesAnIndex(String name, String sql) throws SQLException {
+        List<String> seqScans = new ArrayList<>();
+        collectSeqScans(explain(sql), seqScans);
+        seqScans.removeAll(FULLY_READ_TABLES);
+        assertTrue(seqScans.isEmpty(), name + " regressed to a sequential scan of " + seqScans);
+    }
+
+    @Test
+    void dateBoundedPriceQueryPrunesPartitions() throws SQLException {
+        List<String> relations = new ArrayList<>();
+        collect(explain("select * from prices where product_id = 'P42' and date between '2025-05-01' and '2025-05-20'"),
+                "Relation Name", relations);
+        assertTrue(relations.contains("prices_p2025_05"), "May partition not scanned: " + relations);
+        assertFalse(relations.contains("prices_p2025_04"), "April partition not pruned: " + relations);
+    }
+
+    private static JsonNode explain(String sql) throws SQLException {
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            statement.execute("set enable_seqscan = off");
+            try (ResultSet rs = statement.executeQuery("explain (format json) " + sql)) {
+                rs.next();
+                return MAPPER.readTree(rs.getString(1));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Unreadable plan for: " + sql, e);
+            }
+        }
+    }
+
+    private static void collect(JsonNode node, String field, List<String> values) {
+        if (node.isObject() && node.has(field)) {
+            values.add(node.get(field).asText());
+        }
+        node.forEach(child -> collect(child, field, values));
+    }
+
+    private static void collectSeqScans(JsonNode node, List<String> relations) {
+        if (node.isObject() && "Seq Scan".equals(node.path("Node Type").asText())) {
+            relations.add(node.path("Relation Name").asText());
+        }
+        node.forEach(child -> collectSeqScans(child, relations));
+    }
+
+    private static Connection connect() throws SQLException {
+        return DriverManager.getConnection(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+    }
+}
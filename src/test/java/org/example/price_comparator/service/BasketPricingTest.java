@@ -0,0 +1,224 @@
+package org.example.price_comparator.service;
+
+import org.example.price_comparator.PostgresIntegrationTest;
+import org.example.price_comparator.dto.basket.BasketItemDto;
+import org.example.price_comparator.dto.basket.OptimizedItemDto;
+import org.example.price_comparator.dto.basket.OptimizedShoppingPlanDto;
+import org.example.price_comparator.dto.basket.ShoppingBasketDto;
+import org.example.price_comparator.dto.basket.StoreShoppingListDto;
+import org.example.price_comparator.model.CurrentPrice;
+import org.example.price_comparator.model.Price;
+import org.example.price_comparator.model.Product;
+import org.example.price_comparator.repository.PriceRepository;
+import org.example.price_comparator.repository.ProductRepository;
+import org.example.price_comparator.util.Money;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+// Checks the basket priced in one go (current_prices for the products it covers, findLatestPrices for the rest)
+// against the per-item lookups optimizeBasket used to run. The dates fall before some products have a price,
+// between price changes where current_prices cannot answer, and inside two overlapping discounts.
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BasketPricingTest extends PostgresIntegrationTest {
+
+    private static final String PRICE_HEADER = "product_id;product_name;product_category;brand;package_quantity;package_unit;price;currency\n";
+    private static final String DISCOUNT_HEADER = "product_id;product_name;brand;package_quantity;package_unit;product_category;from_date;to_date;percentage_of_discount\n";
+
+    // Sold in all three stores, with two overlapping discounts in bskmega
+    private static final String PRODUCT_A = "BSK-A";
+    // Discounted all month in bsklidl
+    private static final String PRODUCT_B = "BSK-B";
+    // First priced on the 5th
+    private static final String PRODUCT_C = "BSK-C";
+    // No price anywhere
+    private static final String PRODUCT_Z = "BSK-Z";
+
+    @Autowired
+    private CsvService csvService;
+
+    @Autowired
+    private ShoppingBasketService shoppingBasketService;
+
+    @Autowired
+    private CurrentPriceService currentPriceService;
+
+    @Autowired
+    private PriceRepository priceRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private DictionaryService dictionaryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeAll
+    void seed(@TempDir Path feeds) throws IOException {
+        // In date order, as the feeds arrive, so that current_prices ends up as the import leaves it
+        importFeed(feeds, "bsklidl_2024-03-01.csv", PRICE_HEADER
+                + "BSK-A;ulei;alimente;Bunica;1;l;10.00;RON\n"
+                + "BSK-B;zahar;alimente;Margaritar;1;kg;5.00;RON\n");
+        importFeed(feeds, "bskprofi_2024-03-01.csv", PRICE_HEADER
+                + "BSK-A;ulei;alimente;Bunica;1;l;9.50;RON\n"
+                + "BSK-B;zahar;alimente;Margaritar;1;kg;5.50;RON\n");
+        importFeed(feeds, "bsklidl_discounts_2024-03-01.csv", DISCOUNT_HEADER
+                + "BSK-B;zahar;Margaritar;1;kg;alimente;2024-03-01;2024-03-31;10\n");
+        importFeed(feeds, "bskmega_discounts_2024-03-04.csv", DISCOUNT_HEADER
+                + "BSK-A;ulei;Bunica;1;l;alimente;2024-03-04;2024-03-31;20\n");
+        importFeed(feeds, "bskmega_2024-03-05.csv", PRICE_HEADER
+                + "BSK-A;ulei;alimente;Bunica;1;l;11.00;RON\n");
+        importFeed(feeds, "bsklidl_2024-03-05.csv", PRICE_HEADER
+                + "BSK-A;ulei;alimente;Bunica;1;l;9.00;RON\n"
+                + "BSK-B;zahar;alimente;Margaritar;1;kg;5.00;RON\n"
+                + "BSK-C;faina;alimente;Baneasa;1;kg;3.00;RON\n");
+        importFeed(feeds, "bskprofi_2024-03-05.csv", PRICE_HEADER
+                + "BSK-C;faina;alimente;Baneasa;1;kg;2.80;RON\n");
+        importFeed(feeds, "bskmega_discounts_2024-03-08.csv", DISCOUNT_HEADER
+                + "BSK-A;ulei;Bunica;1;l;alimente;2024-03-08;2024-03-31;10\n");
+        importFeed(feeds, "bsklidl_2024-03-25.csv", PRICE_HEADER
+                + "BSK-A;ulei;alimente;Bunica;1;l;8.50;RON\n");
+
+        jdbcTemplate.update("insert into products (id, product_name, category_id, brand_id, package_quantity, unit_id) " +
+                        "values (?, 'sare', ?, ?, 1, ?)", PRODUCT_Z, dictionaryService.categoryId("alimente"),
+                dictionaryService.brandId("Salrom"), dictionaryService.unitId("kg"));
+    }
+
+    // 3rd: before C and the bskmega price, from the history. 6th: from the history, one bskmega discount.
+    // 10th: A from the history, with both bskmega discounts, B and C from current_prices. 28th: all from
+    // current_prices, with both bskmega discounts.
+    @ParameterizedTest
+    @ValueSource(strings = {"2024-03-03", "2024-03-06", "2024-03-10", "2024-03-28"})
+    void batchedPricingMatchesThePerItemLookups(String day) {
+        LocalDate date = LocalDate.parse(day);
+        List<BasketItemDto> items = List.of(
+                new BasketItemDto(PRODUCT_A, 2),
+                new BasketItemDto(PRODUCT_B, 3),
+                new BasketItemDto(PRODUCT_C, 1),
+                new BasketItemDto(PRODUCT_Z, 1));
+
+        OptimizedShoppingPlanDto plan = shoppingBasketService.optimizeBasket(new ShoppingBasketDto(items, null, null), date);
+
+        Map<String, List<ReferencePrice>> reference = new TransactionTemplate(transactionManager).execute(status -> {
+            Map<String, List<ReferencePrice>> prices = new HashMap<>();
+            for (BasketItemDto item : items) {
+                prices.put(item.getProductId(), perItemPrices(productRepository.findById(item.getProductId()).orElseThrow(), date));
+            }
+            return prices;
+        });
+
+        Map<String, String> expectedItems = new TreeMap<>();
+        long expectedTotal = 0;
+        long expectedWorstCase = 0;
+        for (BasketItemDto item : items) {
+            List<ReferencePrice> prices = reference.get(item.getProductId());
+            if (prices.isEmpty()) {
+                continue;
+            }
+            ReferencePrice best = prices.stream().min(Comparator.comparingLong(ReferencePrice::finalPriceMinor)).orElseThrow();
+            ReferencePrice worst = prices.stream().max(Comparator.comparingLong(ReferencePrice::finalPriceMinor)).orElseThrow();
+            expectedItems.put(item.getProductId(), describe(best.storeName(), Money.toDecimal(best.finalPriceMinor()),
+                    best.discountBasisPoints() != null ? Money.toPercentage(best.discountBasisPoints()) : null));
+            expectedTotal += Money.multiply(best.finalPriceMinor(), item.getQuantity());
+            expectedWorstCase += Money.multiply(worst.finalPriceMinor(), item.getQuantity());
+        }
+
+        Map<String, String> plannedItems = new TreeMap<>();
+        for (StoreShoppingListDto storeList : plan.getStoreLists()) {
+            for (OptimizedItemDto item : storeList.getItems()) {
+                plannedItems.put(item.getProductId(), describe(storeList.getStoreName(), item.getUnitPrice(), item.getDiscountPercentage()));
+            }
+        }
+        assertEquals(expectedItems, plannedItems);
+        assertEquals(Money.toDecimal(expectedTotal), plan.getTotalCost());
+        assertEquals(Money.toDecimal(expectedWorstCase), plan.getWorstCaseCost());
+        assertFalse(plannedItems.containsKey(PRODUCT_Z));
+    }
+
+    // The 20% discount alone on the 6th, the later 10% one from the 8th on
+    @ParameterizedTest
+    @ValueSource(strings = {"2024-03-06", "2024-03-10", "2024-03-28"})
+    void laterStartedDiscountWinsOverAnOverlappingOne(String day) {
+        LocalDate date = LocalDate.parse(day);
+        OptimizedShoppingPlanDto plan = shoppingBasketService.optimizeBasket(
+                new ShoppingBasketDto(List.of(new BasketItemDto(PRODUCT_A, 1)), null, null), date);
+
+        double expectedWorstCase = date.isBefore(LocalDate.of(2024, 3, 8)) ? 9.5 : 9.9;
+        assertEquals(expectedWorstCase, plan.getWorstCaseCost());
+    }
+
+    // The lookups optimizeBasket ran for one item before the basket was priced in one go: current_prices when it
+    // covers the date, otherwise the product's price history and one discount query per store. Of overlapping
+    // discounts the one started last is taken, as current_prices keeps it; the single-result finder the old
+    // lookups used failed on them instead.
+    private List<ReferencePrice> perItemPrices(Product product, LocalDate date) {
+        List<ReferencePrice> prices = new ArrayList<>();
+        Optional<List<CurrentPrice>> currentPrices = currentPriceService.findCurrentPrices(product, date);
+        if (currentPrices.isPresent()) {
+            for (CurrentPrice currentPrice : currentPrices.get()) {
+                prices.add(new ReferencePrice(currentPrice.getStore().getName(), currentPrice.effectivePriceMinor(date),
+                        currentPrice.isDiscountActive(date) ? currentPrice.getDiscountBasisPoints() : null));
+            }
+            return prices;
+        }
+
+        // Of two prices on the same day the later row wins
+        Map<Long, Price> latestByStore = new HashMap<>();
+        for (Price price : priceRepository.findByProductAndDateLessThanEqualOrderByDateDesc(product, date)) {
+            latestByStore.merge(price.getStore().getId(), price, (kept, next) ->
+                    next.getDate().equals(kept.getDate()) && next.getId() > kept.getId() ? next : kept);
+        }
+        for (Price price : latestByStore.values()) {
+            List<Integer> discounts = jdbcTemplate.queryForList(
+                    "select discount_basis_points from discounts where product_id = ? and store_id = ? " +
+                    "and start_date <= ? and end_date >= ? order by start_date desc limit 1",
+                    Integer.class, product.getId(), price.getStore().getId(), date, date);
+            Integer discountBasisPoints = discounts.isEmpty() ? null : discounts.getFirst();
+            long finalPrice = discountBasisPoints != null
+                    ? Money.applyDiscount(price.getPriceMinor(), discountBasisPoints)
+                    : price.getPriceMinor();
+            prices.add(new ReferencePrice(price.getStore().getName(), finalPrice, discountBasisPoints));
+        }
+        return prices;
+    }
+
+    private static String describe(String storeName, Double unitPrice, Double discountPercentage) {
+        return storeName + " " + unitPrice + " " + discountPercentage;
+    }
+
+    private void importFeed(Path feeds, String fileName, String content) throws IOException {
+        Path file = feeds.resolve(fileName);
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        csvService.processCsvFile(file, new ImportProgress());
+    }
+
+    private record ReferencePrice(String storeName, long finalPriceMinor, Integer discountBasisPoints) {
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.price_comparator.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.example.price_comparator.service.BasketSolverTest.assertConsistent;
+import static org.example.price_comparator.service.BasketSolverTest.randomCosts;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Prints solve times and checks they stay near the time limit; left out of the regular build, run with
+// mvn test -Pbenchmark
+@Tag("benchmark")
+class BasketSolverBenchmarkTest {
+
+    @Test
+    void largeProblemsReturnWithinTheTimeLimit() {
+        long[][] costs = randomCosts(new Random(7), 80, 400, 0.9);
+        BasketSolver solver = new BasketSolver(costs, 400, 300, 10);
+
+        long start = System.nanoTime();
+        BasketSolver.Solution solution = solver.solve(Duration.ofMillis(50)).orElseThrow();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(millis < 500, "took " + millis + " ms");
+        assertConsistent(costs, 300, 10, solution);
+    }
+
+    @Test
+    void benchmarkSolver() {
+        int[][] sizes = {
+                // items, stores, max stores
+                {10, 5, 2},
+                {30, 10, 3},
+                {100, 10, 3},
+                {100, 25, 4},
+                {300, 50, 6},
+        };
+        Duration timeLimit = Duration.ofMillis(200);
+        for (int[] size : sizes) {
+            long[][] costs = randomCosts(new Random(size[0] * 31L + size[1]), size[1], size[0], 0.8);
+            long bestNanos = Long.MAX_VALUE;
+            BasketSolver solver = null;
+            BasketSolver.Solution solution = null;
+            for (int round = 0; round < 3; round++) {
+                solver = new BasketSolver(costs, size[0], 500, size[2]);
+                long start = System.nanoTime();
+                solution = solver.solve(timeLimit).orElseThrow();
+                bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+            }
+            assertTrue(bestNanos < timeLimit.toNanos() * 3);
+            System.out.printf(Locale.ROOT, "Basket solver, %d items, %d stores, max %d: %.2f ms, %d nodes, %s%n",
+                    size[0], size[1], size[2], bestNanos / 1e6, solver.nodesExplored(),
+                    solution.optimal() ? "optimal" : "time limit reached");
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package org.example.price_comparator.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.example.price_comparator.service.BasketSolver.UNAVAILABLE;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Correctness of the store-limited search; timings are in BasketSolverBenchmarkTest
+class BasketSolverTest {
+
+    private static final Duration GENEROUS = Duration.ofSeconds(10);
+
+    @Test
+    void exactSearchMatchesBruteForce() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            int stores = 1 + random.nextInt(8);
+            int items = 1 + random.nextInt(15);
+            int maxStores = 1 + random.nextInt(4);
+            long visitCost = random.nextBoolean() ? 0 : random.nextInt(2_000);
+            long[][] costs = randomCosts(random, stores, items, 0.7);
+
+            Optional<BasketSolver.Solution> solution = new BasketSolver(costs, items, visitCost, maxStores).solve(GENEROUS);
+            long expected = bruteForce(costs, items, visitCost, maxStores);
+
+            if (expected == UNAVAILABLE) {
+                assertTrue(solution.isEmpty(), "round " + round);
+            } else {
+                assertTrue(solution.isPresent(), "round " + round);
+                assertTrue(solution.get().optimal());
+                assertEquals(expected, solution.get().totalCost(), "round " + round);
+                assertConsistent(costs, visitCost, maxStores, solution.get());
+            }
+        }
+    }
+
+    @Test
+    void visitCostMergesStores() {
+        // Item 0 is 2.00 cheaper in store 0 and item 1 is 2.00 cheaper in store 1; a second visit costs 5.00
+        long[][] costs = {
+                {1_000, 1_300},
+                {1_200, 1_100}
+        };
+        BasketSolver.Solution split = new BasketSolver(costs, 2, 0, 2).solve(GENEROUS).orElseThrow();
+        assertEquals(2, split.stores().length);
+        assertEquals(2_100, split.totalCost());
+
+        BasketSolver.Solution merged = new BasketSolver(costs, 2, 500, 2).solve(GENEROUS).orElseThrow();
+        assertEquals(1, merged.stores().length);
+        assertEquals(2_300, merged.itemsCost());
+        assertEquals(500, merged.visitsCost());
+    }
+
+    @Test
+    void noPlanWhenTooFewStoresCarryTheItems() {
+        long[][] costs = {
+                {100, UNAVAILABLE, UNAVAILABLE},
+                {UNAVAILABLE, 100, UNAVAILABLE},
+                {UNAVAILABLE, UNAVAILABLE, 100}
+        };
+        BasketSolver infeasible = new BasketSolver(costs, 3, 0, 2);
+        assertTrue(infeasible.solve(GENEROUS).isEmpty());
+        assertFalse(infeasible.timedOut());
+        assertTrue(new BasketSolver(costs, 3, 0, 3).solve(GENEROUS).isPresent());
+    }
+
+    // With no time at all, greedy still runs until its stores carry every item
+    @Test
+    void feasiblePlanIsFoundPastTheDeadline() {
+        long[][] costs = randomCosts(new Random(7), 80, 400, 0.9);
+        BasketSolver solver = new BasketSolver(costs, 400, 300, 10);
+
+        BasketSolver.Solution solution = solver.solve(Duration.ZERO).orElseThrow();
+
+        assertFalse(solution.optimal());
+        assertTrue(solver.timedOut());
+        assertConsistent(costs, 300, 10, solution);
+    }
+
+    // Greedy takes store 0, which covers most items, and cannot cover the rest with one more store;
+    // only stores 1 and 2 together carry everything
+    @Test
+    void timedOutSearchIsNotReportedAsInfeasible() {
+        long[][] costs = {
+                {100, 100, 100, 100, UNAVAILABLE, UNAVAILABLE},
+                {100, 100, UNAVAILABLE, UNAVAILABLE, 100, UNAVAILABLE},
+                {UNAVAILABLE, UNAVAILABLE, 100, 100, UNAVAILABLE, 100}
+        };
+        BasketSolver timedOut = new BasketSolver(costs, 6, 0, 2);
+        assertTrue(timedOut.solve(Duration.ZERO).isEmpty());
+        assertTrue(timedOut.timedOut());
+
+        BasketSolver solved = new BasketSolver(costs, 6, 0, 2);
+        BasketSolver.Solution solution = solved.solve(GENEROUS).orElseThrow();
+        assertFalse(solved.timedOut());
+        assertTrue(solution.optimal());
+        assertArrayEquals(new int[]{1, 2}, solution.stores());
+    }
+
+    // Every item goes to a store that sells it, no more than maxStores stores, and the reported costs add up
+    static void assertConsistent(long[][] costs, long visitCost, int maxStores, BasketSolver.Solution solution) {
+        assertTrue(solution.stores().length <= maxStores);
+        long itemsCost = 0;
+        for (int item = 0; item < solution.storeOfItem().length; item++) {
+            int store = solution.storeOfItem()[item];
+            assertFalse(costs[store][item] == UNAVAILABLE);
+            assertTrue(Arrays.stream(solution.stores()).anyMatch(visited -> visited == store));
+            itemsCost += costs[store][item];
+        }
+        assertEquals(itemsCost, solution.itemsCost());
+        assertEquals(visitCost * solution.stores().length, solution.visitsCost());
+    }
+
+    private static long bruteForce(long[][] costs, int items, long visitCost, int maxStores) {
+        long best = UNAVAILABLE;
+        for (int mask = 1; mask < 1 << costs.length; mask++) {
+            if (Integer.bitCount(mask) > maxStores) {
+                continue;
+            }
+            long total = visitCost * Integer.bitCount(mask);
+            for (int item = 0; item < items && total != UNAVAILABLE; item++) {
+                long cheapest = UNAVAILABLE;
+                for (int store = 0; store < costs.length; store++) {
+                    if ((mask & 1 << store) != 0) {
+                        cheapest = Math.min(cheapest, costs[store][item]);
+                    }
+                }
+                total = cheapest == UNAVAILABLE ? UNAVAILABLE : total + cheapest;
+            }
+            best = Math.min(best, total);
+        }
+        return best;
+    }
+
+    // Prices between 1.00 and 50.00 that vary by up to 30% between stores; each store sells a share of the items
+    static long[][] randomCosts(Random random, int stores, int items, double availability) {
+        long[][] costs = new long[stores][items];
+        for (int item = 0; item < items; item++) {
+            long base = 100 + random.nextInt(4_900);
+            for (int store = 0; store < stores; store++) {
+                costs[store][item] = random.nextDouble() < availability
+                        ? base + random.nextInt((int) (base * 3 / 10) + 1)
+                        : UNAVAILABLE;
+            }
+        }
+        return costs;
+    }
+}
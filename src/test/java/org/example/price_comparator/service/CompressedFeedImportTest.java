@@ -0,0 +1,122 @@
+package org.example.price_comparator.service;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import org.example.price_comparator.PostgresIntegrationTest;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Imports the same feeds plain, gzip and zstd compressed, from the CSV folder and as an upload stream,
+// and reads back what was stored
+class CompressedFeedImportTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private CsvService csvService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    Path tempDir;
+
+    @ParameterizedTest
+    @ValueSource(strings = {".csv", ".csv.gz", ".csv.zst"})
+    void folderImportRoundTrip(String extension) throws IOException {
+        String store = "folder" + storeSuffix(extension);
+        Path prices = write(store + "_2025-05-08" + extension, priceFeed(store));
+        Path discounts = write(store + "_discounts_2025-05-08" + extension, discountFeed(store));
+
+        csvService.processCsvFile(prices, new ImportProgress());
+        csvService.processCsvFile(discounts, new ImportProgress());
+
+        assertStored(store);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {".csv", ".csv.gz", ".csv.zst"})
+    void uploadRoundTrip(String extension) throws IOException {
+        String store = "upload" + storeSuffix(extension);
+        Path prices = write(store + "_2025-05-08" + extension, priceFeed(store));
+        Path discounts = write(store + "_discounts_2025-05-08" + extension, discountFeed(store));
+
+        try (InputStream in = Files.newInputStream(prices)) {
+            csvService.processCsvStream(prices.getFileName().toString(), in, new ImportProgress());
+        }
+        try (InputStream in = Files.newInputStream(discounts)) {
+            csvService.processCsvStream(discounts.getFileName().toString(), in, new ImportProgress());
+        }
+
+        assertStored(store);
+    }
+
+    private void assertStored(String store) {
+        List<Map<String, Object>> prices = jdbcTemplate.queryForList(
+                "select p.product_id, p.price_minor, p.date from prices p join stores s on s.id = p.store_id " +
+                "where s.name = ? order by p.product_id", store);
+        assertEquals(3, prices.size());
+        assertEquals(List.of(store + "-P1", store + "-P2", store + "-P3"),
+                prices.stream().map(row -> row.get("product_id")).toList());
+        assertEquals(List.of(980L, 1160L, 12345L), prices.stream().map(row -> row.get("price_minor")).toList());
+        assertEquals("2025-05-08", prices.get(0).get("date").toString());
+
+        List<Map<String, Object>> discounts = jdbcTemplate.queryForList(
+                "select d.product_id, d.discount_basis_points, d.start_date, d.end_date from discounts d " +
+                "join stores s on s.id = d.store_id where s.name = ? order by d.product_id", store);
+        assertEquals(2, discounts.size());
+        assertEquals(store + "-P1", discounts.get(0).get("product_id"));
+        assertEquals(1250, ((Number) discounts.get(0).get("discount_basis_points")).intValue());
+        assertEquals("2025-05-10", discounts.get(0).get("start_date").toString());
+        assertEquals("2025-05-16", discounts.get(0).get("end_date").toString());
+        assertEquals(500, ((Number) discounts.get(1).get("discount_basis_points")).intValue());
+    }
+
+    private static String priceFeed(String store) {
+        return "product_id;product_name;product_category;brand;package_quantity;package_unit;price;currency\n"
+                + store + "-P1;lapte zuzu;lactate;Zuzu;1;l;9.80;RON\n"
+                + store + "-P2;iaurt grecesc;lactate;Lidl;0.4;kg;11.60;RON\n"
+                + store + "-P3;cafea măcinată;cafea;Jacobs;0.5;kg;123.45;RON\n";
+    }
+
+    private static String discountFeed(String store) {
+        return "product_id;product_name;brand;package_quantity;package_unit;product_category;from_date;to_date;percentage_of_discount\n"
+                + store + "-P1;lapte zuzu;Zuzu;1;l;lactate;2025-05-10;2025-05-16;12.5\n"
+                + store + "-P3;cafea măcinată;Jacobs;0.5;kg;cafea;2025-05-10;2025-05-16;5\n";
+    }
+
+    private Path write(String fileName, String content) throws IOException {
+        Path file = tempDir.resolve(fileName);
+        try (OutputStream out = compress(Files.newOutputStream(file), fileName)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return file;
+    }
+
+    private static OutputStream compress(OutputStream out, String fileName) throws IOException {
+        if (fileName.endsWith(".gz")) {
+            return new GZIPOutputStream(out);
+        }
+        if (fileName.endsWith(".zst")) {
+            return new ZstdOutputStream(out);
+        }
+        return out;
+    }
+
+    // Store names come before the first '_' of the file name
+    private static String storeSuffix(String extension) {
+        return extension.replace(".", "");
+    }
+}
@@ -0,0 +1,162 @@
+package org.example.price_comparator.service;
+
+import org.example.price_comparator.PostgresIntegrationTest;
+import org.example.price_comparator.model.CurrentPrice;
+import org.example.price_comparator.model.Product;
+import org.example.price_comparator.repository.CurrentPriceRepository;
+import org.example.price_comparator.repository.PriceBulkRepository.LatestPrice;
+import org.example.price_comparator.repository.PriceRepository;
+import org.example.price_comparator.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// current_prices is maintained chunk by chunk as feeds arrive, in whatever order they arrive. The feeds of
+// cporder come newest first, then older ones, so every row has to resist being moved backwards; the result must
+// still agree with the history the SQL fallback reads, and with a rebuild of the table from that history.
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class CurrentPricesTest extends PostgresIntegrationTest {
+
+    private static final String PRICE_HEADER = "product_id;product_name;product_category;brand;package_quantity;package_unit;price;currency\n";
+    private static final String DISCOUNT_HEADER = "product_id;product_name;brand;package_quantity;package_unit;product_category;from_date;to_date;percentage_of_discount\n";
+    private static final String STORE = "cporder";
+    private static final List<String> PRODUCTS = List.of("CPO-P1", "CPO-P2", "CPO-P3");
+
+    @Autowired
+    private CsvService csvService;
+
+    @Autowired
+    private CurrentPriceService currentPriceService;
+
+    @Autowired
+    private CurrentPriceRepository currentPriceRepository;
+
+    @Autowired
+    private PriceRepository priceRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeAll
+    void seed(@TempDir Path feeds) throws IOException {
+        importFeed(feeds, "cporder_2024-05-20.csv", PRICE_HEADER
+                + "CPO-P1;ulei;alimente;Bunica;1;l;10.00;RON\n"
+                + "CPO-P2;zahar;alimente;Margaritar;1;kg;5.00;RON\n");
+        // Older than the feed before it; P3 is only sold in this one
+        importFeed(feeds, "cporder_2024-05-10.csv", PRICE_HEADER
+                + "CPO-P1;ulei;alimente;Bunica;1;l;9.00;RON\n"
+                + "CPO-P2;zahar;alimente;Margaritar;1;kg;4.00;RON\n"
+                + "CPO-P3;faina;alimente;Baneasa;1;kg;3.00;RON\n");
+        importFeed(feeds, "cporder_2024-05-15.csv", PRICE_HEADER
+                + "CPO-P1;ulei;alimente;Bunica;1;l;9.50;RON\n");
+        importFeed(feeds, "cporder_discounts_2024-05-12.csv", DISCOUNT_HEADER
+                + "CPO-P1;ulei;Bunica;1;l;alimente;2024-05-12;2024-05-31;20\n");
+        // Starts before the discount already stored for P1, which it must not replace
+        importFeed(feeds, "cporder_discounts_2024-05-05.csv", DISCOUNT_HEADER
+                + "CPO-P1;ulei;Bunica;1;l;alimente;2024-05-05;2024-05-25;10\n"
+                + "CPO-P2;zahar;Margaritar;1;kg;alimente;2024-05-05;2024-05-08;10\n");
+    }
+
+    @Test
+    void olderFeedsNeverMoveARowBackwards() {
+        Map<String, Map<String, Object>> rows = currentRows();
+
+        assertEquals(3, rows.size());
+        assertRow(rows.get("CPO-P1"), 1000, "2024-05-20", 2000, "2024-05-12", 800L);
+        assertRow(rows.get("CPO-P2"), 500, "2024-05-20", 1000, "2024-05-05", 450L);
+        assertRow(rows.get("CPO-P3"), 300, "2024-05-10", null, null, null);
+    }
+
+    // On the 22nd every row covers the date: P1's 20% discount is active, P2's discount has ended
+    @Test
+    void tableAgreesWithTheSqlFallback() {
+        LocalDate date = LocalDate.of(2024, 5, 22);
+        List<Product> products = productRepository.findAllById(PRODUCTS);
+
+        Map<String, List<CurrentPrice>> current = currentPriceService.findCurrentPrices(products, date);
+        Map<String, LatestPrice> latest = new HashMap<>();
+        for (LatestPrice price : priceRepository.findLatestPrices(PRODUCTS, date)) {
+            if (price.storeName().equals(STORE)) {
+                latest.put(price.productId(), price);
+            }
+        }
+
+        assertEquals(PRODUCTS.size(), current.size());
+        for (String productId : PRODUCTS) {
+            CurrentPrice row = current.get(productId).getFirst();
+            LatestPrice expected = latest.get(productId);
+            assertEquals(expected.priceMinor(), row.getPriceMinor(), productId);
+            assertEquals(expected.currencyId(), row.getCurrencyId(), productId);
+            assertEquals(expected.date(), row.getPriceDate(), productId);
+            assertEquals(expected.discountBasisPoints(), row.isDiscountActive(date) ? row.getDiscountBasisPoints() : null, productId);
+        }
+    }
+
+    // Before P1's newest price the table cannot know the price that applied, so the lookup declines the date
+    @Test
+    void datesBeforeTheStoredPriceAreLeftToTheFallback() {
+        Product product = productRepository.findById("CPO-P1").orElseThrow();
+
+        assertFalse(currentPriceService.findCurrentPrices(product, LocalDate.of(2024, 5, 16)).isPresent());
+        assertTrue(currentPriceService.findCurrentPrices(product, LocalDate.of(2024, 5, 20)).isPresent());
+    }
+
+    @Test
+    void rebuildFromTheHistoryGivesTheSameTable() {
+        Map<String, Map<String, Object>> maintained = currentRows();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.update("delete from current_prices where store_id = (select id from stores where name = ?)", STORE);
+            currentPriceRepository.rebuild();
+        });
+
+        assertEquals(maintained, currentRows());
+    }
+
+    private Map<String, Map<String, Object>> currentRows() {
+        Map<String, Map<String, Object>> rows = new HashMap<>();
+        jdbcTemplate.queryForList(
+                        "select cp.* from current_prices cp join stores s on s.id = cp.store_id where s.name = ?", STORE)
+                .forEach(row -> rows.put((String) row.get("product_id"), row));
+        return rows;
+    }
+
+    private static void assertRow(Map<String, Object> row, long priceMinor, String priceDate, Integer basisPoints,
+                                  String discountStart, Long discountedPriceMinor) {
+        assertEquals(priceMinor, ((Number) row.get("price_minor")).longValue());
+        assertEquals(priceDate, row.get("price_date").toString());
+        assertEquals(basisPoints, row.get("discount_basis_points") != null ? ((Number) row.get("discount_basis_points")).intValue() : null);
+        assertEquals(discountStart, row.get("discount_start_date") != null ? row.get("discount_start_date").toString() : null);
+        assertEquals(discountedPriceMinor, row.get("discounted_price_minor") != null ? ((Number) row.get("discounted_price_minor")).longValue() : null);
+    }
+
+    private void importFeed(Path feeds, String fileName, String content) throws IOException {
+        Path file = feeds.resolve(fileName);
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        csvService.processCsvFile(file, new ImportProgress());
+    }
+}
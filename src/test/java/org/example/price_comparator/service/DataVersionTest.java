@@ -0,0 +1,96 @@
+package org.example.price_comparator.service;
+
+import org.example.price_comparator.PostgresIntegrationTest;
+import org.example.price_comparator.repository.PriceEngineRepository;
+import org.example.price_comparator.repository.PriceRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The engine's snapshot file is trusted only while the data version it was written with is current, so every
+// write of prices or discounts has to change it, and nothing else may
+class DataVersionTest extends PostgresIntegrationTest {
+
+    private static final String HEADER = "product_id;product_name;product_category;brand;package_quantity;package_unit;price;currency\n";
+
+    @Autowired
+    private CsvService csvService;
+
+    @Autowired
+    private PriceEngineRepository priceEngineRepository;
+
+    @Autowired
+    private PriceRepository priceRepository;
+
+    @Autowired
+    private PriceEngine priceEngine;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void importsChangeTheVersionOnlyWhenRowsChange() throws IOException {
+        long before = currentVersion();
+
+        importFeed("dataversion_2025-06-02.csv", "DV-P1;ulei;alimente;Bunica;1;l;8.90;RON\n");
+        long imported = currentVersion();
+        assertTrue(imported > before);
+
+        // The same rows again are skipped
+        importFeed("dataversion_2025-06-02.csv", "DV-P1;ulei;alimente;Bunica;1;l;8.90;RON\n");
+        assertEquals(imported, currentVersion());
+
+        importFeed("dataversion_2025-06-02.csv", "DV-P1;ulei;alimente;Bunica;1;l;9.40;RON\n");
+        assertTrue(currentVersion() > imported);
+    }
+
+    @Test
+    void detachingAPartitionChangesTheVersion() {
+        PricePartitionServiceImpl partitions =
+                new PricePartitionServiceImpl(priceRepository, priceEngine, priceEngineRepository, transactionManager);
+        partitions.ensurePartitionFor(LocalDate.of(1990, 1, 15));
+        long before = currentVersion();
+
+        // Keeps every month from February 1990 on
+        ReflectionTestUtils.setField(partitions, "retentionMonths",
+                (int) ChronoUnit.MONTHS.between(YearMonth.of(1990, 2), YearMonth.now()));
+        partitions.maintainPartitions();
+
+        assertFalse(priceRepository.findPartitionNames().contains("prices_p1990_01"));
+        assertEquals(before + 1, currentVersion());
+    }
+
+    @Test
+    void versionIsOnlyChangedInsideTheWritingTransaction() {
+        assertThrows(IllegalTransactionStateException.class, priceEngineRepository::incrementDataVersion);
+    }
+
+    private long currentVersion() {
+        return priceEngineRepository.currentDataVersion().version();
+    }
+
+    private void importFeed(String fileName, String rows) throws IOException {
+        Path file = tempDir.resolve(fileName);
+        Files.writeString(file, HEADER + rows, StandardCharsets.UTF_8);
+        csvService.processCsvFile(file, new ImportProgress());
+    }
+}
@@ -0,0 +1,104 @@
+package org.example.price_comparator.service;
+
+import org.example.price_comparator.repository.DictionaryRepository;
+import org.example.price_comparator.repository.DictionaryRepository.Dictionary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DictionaryServiceImplTest {
+
+    private final DictionaryRepository dictionaryRepository = mock(DictionaryRepository.class);
+    private final Map<String, Integer> brands = new HashMap<>(Map.of("Zuzu", 1, "Napolact", 2, "ZUZU", 3));
+    private DictionaryServiceImpl dictionaryService;
+
+    @BeforeEach
+    void setUp() {
+        when(dictionaryRepository.findAll(any())).thenReturn(Map.of());
+        when(dictionaryRepository.findAll(Dictionary.BRANDS)).thenAnswer(invocation -> Map.copyOf(brands));
+        dictionaryService = new DictionaryServiceImpl(dictionaryRepository);
+    }
+
+    @Test
+    void knownValuesAreEncodedAndDecodedFromOneLoad() {
+        assertEquals(1, dictionaryService.brandId("Zuzu"));
+        assertEquals(2, dictionaryService.brandId("Napolact"));
+        assertEquals("Zuzu", dictionaryService.brand(1));
+        assertEquals("ZUZU", dictionaryService.brand(3));
+
+        verify(dictionaryRepository, times(1)).findAll(Dictionary.BRANDS);
+        verify(dictionaryRepository, never()).findOrCreate(any(), any());
+    }
+
+    @Test
+    void newValueIsCreatedOnceAndThenCached() {
+        when(dictionaryRepository.findOrCreate(Dictionary.BRANDS, List.of("Olympus"))).thenReturn(Map.of("Olympus", 4));
+
+        assertEquals(4, dictionaryService.brandId("Olympus"));
+        assertEquals(4, dictionaryService.brandId("Olympus"));
+        assertEquals("Olympus", dictionaryService.brand(4));
+
+        verify(dictionaryRepository, times(1)).findOrCreate(Dictionary.BRANDS, List.of("Olympus"));
+        verify(dictionaryRepository, times(1)).findAll(Dictionary.BRANDS);
+    }
+
+    @Test
+    void unknownKeyReloadsTheTable() {
+        assertEquals("Zuzu", dictionaryService.brand(1));
+        // Added by another instance after the first load
+        brands.put("Pilos", 5);
+
+        assertEquals("Pilos", dictionaryService.brand(5));
+        assertThrows(IllegalStateException.class, () -> dictionaryService.brand(6));
+        verify(dictionaryRepository, times(3)).findAll(Dictionary.BRANDS);
+    }
+
+    @Test
+    void ignoreCaseLookupReturnsEveryMatchingKey() {
+        assertEquals(List.of(1, 3), dictionaryService.brandIdsIgnoreCase("zuzu"));
+        assertEquals(List.of(), dictionaryService.brandIdsIgnoreCase("Danone"));
+        assertEquals(List.of(), dictionaryService.brandIdsIgnoreCase(null));
+    }
+
+    @Test
+    void dictionariesAreKeptApart() {
+        when(dictionaryRepository.findAll(Dictionary.CATEGORIES)).thenReturn(Map.of("lactate", 1));
+
+        assertEquals(1, dictionaryService.categoryId("lactate"));
+        assertEquals("lactate", dictionaryService.category(1));
+        assertEquals("Zuzu", dictionaryService.brand(1));
+    }
+
+    @Test
+    void unitScalesNormalizeToKilogramsAndLitres() {
+        when(dictionaryRepository.findAll(Dictionary.UNITS)).thenReturn(Map.of("g", 1, "ml", 2, "buc", 3, "kg", 4));
+
+        assertEquals(new DictionaryService.UnitScale("kg", 0.001), dictionaryService.unitScale(1));
+        assertEquals(new DictionaryService.UnitScale("l", 0.001), dictionaryService.unitScale(2));
+        assertEquals(new DictionaryService.UnitScale("buc", 1), dictionaryService.unitScale(3));
+        assertEquals(new DictionaryService.UnitScale("kg", 1), dictionaryService.unitScale(4));
+    }
+
+    @Test
+    void missingValuesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> dictionaryService.brandId(null));
+        assertThrows(IllegalArgumentException.class, () -> dictionaryService.brandId(""));
+        assertThrows(IllegalArgumentException.class, () -> dictionaryService.currencyId(" "));
+        assertThrows(IllegalArgumentException.class, () -> dictionaryService.unitId(null));
+        assertThrows(IllegalArgumentException.class, () -> dictionaryService.categoryId("\t"));
+
+        verify(dictionaryRepository, never()).findOrCreate(any(), any());
+    }
+}
@@ -0,0 +1,107 @@
+package org.example.price_comparator.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.price_comparator.config.ReplicaLagMonitor;
+import org.example.price_comparator.model.Product;
+import org.example.price_comparator.model.Store;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.function.LongConsumer;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DimensionCacheServiceImplTest {
+
+    private final Cache cache = mock(Cache.class);
+    private final EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+
+    @BeforeEach
+    void setUp() {
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getCache()).thenReturn(cache);
+    }
+
+    @Test
+    void withoutReplicaQueriesAreEvictedOnce() {
+        DimensionCacheServiceImpl dimensionCacheService = new DimensionCacheServiceImpl(entityManagerFactory, monitor(null));
+
+        dimensionCacheService.evictQueries();
+
+        verify(cache, times(1)).evictQueryRegions();
+    }
+
+    @Test
+    void queriesAreEvictedAgainOnceTheReplicaHasCaughtUp() {
+        ReplicaLagMonitor replicaLagMonitor = mock(ReplicaLagMonitor.class);
+        DimensionCacheServiceImpl dimensionCacheService = new DimensionCacheServiceImpl(entityManagerFactory, monitor(replicaLagMonitor));
+        LongConsumer caughtUp = caughtUpListener(replicaLagMonitor);
+
+        long positionReadBefore = System.nanoTime();
+        dimensionCacheService.evictQueries();
+        verify(cache, times(1)).evictQueryRegions();
+
+        // The replica may not have the import yet: its position was read before the eviction
+        caughtUp.accept(positionReadBefore);
+        verify(cache, times(1)).evictQueryRegions();
+
+        caughtUp.accept(System.nanoTime());
+        verify(cache, times(2)).evictQueryRegions();
+
+        // Nothing pending any more
+        caughtUp.accept(System.nanoTime());
+        verify(cache, times(2)).evictQueryRegions();
+    }
+
+    @Test
+    void laterEvictionWaitsForALaterCheck() {
+        ReplicaLagMonitor replicaLagMonitor = mock(ReplicaLagMonitor.class);
+        DimensionCacheServiceImpl dimensionCacheService = new DimensionCacheServiceImpl(entityManagerFactory, monitor(replicaLagMonitor));
+        LongConsumer caughtUp = caughtUpListener(replicaLagMonitor);
+
+        dimensionCacheService.evictQueries();
+        long positionReadBetween = System.nanoTime();
+        dimensionCacheService.evictQueries();
+        verify(cache, times(2)).evictQueryRegions();
+
+        caughtUp.accept(positionReadBetween);
+        verify(cache, times(2)).evictQueryRegions();
+
+        caughtUp.accept(System.nanoTime());
+        verify(cache, times(3)).evictQueryRegions();
+    }
+
+    @Test
+    void evictAllClearsEntitiesAndQueries() {
+        DimensionCacheServiceImpl dimensionCacheService = new DimensionCacheServiceImpl(entityManagerFactory, monitor(null));
+
+        dimensionCacheService.evictAll();
+
+        verify(cache).evictEntityData(Product.class);
+        verify(cache).evictEntityData(Store.class);
+        verify(cache).evictQueryRegions();
+        verify(cache, never()).evictAllRegions();
+    }
+
+    private static LongConsumer caughtUpListener(ReplicaLagMonitor replicaLagMonitor) {
+        ArgumentCaptor<LongConsumer> listener = ArgumentCaptor.forClass(LongConsumer.class);
+        verify(replicaLagMonitor).addCaughtUpListener(listener.capture());
+        return listener.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ObjectProvider<ReplicaLagMonitor> monitor(ReplicaLagMonitor replicaLagMonitor) {
+        ObjectProvider<ReplicaLagMonitor> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(replicaLagMonitor);
+        return provider;
+    }
+}
@@ -0,0 +1,82 @@
+package org.example.price_comparator.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.price_comparator.PostgresIntegrationTest;
+import org.example.price_comparator.exceptions.CsvProcessingException;
+import org.example.price_comparator.model.Product;
+import org.example.price_comparator.model.Store;
+import org.example.price_comparator.repository.ProductRepository;
+import org.example.price_comparator.repository.StoreRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The import writes products and stores with plain JDBC; cached finder results must not hide what it added
+class DimensionCacheWiringTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private CsvService csvService;
+
+    @Autowired
+    private DictionaryService dictionaryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StoreRepository storeRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void importedProductsAppearInCachedCategoryResults() throws CsvProcessingException {
+        int categoryId = dictionaryService.categoryId("cache wiring");
+        assertEquals(List.of(), productIds(categoryId));
+        long hits = statistics.getQueryCacheHitCount();
+        assertEquals(List.of(), productIds(categoryId));
+        assertEquals(hits + 1, statistics.getQueryCacheHitCount());
+
+        importFeed("cachewiring_2025-05-08.csv", "CW-P1;lapte;cache wiring;Zuzu;1;l;9.80;RON\n");
+
+        assertEquals(List.of("CW-P1"), productIds(categoryId));
+    }
+
+    @Test
+    void importedStoresAppearInCachedLookups() throws CsvProcessingException {
+        assertTrue(storeRepository.findByName("cachewiringstore").isEmpty());
+        long hits = statistics.getQueryCacheHitCount();
+        assertTrue(storeRepository.findByName("cachewiringstore").isEmpty());
+        assertEquals(hits + 1, statistics.getQueryCacheHitCount());
+
+        importFeed("cachewiringstore_2025-05-08.csv", "CW-P2;lapte;lactate;Zuzu;1;l;9.80;RON\n");
+
+        assertEquals("cachewiringstore", storeRepository.findByName("cachewiringstore").map(Store::getName).orElse(null));
+    }
+
+    private List<String> productIds(int categoryId) {
+        return productRepository.findByCategoryIdIn(List.of(categoryId)).stream().map(Product::getId).toList();
+    }
+
+    private void importFeed(String fileName, String rows) throws CsvProcessingException {
+        String feed = "product_id;product_name;product_category;brand;package_quantity;package_unit;price;currency\n" + rows;
+        csvService.processCsvStream(fileName, new ByteArrayInputStream(feed.getBytes(StandardCharsets.UTF_8)),
+                new ImportProgress());
+    }
+}
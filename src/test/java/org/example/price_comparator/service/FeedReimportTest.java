@@ -0,0 +1,197 @@
+package org.example.price_comparator.service;
+
+import org.example.price_comparator.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+// Re-imports of a feed: an unchanged file is skipped by its manifest entry, a changed one is diffed against the
+// stored rows so that only new and changed rows are written, and current_prices follows them
+class FeedReimportTest extends PostgresIntegrationTest {
+
+    private static final String PRICE_HEADER = "product_id;product_name;product_category;brand;package_quantity;package_unit;price;currency\n";
+    private static final String DISCOUNT_HEADER = "product_id;product_name;brand;package_quantity;package_unit;product_category;from_date;to_date;percentage_of_discount\n";
+
+    @Autowired
+    private CsvService csvService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void unchangedPriceFeedIsSkipped() throws IOException {
+        String feed = PRICE_HEADER
+                + "RIA-P1;lapte;lactate;Zuzu;1;l;9.80;RON\n"
+                + "RIA-P2;iaurt;lactate;Danone;0.4;kg;4.20;RON\n";
+        ImportProgress first = importFeed("reimporta_2025-04-10.csv", feed);
+        assertEquals(2, first.getRowsWritten());
+        List<Map<String, Object>> stored = prices("reimporta");
+
+        ImportProgress second = importFeed("reimporta_2025-04-10.csv", feed);
+
+        // Not even parsed: the manifest entry matches size and checksum
+        assertEquals(0, second.getRowsParsed());
+        assertEquals(0, second.getRowsWritten());
+        assertEquals(1, second.getFilesDone());
+        assertEquals(stored, prices("reimporta"));
+        assertEquals(2, currentPrices("reimporta").size());
+        assertNoDuplicates("reimporta");
+    }
+
+    @Test
+    void changedPriceFeedWritesOnlyTheChangedRows() throws IOException {
+        importFeed("reimportb_2025-04-10.csv", PRICE_HEADER
+                + "RIB-P1;lapte;lactate;Zuzu;1;l;9.80;RON\n"
+                + "RIB-P2;iaurt;lactate;Danone;0.4;kg;4.20;RON\n"
+                + "RIB-P3;unt;lactate;President;0.2;kg;11.50;RON\n");
+        Map<String, Long> idsBefore = idsByProduct("reimportb");
+
+        // P2 changes price, P4 is new, P1 and P3 are unchanged
+        ImportProgress reimport = importFeed("reimportb_2025-04-10.csv", PRICE_HEADER
+                + "RIB-P1;lapte;lactate;Zuzu;1;l;9.80;RON\n"
+                + "RIB-P2;iaurt;lactate;Danone;0.4;kg;3.90;RON\n"
+                + "RIB-P3;unt;lactate;President;0.2;kg;11.50;RON\n"
+                + "RIB-P4;smantana;lactate;Napolact;0.2;kg;5.60;RON\n");
+
+        assertEquals(4, reimport.getRowsParsed());
+        // One update and one insert
+        assertEquals(2, reimport.getRowsWritten());
+        Map<String, Long> idsAfter = idsByProduct("reimportb");
+        assertEquals(4, idsAfter.size());
+        // Rows are updated in place, never deleted and inserted again
+        assertEquals(idsBefore.get("RIB-P1"), idsAfter.get("RIB-P1"));
+        assertEquals(idsBefore.get("RIB-P2"), idsAfter.get("RIB-P2"));
+        assertEquals(idsBefore.get("RIB-P3"), idsAfter.get("RIB-P3"));
+        assertFalse(idsBefore.containsValue(idsAfter.get("RIB-P4")));
+
+        assertEquals(Map.of("RIB-P1", 980L, "RIB-P2", 390L, "RIB-P3", 1150L, "RIB-P4", 560L), pricesByProduct("reimportb"));
+        assertEquals(Map.of("RIB-P1", 980L, "RIB-P2", 390L, "RIB-P3", 1150L, "RIB-P4", 560L), currentPriceByProduct("reimportb"));
+        assertNoDuplicates("reimportb");
+    }
+
+    @Test
+    void changedDiscountFeedUpdatesTheDiscountInPlace() throws IOException {
+        importFeed("reimportc_2025-04-10.csv", PRICE_HEADER
+                + "RIC-P1;lapte;lactate;Zuzu;1;l;10.00;RON\n"
+                + "RIC-P2;iaurt;lactate;Danone;0.4;kg;4.00;RON\n");
+        importFeed("reimportc_discounts_2025-04-10.csv", DISCOUNT_HEADER
+                + "RIC-P1;lapte;Zuzu;1;l;lactate;2025-04-10;2025-04-16;10\n");
+        Long discountId = jdbcTemplate.queryForObject(
+                "select d.id from discounts d join stores s on s.id = d.store_id where s.name = 'reimportc'", Long.class);
+
+        ImportProgress reimport = importFeed("reimportc_discounts_2025-04-10.csv", DISCOUNT_HEADER
+                + "RIC-P1;lapte;Zuzu;1;l;lactate;2025-04-10;2025-04-16;25\n"
+                + "RIC-P2;iaurt;Danone;0.4;kg;lactate;2025-04-10;2025-04-16;5\n");
+
+        assertEquals(2, reimport.getRowsWritten());
+        List<Map<String, Object>> discounts = jdbcTemplate.queryForList(
+                "select d.id, d.product_id, d.discount_basis_points from discounts d join stores s on s.id = d.store_id " +
+                "where s.name = 'reimportc' order by d.product_id");
+        assertEquals(2, discounts.size());
+        assertEquals(discountId, ((Number) discounts.get(0).get("id")).longValue());
+        assertEquals(2500, ((Number) discounts.get(0).get("discount_basis_points")).intValue());
+        assertEquals(500, ((Number) discounts.get(1).get("discount_basis_points")).intValue());
+
+        List<Map<String, Object>> current = currentPrices("reimportc");
+        assertEquals(2500, ((Number) current.get(0).get("discount_basis_points")).intValue());
+        assertEquals(750L, ((Number) current.get(0).get("discounted_price_minor")).longValue());
+        assertEquals(500, ((Number) current.get(1).get("discount_basis_points")).intValue());
+        assertEquals(380L, ((Number) current.get(1).get("discounted_price_minor")).longValue());
+    }
+
+    // Uploads run next to the job queue; the second upload of a new feed waits for the first and diffs against it
+    @Test
+    void concurrentUploadsOfANewFeedWriteItOnce() throws Exception {
+        byte[] feed = (PRICE_HEADER
+                + "RID-P1;lapte;lactate;Zuzu;1;l;9.80;RON\n"
+                + "RID-P2;iaurt;lactate;Danone;0.4;kg;4.20;RON\n").getBytes(StandardCharsets.UTF_8);
+        List<ImportProgress> uploads = List.of(new ImportProgress(), new ImportProgress());
+        CountDownLatch start = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (ImportProgress upload : uploads) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    csvService.processCsvStream("reimportd_2025-04-10.csv", new ByteArrayInputStream(feed), upload);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        }
+
+        assertEquals(2, uploads.get(0).getRowsWritten() + uploads.get(1).getRowsWritten());
+        assertEquals(2, prices("reimportd").size());
+        assertNoDuplicates("reimportd");
+    }
+
+    private List<Map<String, Object>> prices(String store) {
+        return jdbcTemplate.queryForList(
+                "select p.id, p.product_id, p.price_minor, p.currency_id, p.date from prices p " +
+                "join stores s on s.id = p.store_id where s.name = ? order by p.product_id", store);
+    }
+
+    private Map<String, Long> idsByProduct(String store) {
+        Map<String, Long> ids = new HashMap<>();
+        prices(store).forEach(row -> ids.put((String) row.get("product_id"), ((Number) row.get("id")).longValue()));
+        return ids;
+    }
+
+    private Map<String, Long> pricesByProduct(String store) {
+        Map<String, Long> byProduct = new HashMap<>();
+        prices(store).forEach(row -> byProduct.put((String) row.get("product_id"), ((Number) row.get("price_minor")).longValue()));
+        return byProduct;
+    }
+
+    private List<Map<String, Object>> currentPrices(String store) {
+        return jdbcTemplate.queryForList(
+                "select cp.* from current_prices cp join stores s on s.id = cp.store_id where s.name = ? " +
+                "order by cp.product_id", store);
+    }
+
+    private Map<String, Long> currentPriceByProduct(String store) {
+        Map<String, Long> byProduct = new HashMap<>();
+        currentPrices(store).forEach(row -> byProduct.put((String) row.get("product_id"), ((Number) row.get("price_minor")).longValue()));
+        return byProduct;
+    }
+
+    private void assertNoDuplicates(String store) {
+        Integer duplicates = jdbcTemplate.queryForObject(
+                "select count(*) from (select p.product_id, p.store_id, p.date from prices p join stores s on s.id = p.store_id " +
+                "where s.name = ? group by p.product_id, p.store_id, p.date having count(*) > 1) d", Integer.class, store);
+        assertEquals(0, duplicates);
+    }
+
+    private ImportProgress importFeed(String fileName, String content) throws IOException {
+        Path file = tempDir.resolve(fileName);
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        ImportProgress progress = new ImportProgress();
+        csvService.processCsvFile(file, progress);
+        return progress;
+    }
+}
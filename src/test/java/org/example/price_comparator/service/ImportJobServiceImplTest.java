@@ -0,0 +1,113 @@
+package org.example.price_comparator.service;
+
+import org.example.price_comparator.dto.ImportJobDto;
+import org.example.price_comparator.exceptions.CsvProcessingException;
+import org.example.price_comparator.exceptions.InvalidFeedFileNameException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class ImportJobServiceImplTest {
+
+    private static final String FEED = "product_id;product_name;product_category;brand;package_quantity;package_unit;price;currency\n"
+            + "P001;lapte zuzu;lactate;Zuzu;1;l;9.80;RON\n";
+
+    private final CsvService csvService = mock(CsvService.class);
+    private final CountDownLatch releaseImportAll = new CountDownLatch(1);
+    private ImportJobServiceImpl importJobService;
+
+    @BeforeEach
+    void setUp() {
+        importJobService = new ImportJobServiceImpl(csvService, mock(PriceEngine.class));
+        // Keeps the single job thread busy, which an upload must not wait for
+        doAnswer(invocation -> releaseImportAll.await(10, TimeUnit.SECONDS))
+                .when(csvService).processAllCsvFiles(any(ImportProgress.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseImportAll.countDown();
+        importJobService.shutdown();
+    }
+
+    @Test
+    void uploadIsImportedFromTheStreamWhileImportAllRuns() throws Exception {
+        AtomicReference<InputStream> imported = new AtomicReference<>();
+        doAnswer(invocation -> {
+            imported.set(invocation.getArgument(1));
+            invocation.<ImportProgress>getArgument(2).rowsWritten(1);
+            return null;
+        }).when(csvService).processCsvStream(eq("lidl_2025-05-08.csv"), any(InputStream.class), any(ImportProgress.class));
+
+        ImportJobDto importAll = importJobService.startImportAll();
+        InputStream body = stream(FEED);
+        ImportJobDto upload = importJobService.importStream("lidl_2025-05-08.csv", body);
+
+        assertEquals("COMPLETED", upload.getStatus());
+        assertEquals(1, upload.getRowsWritten());
+        // The request's own stream, not a copy of it
+        assertSame(body, imported.get());
+        assertEquals(upload.getStatus(), importJobService.getJob(upload.getJobId()).getStatus());
+        assertNull(importJobService.getJob(importAll.getJobId()).getFinishedAt());
+
+        releaseImportAll.countDown();
+        assertEquals("COMPLETED", awaitFinished(importAll.getJobId()).getStatus());
+    }
+
+    @Test
+    void failedUploadReturnsTheFailedJob() throws Exception {
+        doThrow(new CsvProcessingException("Error reading uploaded CSV file"))
+                .when(csvService).processCsvStream(any(), any(), any());
+
+        ImportJobDto upload = importJobService.importStream("lidl_2025-05-08.csv", stream(FEED));
+
+        assertEquals("FAILED", upload.getStatus());
+        assertEquals(List.of("Error reading uploaded CSV file"), upload.getErrors());
+    }
+
+    @Test
+    void invalidFileNamesAreRejectedBeforeReading() throws Exception {
+        assertThrows(InvalidFeedFileNameException.class,
+                () -> importJobService.importStream("../lidl_2025-05-08.csv", stream(FEED)));
+        assertThrows(InvalidFeedFileNameException.class,
+                () -> importJobService.importStream("notes.txt", stream(FEED)));
+        assertTrue(importJobService.getJobs().isEmpty());
+        verify(csvService, never()).processCsvStream(any(), any(), any());
+    }
+
+    private ImportJobDto awaitFinished(String jobId) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            ImportJobDto job = importJobService.getJob(jobId);
+            if (job.getFinishedAt() != null) {
+                return job;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Job " + jobId + " did not finish");
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,198 @@
+package org.example.price_comparator.service;
+
+import org.example.price_comparator.dto.PipelineStageDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The stages run with stub resolvers and writers: how failures reach the parser, how abort() stops every thread
+// and how a full queue throttles submit()
+class IngestionPipelineTest {
+
+    private final IngestionPipelineMetrics metrics = new IngestionPipelineMetrics();
+
+    @Test
+    void rowsOfEveryWriterAreCounted() {
+        List<List<Integer>> writtenChunks = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch twoWriting = new CountDownLatch(2);
+        AtomicInteger writes = new AtomicInteger();
+        IngestionPipeline<Integer> pipeline = new IngestionPipeline<>("test", 4, 3, chunk -> { }, chunk -> {
+            // The first two chunks are only written once two writers hold one each
+            if (writes.getAndIncrement() < 2) {
+                twoWriting.countDown();
+                await(twoWriting);
+            }
+            writtenChunks.add(chunk);
+            return chunk.size();
+        }, metrics);
+
+        List<List<Integer>> chunks = IntStream.range(0, 20).mapToObj(IngestionPipelineTest::chunk).toList();
+        chunks.forEach(pipeline::submit);
+
+        assertEquals(chunks.stream().mapToInt(List::size).sum(), pipeline.finish());
+        assertEquals(chunks.size(), writtenChunks.size());
+        assertTrue(writtenChunks.containsAll(chunks));
+        assertAllThreadsStopped();
+    }
+
+    @Test
+    void resolverFailureIsRethrownFromFinish() {
+        IllegalStateException failure = new IllegalStateException("product lookup failed");
+        AtomicInteger resolved = new AtomicInteger();
+        List<List<Integer>> writtenChunks = Collections.synchronizedList(new ArrayList<>());
+        IngestionPipeline<Integer> pipeline = new IngestionPipeline<>("test", 4, 2, chunk -> {
+            if (resolved.incrementAndGet() == 2) {
+                throw failure;
+            }
+        }, chunk -> {
+            writtenChunks.add(chunk);
+            return chunk.size();
+        }, metrics);
+
+        pipeline.submit(chunk(0));
+        pipeline.submit(chunk(1));
+
+        assertSame(failure, assertThrows(IllegalStateException.class, pipeline::finish));
+        // The first chunk may or may not be written before the failure is seen; the failed one never is
+        assertFalse(writtenChunks.contains(chunk(1)));
+        assertAllThreadsStopped();
+    }
+
+    @Test
+    void writerFailureIsRethrownFromFinish() {
+        IllegalStateException failure = new IllegalStateException("batch insert failed");
+        CountDownLatch submitted = new CountDownLatch(1);
+        IngestionPipeline<Integer> pipeline = new IngestionPipeline<>("test", 4, 1, chunk -> { }, chunk -> {
+            // Fails only once everything is submitted; an earlier failure is thrown by submit() instead
+            await(submitted);
+            throw failure;
+        }, metrics);
+
+        pipeline.submit(chunk(0));
+        pipeline.submit(chunk(1));
+        pipeline.submit(chunk(2));
+        submitted.countDown();
+
+        assertSame(failure, assertThrows(IllegalStateException.class, pipeline::finish));
+        assertAllThreadsStopped();
+    }
+
+    @Test
+    void failureStopsTheParserAtItsNextSubmit() {
+        IllegalStateException failure = new IllegalStateException("batch insert failed");
+        IngestionPipeline<Integer> pipeline = new IngestionPipeline<>("test", 4, 1, chunk -> { }, chunk -> {
+            throw failure;
+        }, metrics);
+
+        pipeline.submit(chunk(0));
+        IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> {
+            for (int i = 1; i < 100; i++) {
+                sleep(10);
+                pipeline.submit(chunk(i));
+            }
+        });
+
+        assertSame(failure, thrown);
+        pipeline.abort(thrown);
+        assertAllThreadsStopped();
+    }
+
+    // The resolver is held on the first chunk while two more wait in its queue when the parser gives up
+    @Test
+    void abortDiscardsQueuedChunksAndStopsEveryThread() {
+        CountDownLatch resolving = new CountDownLatch(1);
+        CountDownLatch releaseResolver = new CountDownLatch(1);
+        AtomicInteger resolved = new AtomicInteger();
+        AtomicInteger written = new AtomicInteger();
+        IngestionPipeline<Integer> pipeline = new IngestionPipeline<>("test", 4, 2, chunk -> {
+            resolved.incrementAndGet();
+            resolving.countDown();
+            await(releaseResolver);
+        }, chunk -> {
+            written.incrementAndGet();
+            return chunk.size();
+        }, metrics);
+
+        pipeline.submit(chunk(0));
+        await(resolving);
+        pipeline.submit(chunk(1));
+        pipeline.submit(chunk(2));
+        // abort() waits for the stage threads, so the resolver is let go from another thread
+        Thread.ofVirtual().start(() -> {
+            sleep(100);
+            releaseResolver.countDown();
+        });
+        pipeline.abort(new IllegalStateException("parse error"));
+
+        assertEquals(1, resolved.get());
+        assertEquals(0, written.get());
+        assertAllThreadsStopped();
+    }
+
+    @Test
+    void submitBlocksWhileTheQueueIsFull() throws Exception {
+        CountDownLatch resolving = new CountDownLatch(1);
+        CountDownLatch releaseResolver = new CountDownLatch(1);
+        IngestionPipeline<Integer> pipeline = new IngestionPipeline<>("test", 1, 1, chunk -> {
+            resolving.countDown();
+            await(releaseResolver);
+        }, List::size, metrics);
+
+        // The resolver holds the first chunk and the second fills the queue
+        pipeline.submit(chunk(0));
+        await(resolving);
+        pipeline.submit(chunk(1));
+        CompletableFuture<Void> third = CompletableFuture.runAsync(() -> pipeline.submit(chunk(2)),
+                runnable -> Thread.ofVirtual().start(runnable));
+
+        sleep(200);
+        assertFalse(third.isDone());
+
+        releaseResolver.countDown();
+        third.get(5, TimeUnit.SECONDS);
+        assertEquals(chunk(0).size() + chunk(1).size() + chunk(2).size(), pipeline.finish());
+        assertAllThreadsStopped();
+    }
+
+    // finish() and abort() return only once the stage threads have exited and their queues are empty
+    private void assertAllThreadsStopped() {
+        for (PipelineStageDto stage : metrics.getStageStats()) {
+            assertEquals(0, stage.getActiveThreads(), stage.getStage());
+            assertEquals(0, stage.getQueuedChunks(), stage.getStage());
+        }
+    }
+
+    // Chunks of one to five rows
+    private static List<Integer> chunk(int index) {
+        return IntStream.rangeClosed(0, index % 5).map(row -> index * 10 + row).boxed().toList();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
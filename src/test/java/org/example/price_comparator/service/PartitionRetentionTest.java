@@ -0,0 +1,80 @@
+package org.example.price_comparator.service;
+
+import org.example.price_comparator.PostgresIntegrationTest;
+import org.example.price_comparator.repository.PriceRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+// Expired partitions leave prices as standalone tables. A late feed for an expired month gets a new partition,
+// which the next maintenance detaches again next to the first one.
+class PartitionRetentionTest extends PostgresIntegrationTest {
+
+    private static final String HEADER = "product_id;product_name;product_category;brand;package_quantity;package_unit;price;currency\n";
+
+    @Autowired
+    private CsvService csvService;
+
+    @Autowired
+    private PricePartitionService pricePartitionService;
+
+    @Autowired
+    private PriceRepository priceRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void keepAllPartitions() {
+        setRetentionMonths(0);
+    }
+
+    @Test
+    void sameMonthIsDetachedTwice() throws IOException {
+        // Keeps every month from April 1991 on
+        setRetentionMonths((int) ChronoUnit.MONTHS.between(YearMonth.of(1991, 4), YearMonth.now()));
+
+        importFeed("pdetach_1991-03-10.csv", "PDT-P1;ulei;alimente;Bunica;1;l;8.90;RON\n");
+        pricePartitionService.maintainPartitions();
+        importFeed("pdetach_1991-03-20.csv", "PDT-P2;zahar;alimente;Margaritar;1;kg;4.50;RON\n");
+        pricePartitionService.maintainPartitions();
+
+        assertFalse(priceRepository.findPartitionNames().contains("prices_p1991_03"));
+        List<String> detached = jdbcTemplate.queryForList(
+                "select relname from pg_class where relname like 'prices_p1991_03_detached_%' and relkind = 'r' " +
+                "order by relname", String.class);
+        assertEquals(2, detached.size());
+        // Each archived table holds the rows of the feed imported into it
+        assertEquals(List.of("PDT-P1"), jdbcTemplate.queryForList("select product_id from " + detached.get(0), String.class));
+        assertEquals(List.of("PDT-P2"), jdbcTemplate.queryForList("select product_id from " + detached.get(1), String.class));
+    }
+
+    private void setRetentionMonths(int months) {
+        Object target = AopTestUtils.getTargetObject(pricePartitionService);
+        ReflectionTestUtils.setField(target, "retentionMonths", months);
+    }
+
+    private void importFeed(String fileName, String rows) throws IOException {
+        Path file = tempDir.resolve(fileName);
+        Files.writeString(file, HEADER + rows, StandardCharsets.UTF_8);
+        csvService.processCsvFile(file, new ImportProgress());
+    }
+}
@@ -0,0 +1,138 @@
+package org.example.price_comparator.service;
+
+import org.example.price_comparator.repository.PriceEngineRepository;
+import org.example.price_comparator.repository.PriceEngineRepository.DataVersion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+import static org.example.price_comparator.service.PriceSnapshotFileTest.overwriteInt;
+import static org.example.price_comparator.service.PriceSnapshotFileTest.sampleSnapshot;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Startup of the engine: the snapshot file is mapped only when it is intact, recent and of the current data
+// version; in every other case the engine reads the tables
+class PriceEngineImplTest {
+
+    private static final LocalDate DAY = LocalDate.ofEpochDay(20001);
+
+    @TempDir
+    Path tempDir;
+
+    private final PriceEngineRepository priceEngineRepository = mock(PriceEngineRepository.class);
+    private Path snapshotFile;
+
+    @BeforeEach
+    void setUp() {
+        snapshotFile = tempDir.resolve("price-snapshot.bin");
+        // The database holds one price: P9 in store 4
+        when(priceEngineRepository.loadSnapshot(any())).thenAnswer(invocation -> {
+            PriceSnapshot.Builder builder = invocation.getArgument(0);
+            builder.product("P9", "ulei", 1, 1, 1, 1);
+            builder.store(4, "mega");
+            builder.price("P9", 4, 20000, 1500, 1);
+            return new DataVersion(8);
+        });
+        when(priceEngineRepository.currentDataVersion()).thenReturn(new DataVersion(7));
+    }
+
+    @Test
+    void withoutFileTheTablesAreReadAndTheFileWritten() throws IOException {
+        PriceEngineImpl priceEngine = priceEngine(24);
+
+        priceEngine.loadInitialSnapshot();
+
+        verify(priceEngineRepository, times(1)).loadSnapshot(any());
+        assertEquals(1500, priceEngine.bestEffectivePriceMinor("P9", DAY));
+        assertEquals(new DataVersion(8), PriceSnapshotFile.readHeader(snapshotFile).dataVersion());
+    }
+
+    @Test
+    void fileOfTheCurrentDataVersionIsMapped() throws IOException {
+        PriceSnapshotFile.write(snapshotFile, sampleSnapshot(), new DataVersion(7));
+        PriceEngineImpl priceEngine = priceEngine(24);
+
+        priceEngine.loadInitialSnapshot();
+
+        verify(priceEngineRepository, never()).loadSnapshot(any());
+        assertTrue(priceEngine.isActive());
+        assertEquals(1000, priceEngine.effectivePriceMinor("P1", 7, DAY));
+        assertEquals(PriceEngine.NO_PRICE, priceEngine.bestEffectivePriceMinor("P9", DAY));
+    }
+
+    @Test
+    void fileOfAnotherDataVersionFallsBackToTheTables() throws IOException {
+        PriceSnapshotFile.write(snapshotFile, sampleSnapshot(), new DataVersion(6));
+
+        assertLoadedFromTheTables(priceEngine(24));
+    }
+
+    @Test
+    void fileOlderThanTheMaximumAgeFallsBackToTheTables() throws IOException {
+        PriceSnapshotFile.write(snapshotFile, sampleSnapshot(), new DataVersion(7));
+
+        // Any file is at least zero hours old
+        assertLoadedFromTheTables(priceEngine(0));
+    }
+
+    @Test
+    void truncatedFileFallsBackToTheTables() throws IOException {
+        PriceSnapshotFile.write(snapshotFile, sampleSnapshot(), new DataVersion(7));
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - Integer.BYTES);
+        }
+
+        assertLoadedFromTheTables(priceEngine(24));
+    }
+
+    @Test
+    void fileWithWrongMagicFallsBackToTheTables() throws IOException {
+        PriceSnapshotFile.write(snapshotFile, sampleSnapshot(), new DataVersion(7));
+        overwriteInt(snapshotFile, 0, 0);
+
+        assertLoadedFromTheTables(priceEngine(24));
+    }
+
+    @Test
+    void fileOfAnotherFormatVersionFallsBackToTheTables() throws IOException {
+        PriceSnapshotFile.write(snapshotFile, sampleSnapshot(), new DataVersion(7));
+        overwriteInt(snapshotFile, Integer.BYTES, 99);
+
+        assertLoadedFromTheTables(priceEngine(24));
+    }
+
+    // The rejected file is replaced by one of the tables' version
+    private void assertLoadedFromTheTables(PriceEngineImpl priceEngine) throws IOException {
+        priceEngine.loadInitialSnapshot();
+
+        verify(priceEngineRepository, times(1)).loadSnapshot(any());
+        assertEquals(1500, priceEngine.bestEffectivePriceMinor("P9", DAY));
+        assertEquals(PriceEngine.NO_PRICE, priceEngine.bestEffectivePriceMinor("P1", DAY));
+        assertTrue(Files.exists(snapshotFile));
+        assertEquals(new DataVersion(8), PriceSnapshotFile.readHeader(snapshotFile).dataVersion());
+    }
+
+    private PriceEngineImpl priceEngine(long maxAgeHours) {
+        PriceEngineImpl priceEngine = new PriceEngineImpl(priceEngineRepository);
+        ReflectionTestUtils.setField(priceEngine, "enabled", true);
+        ReflectionTestUtils.setField(priceEngine, "snapshotFileEnabled", true);
+        ReflectionTestUtils.setField(priceEngine, "snapshotPath", snapshotFile);
+        ReflectionTestUtils.setField(priceEngine, "snapshotMaxAgeHours", maxAgeHours);
+        return priceEngine;
+    }
+}
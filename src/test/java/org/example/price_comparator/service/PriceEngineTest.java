@@ -0,0 +1,272 @@
+package org.example.price_comparator.service;
+
+import org.example.price_comparator.PostgresIntegrationTest;
+import org.example.price_comparator.dto.BestDiscountRow;
+import org.example.price_comparator.dto.PriceHistoryRow;
+import org.example.price_comparator.model.Product;
+import org.example.price_comparator.model.Store;
+import org.example.price_comparator.repository.DiscountRepository;
+import org.example.price_comparator.repository.PriceBulkRepository.LatestPrice;
+import org.example.price_comparator.repository.PriceEngineRepository;
+import org.example.price_comparator.repository.PriceRepository;
+import org.example.price_comparator.repository.ProductRepository;
+import org.example.price_comparator.repository.StoreRepository;
+import org.example.price_comparator.util.Money;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Loads a snapshot next to the same rows in Postgres and checks every engine lookup against the query the
+// services run when the engine is off. Dates probe the days before the first price, the gaps between discounts
+// and a day with two prices in the same store.
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PriceEngineTest extends PostgresIntegrationTest {
+
+    private static final String STORE_A = "enginea";
+    private static final String STORE_B = "engineb";
+    // Sold in both stores, with discounts and a day with two prices in store A
+    private static final String PRODUCT_X = "ENG-X";
+    // Sold in store B only, never discounted
+    private static final String PRODUCT_Y = "ENG-Y";
+    // No price anywhere
+    private static final String PRODUCT_Z = "ENG-Z";
+
+    private static final List<LocalDate> DAYS = Stream.of(1, 5, 6, 7, 8, 9, 10, 12, 13, 14, 15, 18, 19, 20, 25, 31)
+            .map(day -> LocalDate.of(2024, 3, day))
+            .toList();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DictionaryService dictionaryService;
+
+    @Autowired
+    private PricePartitionService pricePartitionService;
+
+    @Autowired
+    private PriceEngineRepository priceEngineRepository;
+
+    @Autowired
+    private PriceRepository priceRepository;
+
+    @Autowired
+    private DiscountRepository discountRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StoreRepository storeRepository;
+
+    private PriceEngineImpl priceEngine;
+    private Store storeA;
+    private Store storeB;
+
+    @BeforeAll
+    void seed() {
+        int currency = dictionaryService.currencyId("RON");
+        int category = dictionaryService.categoryId("lactate");
+        int brand = dictionaryService.brandId("Zuzu");
+        int unit = dictionaryService.unitId("l");
+        for (String productId : List.of(PRODUCT_X, PRODUCT_Y, PRODUCT_Z)) {
+            jdbcTemplate.update("insert into products (id, product_name, category_id, brand_id, package_quantity, unit_id) " +
+                    "values (?, ?, ?, ?, 1, ?)", productId, "product " + productId, category, brand, unit);
+        }
+        storeA = storeRepository.findOrCreateByNames(List.of(STORE_A)).get(0);
+        storeB = storeRepository.findOrCreateByNames(List.of(STORE_B)).get(0);
+        pricePartitionService.ensurePartitionFor(LocalDate.of(2024, 3, 1));
+
+        price(PRODUCT_X, storeA, 5, 1000, currency);
+        price(PRODUCT_X, storeA, 10, 900, currency);
+        // Same day, inserted later: this one is the price of the day
+        price(PRODUCT_X, storeA, 10, 950, currency);
+        price(PRODUCT_X, storeA, 20, 1100, currency);
+        price(PRODUCT_X, storeB, 7, 1200, currency);
+        price(PRODUCT_Y, storeB, 12, 500, currency);
+
+        // Store A: two discounts with a gap of two days between them
+        discount(PRODUCT_X, storeA, 8, 12, 1000);
+        discount(PRODUCT_X, storeA, 15, 18, 2500);
+        // Store B: starts before the first price of the store
+        discount(PRODUCT_X, storeB, 1, 31, 500);
+
+        priceEngine = new PriceEngineImpl(priceEngineRepository);
+        ReflectionTestUtils.setField(priceEngine, "enabled", true);
+        ReflectionTestUtils.setField(priceEngine, "snapshotFileEnabled", false);
+        priceEngine.refresh();
+    }
+
+    @Test
+    void engineIsLoaded() {
+        assertTrue(priceEngine.isActive());
+    }
+
+    @Test
+    void effectivePriceMatchesLatestPriceQuery() {
+        for (LocalDate day : DAYS) {
+            for (String productId : List.of(PRODUCT_X, PRODUCT_Y, PRODUCT_Z)) {
+                for (Store store : List.of(storeA, storeB)) {
+                    long expected = latestPrices(productId, day).stream()
+                            .filter(row -> row.storeId() == store.getId())
+                            .mapToLong(PriceEngineTest::effectivePrice)
+                            .findFirst()
+                            .orElse(PriceEngine.NO_PRICE);
+                    assertEquals(expected, priceEngine.effectivePriceMinor(productId, store.getId(), day),
+                            productId + " in " + store.getName() + " on " + day);
+                }
+            }
+        }
+    }
+
+    @Test
+    void bestEffectivePriceMatchesLatestPriceQuery() {
+        for (LocalDate day : DAYS) {
+            for (String productId : List.of(PRODUCT_X, PRODUCT_Y, PRODUCT_Z)) {
+                long expected = latestPrices(productId, day).stream()
+                        .mapToLong(PriceEngineTest::effectivePrice)
+                        .min()
+                        .orElse(PriceEngine.NO_PRICE);
+                assertEquals(expected, priceEngine.bestEffectivePriceMinor(productId, day), productId + " on " + day);
+            }
+        }
+    }
+
+    @Test
+    void storePricesMatchLatestPriceQuery() {
+        for (LocalDate day : DAYS) {
+            for (String productId : List.of(PRODUCT_X, PRODUCT_Y, PRODUCT_Z)) {
+                List<StorePrice> expected = latestPrices(productId, day).stream()
+                        .map(row -> new StorePrice(row.storeId(), row.storeName(), row.date(), row.priceMinor(),
+                                row.currencyId(), row.discountBasisPoints(), effectivePrice(row)))
+                        .sorted(Comparator.comparingLong(StorePrice::storeId))
+                        .toList();
+                List<StorePrice> actual = new ArrayList<>();
+                int stores = priceEngine.forEachStorePrice(productId, day,
+                        (storeId, storeName, priceDay, priceMinor, currencyId, discountBasisPoints, effectivePriceMinor) ->
+                                actual.add(new StorePrice(storeId, storeName, LocalDate.ofEpochDay(priceDay), priceMinor,
+                                        currencyId, discountBasisPoints != PriceEngine.NO_DISCOUNT ? discountBasisPoints : null,
+                                        effectivePriceMinor)));
+                actual.sort(Comparator.comparingLong(StorePrice::storeId));
+                assertEquals(expected, actual, productId + " on " + day);
+                assertEquals(expected.size(), stores);
+            }
+        }
+    }
+
+    // A few values worked out by hand, so that the engine and the queries cannot agree on a wrong answer
+    @Test
+    void knownPrices() {
+        LocalDate day = LocalDate.of(2024, 3, 10);
+        assertEquals(855, priceEngine.effectivePriceMinor(PRODUCT_X, storeA.getId(), day));
+        assertEquals(950, priceEngine.effectivePriceMinor(PRODUCT_X, storeA.getId(), day.plusDays(3)));
+        assertEquals(713, priceEngine.effectivePriceMinor(PRODUCT_X, storeA.getId(), day.plusDays(5)));
+        assertEquals(PriceEngine.NO_PRICE, priceEngine.effectivePriceMinor(PRODUCT_X, storeA.getId(), day.minusDays(6)));
+        assertEquals(PriceEngine.NO_PRICE, priceEngine.effectivePriceMinor(PRODUCT_X, storeB.getId(), day.minusDays(4)));
+        assertEquals(1000, priceEngine.bestEffectivePriceMinor(PRODUCT_X, day.minusDays(3)));
+        assertEquals(PriceEngine.NO_PRICE, priceEngine.bestEffectivePriceMinor(PRODUCT_Z, day));
+        assertEquals(PriceEngine.NO_PRICE, priceEngine.bestEffectivePriceMinor("ENG-UNKNOWN", day));
+    }
+
+    @Test
+    void historyMatchesHistoryQuery() {
+        Product x = productRepository.findById(PRODUCT_X).orElseThrow();
+        Product z = productRepository.findById(PRODUCT_Z).orElseThrow();
+        for (LocalDate start : DAYS) {
+            for (LocalDate end : DAYS) {
+                if (end.isBefore(start)) {
+                    continue;
+                }
+                assertEquals(sorted(priceRepository.findHistoryByProduct(x, start, end)),
+                        sorted(priceEngine.findHistory(PRODUCT_X, null, start, end)), start + " to " + end);
+                for (Store store : List.of(storeA, storeB)) {
+                    assertEquals(sorted(priceRepository.findHistoryByProductAndStore(x, store, start, end)),
+                            sorted(priceEngine.findHistory(PRODUCT_X, store.getId(), start, end)),
+                            store.getName() + " " + start + " to " + end);
+                }
+            }
+        }
+        LocalDate first = DAYS.get(0);
+        LocalDate last = DAYS.get(DAYS.size() - 1);
+        assertEquals(List.of(), priceEngine.findHistory(PRODUCT_Z, null, first, last));
+        assertEquals(priceRepository.findHistoryByProduct(z, first, last), priceEngine.findHistory(PRODUCT_Z, null, first, last));
+        assertEquals(4, priceEngine.findHistory(PRODUCT_X, storeA.getId(), first, last).size());
+    }
+
+    @Test
+    void bestDiscountsMatchDiscountQueries() {
+        for (LocalDate day : DAYS) {
+            assertEquals(ours(discountRepository.findBestActiveOn(day, day, Limit.of(10_000))),
+                    ours(priceEngine.findBestActiveOn(day, day, 10_000)), "active on " + day);
+            for (LocalDate priceDay : DAYS) {
+                assertEquals(ours(discountRepository.findBestStartingFrom(day, priceDay)),
+                        ours(priceEngine.findBestStartingFrom(day, priceDay)), "starting from " + day + " priced " + priceDay);
+                assertEquals(ours(discountRepository.findBestStartingBetween(day, day.plusDays(7), priceDay)),
+                        ours(priceEngine.findBestStartingBetween(day, day.plusDays(7), priceDay)),
+                        "starting a week from " + day + " priced " + priceDay);
+            }
+        }
+        // Priced with the later of the two prices of the 10th
+        List<BestDiscountRow> active = ours(priceEngine.findBestActiveOn(LocalDate.of(2024, 3, 10), LocalDate.of(2024, 3, 10), 10_000));
+        assertFalse(active.isEmpty());
+        assertEquals(950, active.stream().filter(row -> row.storeName().equals(STORE_A)).findFirst().orElseThrow().priceMinor());
+    }
+
+    // The price of a product in a store on a date, as forEachStorePrice reports it
+    private record StorePrice(long storeId, String storeName, LocalDate date, long priceMinor, int currencyId,
+                              Integer discountBasisPoints, long effectivePriceMinor) {
+    }
+
+    private List<LatestPrice> latestPrices(String productId, LocalDate day) {
+        return priceRepository.findLatestPrices(List.of(productId), day).stream()
+                .filter(row -> Set.of(storeA.getId(), storeB.getId()).contains(row.storeId()))
+                .toList();
+    }
+
+    private static long effectivePrice(LatestPrice row) {
+        return row.discountBasisPoints() != null ? Money.applyDiscount(row.priceMinor(), row.discountBasisPoints()) : row.priceMinor();
+    }
+
+    // The queries only order by date, so rows of the same date are compared in a fixed order
+    private static List<PriceHistoryRow> sorted(List<PriceHistoryRow> rows) {
+        return rows.stream()
+                .sorted(Comparator.comparing(PriceHistoryRow::date).thenComparing(PriceHistoryRow::storeId)
+                        .thenComparingLong(PriceHistoryRow::priceMinor))
+                .toList();
+    }
+
+    // Other test classes share the database, so only the rows of this test's stores are compared
+    private static List<BestDiscountRow> ours(List<BestDiscountRow> rows) {
+        return rows.stream()
+                .filter(row -> row.storeName().equals(STORE_A) || row.storeName().equals(STORE_B))
+                .sorted(Comparator.comparing(BestDiscountRow::productId).thenComparing(BestDiscountRow::storeName)
+                        .thenComparing(BestDiscountRow::startDate))
+                .toList();
+    }
+
+    private void price(String productId, Store store, int day, long priceMinor, int currencyId) {
+        jdbcTemplate.update("insert into prices (product_id, store_id, price_minor, currency_id, date) values (?, ?, ?, ?, ?)",
+                productId, store.getId(), priceMinor, currencyId, LocalDate.of(2024, 3, day));
+    }
+
+    private void discount(String productId, Store store, int startDay, int endDay, int basisPoints) {
+        jdbcTemplate.update("insert into discounts (product_id, store_id, discount_basis_points, start_date, end_date) " +
+                "values (?, ?, ?, ?, ?)", productId, store.getId(), basisPoints,
+                LocalDate.of(2024, 3, startDay), LocalDate.of(2024, 3, endDay));
+    }
+}
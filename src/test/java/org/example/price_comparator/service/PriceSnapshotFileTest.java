@@ -0,0 +1,164 @@
+package org.example.price_comparator.service;
+
+import org.example.price_comparator.repository.PriceEngineRepository.DataVersion;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PriceSnapshotFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void roundTripKeepsEveryColumn() throws IOException {
+        PriceSnapshot snapshot = sampleSnapshot();
+        Path file = tempDir.resolve("snapshot.bin");
+
+        PriceSnapshotFile.write(file, snapshot, new DataVersion(42));
+
+        assertSameSnapshot(snapshot, PriceSnapshotFile.read(file));
+        PriceSnapshotFile.Header header = PriceSnapshotFile.readHeader(file);
+        assertEquals(new DataVersion(42), header.dataVersion());
+        assertEquals(snapshot.productCount(), header.products());
+        assertEquals(snapshot.storeIds.length, header.stores());
+        assertEquals(snapshot.seriesCount, header.series());
+        assertEquals(snapshot.priceCount(), header.prices());
+        assertEquals(snapshot.discountCount(), header.discounts());
+        assertEquals(Files.size(file), header.fileBytes());
+        assertTrue(Duration.between(header.writtenAt(), Instant.now()).toMinutes() < 1);
+        assertFalse(Files.exists(tempDir.resolve("snapshot.bin.tmp")));
+    }
+
+    // Columns larger than the write buffer are written a slice at a time
+    @Test
+    void roundTripOfColumnsLargerThanTheWriteBuffer() throws IOException {
+        PriceSnapshot.Builder builder = new PriceSnapshot.Builder();
+        for (int product = 0; product < 1000; product++) {
+            builder.product("P" + product, "product " + product, product % 7, product % 11, 0.5, 1);
+        }
+        builder.store(3, "profi");
+        for (int product = 0; product < 1000; product++) {
+            for (int day = 0; day < 200; day++) {
+                builder.price("P" + product, 3, 20000 + day, 100L * product + day, 1);
+            }
+            builder.discount("P" + product, 3, 20000, 20006, product);
+        }
+        PriceSnapshot snapshot = builder.build();
+        Path file = tempDir.resolve("large.bin");
+
+        PriceSnapshotFile.write(file, snapshot, new DataVersion(1));
+
+        assertSameSnapshot(snapshot, PriceSnapshotFile.read(file));
+    }
+
+    @Test
+    void truncatedFileIsRejected() throws IOException {
+        Path file = tempDir.resolve("snapshot.bin");
+        PriceSnapshotFile.write(file, sampleSnapshot(), new DataVersion(1));
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 1);
+        }
+        assertThrows(IOException.class, () -> PriceSnapshotFile.readHeader(file));
+        assertThrows(IOException.class, () -> PriceSnapshotFile.read(file));
+
+        // Shorter than the header
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(10);
+        }
+        assertThrows(IOException.class, () -> PriceSnapshotFile.readHeader(file));
+    }
+
+    @Test
+    void fileWithWrongMagicIsRejected() throws IOException {
+        Path file = tempDir.resolve("snapshot.bin");
+        PriceSnapshotFile.write(file, sampleSnapshot(), new DataVersion(1));
+
+        overwriteInt(file, 0, 0x12345678);
+
+        IOException e = assertThrows(IOException.class, () -> PriceSnapshotFile.readHeader(file));
+        assertEquals("Not a price snapshot file", e.getMessage());
+    }
+
+    @Test
+    void fileOfAnotherFormatVersionIsRejected() throws IOException {
+        Path file = tempDir.resolve("snapshot.bin");
+        PriceSnapshotFile.write(file, sampleSnapshot(), new DataVersion(1));
+
+        overwriteInt(file, Integer.BYTES, 1);
+
+        IOException e = assertThrows(IOException.class, () -> PriceSnapshotFile.readHeader(file));
+        assertEquals("Unsupported price snapshot format version: 1", e.getMessage());
+    }
+
+    // Two products in two stores, a day with two prices, discounts on both sides of a gap and non-ASCII names
+    static PriceSnapshot sampleSnapshot() {
+        PriceSnapshot.Builder builder = new PriceSnapshot.Builder();
+        builder.product("P1", "lapte zuzu", 1, 2, 1.0, 3);
+        builder.product("P2", "cafea măcinată", 4, 5, 0.5, 6);
+        builder.product("P3", "fără preț", 4, 5, 2.0, 6);
+        builder.store(1, "lidl");
+        builder.store(7, "profi");
+        builder.price("P1", 1, 20000, 980, 1);
+        builder.price("P1", 1, 20003, 990, 1);
+        builder.price("P1", 1, 20003, 995, 1);
+        builder.price("P1", 7, 20001, 1000, 2);
+        builder.price("P2", 7, 20002, 12345, 1);
+        builder.discount("P1", 1, 20000, 20002, 1250);
+        builder.discount("P1", 1, 20005, 20009, 2000);
+        builder.discount("P2", 7, 20001, 20004, 500);
+        return builder.build();
+    }
+
+    static void assertSameSnapshot(PriceSnapshot expected, PriceSnapshot actual) {
+        assertEquals(expected.productIndex, actual.productIndex);
+        assertArrayEquals(expected.productIds, actual.productIds);
+        assertArrayEquals(expected.productNames, actual.productNames);
+        assertArrayEquals(expected.categoryIds, actual.categoryIds);
+        assertArrayEquals(expected.brandIds, actual.brandIds);
+        assertArrayEquals(expected.unitIds, actual.unitIds);
+        assertArrayEquals(expected.packageQuantities, actual.packageQuantities);
+        assertArrayEquals(expected.productFirstSeries, actual.productFirstSeries);
+        assertArrayEquals(expected.productSeriesCount, actual.productSeriesCount);
+        assertArrayEquals(expected.storeIds, actual.storeIds);
+        assertArrayEquals(expected.storeNames, actual.storeNames);
+        assertEquals(expected.seriesCount, actual.seriesCount);
+        assertArrayEquals(expected.seriesProduct, actual.seriesProduct);
+        assertArrayEquals(expected.seriesStore, actual.seriesStore);
+        assertArrayEquals(expected.seriesFirstPrice, actual.seriesFirstPrice);
+        assertArrayEquals(expected.seriesPriceCount, actual.seriesPriceCount);
+        assertArrayEquals(expected.seriesFirstDiscount, actual.seriesFirstDiscount);
+        assertArrayEquals(expected.seriesDiscountCount, actual.seriesDiscountCount);
+        assertEquals(expected.priceCount, actual.priceCount);
+        assertArrayEquals(expected.priceDays, actual.priceDays);
+        assertArrayEquals(expected.priceMinor, actual.priceMinor);
+        assertArrayEquals(expected.priceCurrencyIds, actual.priceCurrencyIds);
+        assertEquals(expected.discountCount, actual.discountCount);
+        assertArrayEquals(expected.discountStartDays, actual.discountStartDays);
+        assertArrayEquals(expected.discountEndDays, actual.discountEndDays);
+        assertArrayEquals(expected.discountBasisPoints, actual.discountBasisPoints);
+    }
+
+    static void overwriteInt(Path file, long position, int value) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).putInt(value).flip();
+            channel.write(buffer, position);
+        }
+    }
+}
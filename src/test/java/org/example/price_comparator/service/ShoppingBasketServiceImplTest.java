@@ -0,0 +1,201 @@
+package org.example.price_comparator.service;
+
+import org.example.price_comparator.dto.basket.BasketItemDto;
+import org.example.price_comparator.dto.basket.OptimizedItemDto;
+import org.example.price_comparator.dto.basket.OptimizedShoppingPlanDto;
+import org.example.price_comparator.dto.basket.ShoppingBasketDto;
+import org.example.price_comparator.dto.basket.StoreShoppingListDto;
+import org.example.price_comparator.exceptions.BasketOptimizationException;
+import org.example.price_comparator.exceptions.BasketOptimizationTimeoutException;
+import org.example.price_comparator.exceptions.GlobalExceptionHandler;
+import org.example.price_comparator.model.CurrentPrice;
+import org.example.price_comparator.model.CurrentPriceId;
+import org.example.price_comparator.model.Product;
+import org.example.price_comparator.model.Store;
+import org.example.price_comparator.repository.PriceRepository;
+import org.example.price_comparator.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// How the store-limited plan is mapped onto the response, with prices served from current_prices
+class ShoppingBasketServiceImplTest {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 5, 8);
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final CurrentPriceService currentPriceService = mock(CurrentPriceService.class);
+    private final DictionaryService dictionaryService = mock(DictionaryService.class);
+    private final PriceEngine priceEngine = mock(PriceEngine.class);
+    private final Map<String, List<CurrentPrice>> currentPrices = new HashMap<>();
+    private final List<Product> products = new ArrayList<>();
+    private ShoppingBasketServiceImpl shoppingBasketService;
+
+    private final Store lidl = new Store(1L, "lidl");
+    private final Store profi = new Store(2L, "profi");
+    private final Store mega = new Store(3L, "mega");
+
+    @BeforeEach
+    void setUp() {
+        when(productRepository.findAllById(any())).thenReturn(products);
+        when(currentPriceService.findCurrentPrices(anyCollection(), eq(DATE))).thenReturn(currentPrices);
+        when(dictionaryService.brand(any(Integer.class))).thenReturn("brand");
+        when(dictionaryService.unit(any(Integer.class))).thenReturn("buc");
+        when(dictionaryService.currency(any(Integer.class))).thenReturn("RON");
+        shoppingBasketService = new ShoppingBasketServiceImpl(productRepository, mock(PriceRepository.class),
+                currentPriceService, dictionaryService, priceEngine);
+        ReflectionTestUtils.setField(shoppingBasketService, "solverTimeLimitMs", 1_000L);
+    }
+
+    @Test
+    void everyItemGoesToItsStoreInThePlan() {
+        // Cheapest per item: P1 in lidl, P2 in profi, P3 in mega. Within two stores lidl and profi win.
+        price("P1", lidl, 1_000);
+        price("P1", profi, 1_100);
+        price("P1", mega, 1_300);
+        price("P2", lidl, 800);
+        price("P2", profi, 500);
+        price("P3", lidl, 260);
+        price("P3", profi, 250);
+        price("P3", mega, 240);
+
+        OptimizedShoppingPlanDto plan = shoppingBasketService.optimizeBasket(
+                basket(2, 1.5, item("P1", 2), item("P2", 1), item("P3", 3)), DATE);
+
+        assertEquals(Map.of("P1", "lidl", "P2", "profi", "P3", "profi"), storeOfEachItem(plan));
+        assertEquals(3.0, plan.getTotalVisitCost());
+        assertTrue(plan.getOptimal());
+        assertEquals(2, plan.getTotalStores());
+        // 2 x 10.00 + 5.00 + 3 x 2.50; the visits are only in totalVisitCost
+        assertEquals(32.5, plan.getTotalCost());
+    }
+
+    @Test
+    void visitCostAloneMergesStores() {
+        // Two stores save 1.00 on the items, less than the second visit
+        price("P1", lidl, 1_000);
+        price("P1", profi, 1_150);
+        price("P2", lidl, 600);
+        price("P2", profi, 500);
+
+        OptimizedShoppingPlanDto plan = shoppingBasketService.optimizeBasket(
+                basket(null, 2.0, item("P1", 1), item("P2", 1)), DATE);
+
+        assertEquals(Map.of("P1", "lidl", "P2", "lidl"), storeOfEachItem(plan));
+        assertEquals(2.0, plan.getTotalVisitCost());
+        assertTrue(plan.getOptimal());
+    }
+
+    @Test
+    void withoutLimitsEachItemGoesToItsCheapestStore() {
+        price("P1", lidl, 1_000);
+        price("P1", profi, 1_100);
+        price("P2", lidl, 600);
+        price("P2", profi, 500);
+
+        OptimizedShoppingPlanDto plan = shoppingBasketService.optimizeBasket(
+                basket(null, null, item("P1", 1), item("P2", 1)), DATE);
+
+        assertEquals(Map.of("P1", "lidl", "P2", "profi"), storeOfEachItem(plan));
+        assertNull(plan.getTotalVisitCost());
+        assertTrue(plan.getOptimal());
+    }
+
+    @Test
+    void basketNoStoreCombinationCarriesIsABadRequest() {
+        price("P1", lidl, 1_000);
+        price("P2", profi, 500);
+
+        BasketOptimizationException e = assertThrows(BasketOptimizationException.class,
+                () -> shoppingBasketService.optimizeBasket(basket(1, null, item("P1", 1), item("P2", 1)), DATE));
+
+        assertFalse(e instanceof BasketOptimizationTimeoutException);
+        assertEquals(HttpStatus.BAD_REQUEST, new GlobalExceptionHandler().handleBasketOptimizationException(e).getStatusCode());
+    }
+
+    // Greedy picks lidl and cannot cover the rest with one more store; only profi and mega carry everything
+    @Test
+    void searchOutOfTimeIsNotABadRequest() {
+        price("P1", lidl, 100);
+        price("P2", lidl, 100);
+        price("P3", lidl, 100);
+        price("P4", lidl, 100);
+        price("P1", profi, 100);
+        price("P2", profi, 100);
+        price("P5", profi, 100);
+        price("P3", mega, 100);
+        price("P4", mega, 100);
+        price("P6", mega, 100);
+        ReflectionTestUtils.setField(shoppingBasketService, "solverTimeLimitMs", 0L);
+
+        BasketOptimizationException e = assertThrows(BasketOptimizationException.class,
+                () -> shoppingBasketService.optimizeBasket(basket(2, null,
+                        item("P1", 1), item("P2", 1), item("P3", 1), item("P4", 1), item("P5", 1), item("P6", 1)), DATE));
+
+        BasketOptimizationTimeoutException timeout = assertInstanceOf(BasketOptimizationTimeoutException.class, e);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE,
+                new GlobalExceptionHandler().handleBasketOptimizationTimeoutException(timeout).getStatusCode());
+    }
+
+    @Test
+    void storeVisitCostOutsideItsRangeIsRejected() {
+        price("P1", lidl, 1_000);
+
+        for (double visitCost : new double[]{Double.NaN, Double.POSITIVE_INFINITY, -1, 10_000.01, 1e300}) {
+            assertThrows(BasketOptimizationException.class,
+                    () -> shoppingBasketService.optimizeBasket(basket(null, visitCost, item("P1", 1)), DATE),
+                    "storeVisitCost " + visitCost);
+        }
+        assertEquals(10_000.0, shoppingBasketService.optimizeBasket(basket(null, 10_000.0, item("P1", 1)), DATE)
+                .getTotalVisitCost());
+    }
+
+    private void price(String productId, Store store, long priceMinor) {
+        Product product = products.stream().filter(p -> p.getId().equals(productId)).findFirst().orElseGet(() -> {
+            Product created = new Product(productId, "product " + productId, 1, 1, 1.0, 1);
+            products.add(created);
+            return created;
+        });
+        currentPrices.computeIfAbsent(productId, id -> new ArrayList<>()).add(new CurrentPrice(
+                new CurrentPriceId(productId, store.getId()), product, store, priceMinor, 1, DATE.minusDays(1),
+                null, null, null, null));
+    }
+
+    private static BasketItemDto item(String productId, int quantity) {
+        return new BasketItemDto(productId, quantity);
+    }
+
+    private static ShoppingBasketDto basket(Integer maxStores, Double storeVisitCost, BasketItemDto... items) {
+        return new ShoppingBasketDto(List.of(items), maxStores, storeVisitCost);
+    }
+
+    private static Map<String, String> storeOfEachItem(OptimizedShoppingPlanDto plan) {
+        Map<String, String> stores = new TreeMap<>();
+        for (StoreShoppingListDto storeList : plan.getStoreLists()) {
+            for (OptimizedItemDto item : storeList.getItems()) {
+                stores.put(item.getProductId(), storeList.getStoreName());
+            }
+        }
+        return stores;
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.price_comparator.util;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Prints parse rates of both feed parsers; left out of the regular build, run with mvn test -Pbenchmark
+@Tag("benchmark")
+class CsvFeedReaderBenchmarkTest {
+
+    private static final int BENCHMARK_ROWS = 300_000;
+    private static final int ROUNDS = 3;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void benchmarkPriceFeedParsers() throws Exception {
+        Path file = writePriceFeed(BENCHMARK_ROWS);
+        double[] openCsvChecksum = new double[1];
+        double[] mappedChecksum = new double[1];
+        long openCsvNanos = Long.MAX_VALUE;
+        long mappedNanos = Long.MAX_VALUE;
+
+        for (int round = 0; round < ROUNDS; round++) {
+            openCsvChecksum[0] = 0;
+            long start = System.nanoTime();
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                OpenCsvFeedReader.readPrices(reader, record -> openCsvChecksum[0] += record.price());
+            }
+            openCsvNanos = Math.min(openCsvNanos, System.nanoTime() - start);
+
+            mappedChecksum[0] = 0;
+            start = System.nanoTime();
+            MappedCsvFeedReader.readPrices(file, record -> mappedChecksum[0] += record.price());
+            mappedNanos = Math.min(mappedNanos, System.nanoTime() - start);
+        }
+
+        assertEquals(openCsvChecksum[0], mappedChecksum[0], 0.0001);
+        System.out.printf(Locale.ROOT, "Price feed, %d rows (best of %d): opencsv %d ms (%.0f rows/s), mapped %d ms (%.0f rows/s)%n",
+                BENCHMARK_ROWS, ROUNDS,
+                openCsvNanos / 1_000_000, BENCHMARK_ROWS / (openCsvNanos / 1e9),
+                mappedNanos / 1_000_000, BENCHMARK_ROWS / (mappedNanos / 1e9));
+    }
+
+    private Path writePriceFeed(int rows) throws IOException {
+        Path file = tempDir.resolve("benchmark_2025-05-08.csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("product_id;product_name;product_category;brand;package_quantity;package_unit;price;currency\n");
+            for (int i = 0; i < rows; i++) {
+                writer.write("P" + i + ";produs de test " + (i % 97) + ";lactate;Marca" + (i % 13) + ";"
+                        + (1 + i % 5) + ".5;kg;" + (i % 50) + "." + (i % 100) + ";RON\n");
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.price_comparator.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvFileParserTest {
+
+    @Test
+    void acceptsBareFeedNames() {
+        assertTrue(CsvFileParser.isValidFeedFileName("lidl_2025-05-08.csv"));
+        assertTrue(CsvFileParser.isValidFeedFileName("kaufland_discounts_2025-05-08.csv.gz"));
+        assertTrue(CsvFileParser.isValidFeedFileName("profi_2025-05-01.csv.zst"));
+    }
+
+    @Test
+    void rejectsNamesThatLeaveTheFeedFolder() {
+        assertFalse(CsvFileParser.isValidFeedFileName(null));
+        assertFalse(CsvFileParser.isValidFeedFileName("../lidl_2025-05-08.csv"));
+        assertFalse(CsvFileParser.isValidFeedFileName("..\\lidl_2025-05-08.csv"));
+        assertFalse(CsvFileParser.isValidFeedFileName("archive/lidl_2025-05-08.csv"));
+        assertFalse(CsvFileParser.isValidFeedFileName("/etc/passwd.csv"));
+        assertFalse(CsvFileParser.isValidFeedFileName("lidl..2025-05-08.csv"));
+    }
+
+    @Test
+    void rejectsFilesThatAreNotFeeds() {
+        assertFalse(CsvFileParser.isValidFeedFileName("application.properties"));
+        assertFalse(CsvFileParser.isValidFeedFileName("lidl_2025-05-08.csv.bak"));
+        assertFalse(CsvFileParser.isValidFeedFileName(""));
+    }
+}
@@ -0,0 +1,139 @@
+package org.example.price_comparator.util;
+
+import org.example.price_comparator.dto.DiscountFeedRecord;
+import org.example.price_comparator.dto.PriceFeedRecord;
+import org.example.price_comparator.exceptions.CsvProcessingException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedCsvFeedReaderTest {
+
+    private static final String PRICE_HEADER = "product_id;product_name;product_category;brand;package_quantity;package_unit;price;currency\n";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void parsersAgreeOnBundledFeeds() throws Exception {
+        Path prices = bundledFile("lidl_2025-05-08.csv");
+        List<PriceFeedRecord> openCsvPrices = new ArrayList<>();
+        try (Reader reader = Files.newBufferedReader(prices, StandardCharsets.UTF_8)) {
+            OpenCsvFeedReader.readPrices(reader, openCsvPrices::add);
+        }
+        List<PriceFeedRecord> mappedPrices = new ArrayList<>();
+        MappedCsvFeedReader.readPrices(prices, mappedPrices::add);
+        assertFalse(mappedPrices.isEmpty());
+        assertEquals(openCsvPrices, mappedPrices);
+
+        Path discounts = bundledFile("kaufland_discounts_2025-05-08.csv");
+        List<DiscountFeedRecord> openCsvDiscounts = new ArrayList<>();
+        try (Reader reader = Files.newBufferedReader(discounts, StandardCharsets.UTF_8)) {
+            OpenCsvFeedReader.readDiscounts(reader, openCsvDiscounts::add);
+        }
+        List<DiscountFeedRecord> mappedDiscounts = new ArrayList<>();
+        MappedCsvFeedReader.readDiscounts(discounts, mappedDiscounts::add);
+        assertFalse(mappedDiscounts.isEmpty());
+        assertEquals(openCsvDiscounts, mappedDiscounts);
+    }
+
+    @Test
+    void readsDatesBlankLinesAndCrLf() throws Exception {
+        Path file = tempDir.resolve("profi_discounts_2025-05-08.csv");
+        Files.writeString(file, "product_id;product_name;brand;package_quantity;package_unit;product_category;from_date;to_date;percentage_of_discount\r\n"
+                + "P001; lapte zuzu;Zuzu;1;l;lactate;2024-02-29;2025-12-31;12.5\r\n"
+                + "\r\n"
+                + "P002;brânză;Pilos;0.3;kg;lactate;1999-01-01;2000-03-01;5", StandardCharsets.UTF_8);
+        List<DiscountFeedRecord> records = new ArrayList<>();
+        MappedCsvFeedReader.readDiscounts(file, records::add);
+
+        assertEquals(2, records.size());
+        assertEquals("lapte zuzu", records.get(0).productName());
+        assertEquals(LocalDate.of(2024, 2, 29).toEpochDay(), records.get(0).fromEpochDay());
+        assertEquals(LocalDate.of(2025, 12, 31).toEpochDay(), records.get(0).toEpochDay());
+        assertEquals(12.5, records.get(0).percentageOfDiscount());
+        assertEquals("brânză", records.get(1).productName());
+        assertEquals(LocalDate.of(2000, 3, 1).toEpochDay(), records.get(1).toEpochDay());
+    }
+
+    @Test
+    void linesSpanningTwoWindowsAreReadWhole() throws Exception {
+        StringBuilder feed = new StringBuilder(PRICE_HEADER);
+        for (int i = 0; i < 200; i++) {
+            // Multi-byte characters so that some windows also end inside a character
+            feed.append("P").append(i).append(";brânză și smântână ").append(i % 7).append(";lactate;Pilos;")
+                    .append(1 + i % 3).append(".5;kg;").append(i % 40).append('.').append(i % 100).append(";RON\n");
+        }
+        Path file = tempDir.resolve("windows_2025-05-08.csv");
+        Files.writeString(file, feed, StandardCharsets.UTF_8);
+        List<PriceFeedRecord> expected = new ArrayList<>();
+        OpenCsvFeedReader.readPrices(new StringReader(feed.toString()), expected::add);
+
+        for (long windowSize : new long[]{128, 131, 200, 1_000, 4_096}) {
+            List<PriceFeedRecord> records = new ArrayList<>();
+            MappedCsvFeedReader.readPrices(file, windowSize, records::add);
+            assertEquals(expected, records, "window size " + windowSize);
+        }
+    }
+
+    @Test
+    void lineLongerThanTheWindowIsRejected() throws Exception {
+        Path file = tempDir.resolve("long_2025-05-08.csv");
+        Files.writeString(file, PRICE_HEADER + "P1;" + "x".repeat(300) + ";lactate;Pilos;1;kg;2.5;RON\n", StandardCharsets.UTF_8);
+
+        CsvProcessingException error = assertThrows(CsvProcessingException.class,
+                () -> MappedCsvFeedReader.readPrices(file, 128, record -> { }));
+        assertTrue(error.getMessage().startsWith("Line longer than 128 bytes"), error.getMessage());
+    }
+
+    @Test
+    void decimalsMatchDoubleParseDouble() throws Exception {
+        List<String> values = new ArrayList<>(List.of("0", "12.5", "0.1", "-3.75", "+2", "7652.25771163496987",
+                "9007199254740993", "900719925474099.3", "123456789012345678901234.5"));
+        Random random = new Random(11);
+        for (int i = 0; i < 20_000; i++) {
+            int digits = 1 + random.nextInt(19);
+            StringBuilder value = new StringBuilder();
+            for (int d = 0; d < digits; d++) {
+                value.append(random.nextInt(10));
+            }
+            int scale = random.nextInt(digits);
+            if (scale > 0) {
+                value.insert(digits - scale, '.');
+            }
+            values.add(value.toString());
+        }
+        StringBuilder feed = new StringBuilder(PRICE_HEADER);
+        for (int i = 0; i < values.size(); i++) {
+            feed.append("P").append(i).append(";produs;lactate;Pilos;1;kg;").append(values.get(i)).append(";RON\n");
+        }
+        Path file = tempDir.resolve("decimals_2025-05-08.csv");
+        Files.writeString(file, feed, StandardCharsets.UTF_8);
+
+        List<PriceFeedRecord> records = new ArrayList<>();
+        MappedCsvFeedReader.readPrices(file, records::add);
+        assertEquals(values.size(), records.size());
+        for (int i = 0; i < values.size(); i++) {
+            assertEquals(Double.parseDouble(values.get(i)), records.get(i).price(), values.get(i));
+        }
+    }
+
+    private Path bundledFile(String fileName) throws URISyntaxException {
+        return Path.of(getClass().getClassLoader().getResource("csv_files/" + fileName).toURI());
+    }
+}
@@ -0,0 +1,62 @@
+package org.example.price_comparator.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MoneyTest {
+
+    @Test
+    void toMinorUnitsRoundsTheDecimalHalfUp() {
+        assertEquals(980, Money.toMinorUnits(9.80));
+        assertEquals(29, Money.toMinorUnits(0.29));
+        assertEquals(1999, Money.toMinorUnits(19.99));
+        assertEquals(12_345_678_912L, Money.toMinorUnits(123_456_789.12));
+        assertEquals(0, Money.toMinorUnits(0.004));
+        // Ties in the feed's decimal, which times 100 land just below or above .5 as doubles
+        assertEquals(101, Money.toMinorUnits(1.005));
+        assertEquals(268, Money.toMinorUnits(2.675));
+        assertEquals(115, Money.toMinorUnits(1.145));
+        assertEquals(-101, Money.toMinorUnits(-1.005));
+    }
+
+    @Test
+    void everyTwoDecimalAmountSurvivesTheRoundTrip() {
+        for (long minorUnits = 0; minorUnits <= 200_000; minorUnits++) {
+            double amount = Double.parseDouble(minorUnits / 100 + "." + String.format("%02d", minorUnits % 100));
+            assertEquals(minorUnits, Money.toMinorUnits(amount));
+            assertEquals(amount, Money.toDecimal(minorUnits));
+        }
+    }
+
+    @Test
+    void toBasisPointsRoundsTheDecimalHalfUp() {
+        assertEquals(1250, Money.toBasisPoints(12.5));
+        assertEquals(1235, Money.toBasisPoints(12.345));
+        assertEquals(3333, Money.toBasisPoints(33.333));
+        assertEquals(10_000, Money.toBasisPoints(100));
+        assertEquals(12.5, Money.toPercentage(1250));
+    }
+
+    @Test
+    void applyDiscountRoundsHalfUpToTheMinorUnit() {
+        assertEquals(875, Money.applyDiscount(1000, 1250));
+        // 874.125
+        assertEquals(874, Money.applyDiscount(999, 1250));
+        // 500.5
+        assertEquals(501, Money.applyDiscount(1001, 5000));
+        // 499.5
+        assertEquals(500, Money.applyDiscount(999, 5000));
+        assertEquals(999, Money.applyDiscount(999, 0));
+        assertEquals(0, Money.applyDiscount(999, 10_000));
+    }
+
+    @Test
+    void overflowThrowsInsteadOfWrappingAround() {
+        assertEquals(2940, Money.multiply(980, 3));
+        assertThrows(ArithmeticException.class, () -> Money.multiply(Long.MAX_VALUE / 2, 3));
+        assertThrows(ArithmeticException.class, () -> Money.applyDiscount(Long.MAX_VALUE / 1000, 1250));
+        assertThrows(ArithmeticException.class, () -> Money.toBasisPoints(1e8));
+    }
+}